@@ -0,0 +1,66 @@
+package com.s3manager.benchmark;
+
+import com.s3manager.config.JasyptConfig;
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.service.CredentialSecretCache;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of resolving a credential secret under concurrent load:
+ * <ul>
+ *     <li>{@code singleEncryptor} - the previous setup, one pooled PBE encryptor</li>
+ *     <li>{@code coreSizedPool} - one encryptor per available core</li>
+ *     <li>{@code cachedSecret} - {@link CredentialSecretCache} in front of the pool</li>
+ * </ul>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(Threads.MAX)
+public class CredentialDecryptBenchmark {
+
+    private static final String PASSWORD = "benchmark-encryption-password";
+    private static final String SECRET = "wJalrXUtnFEMI/K7MDENG/bPxRfiCYEXAMPLEKEY";
+
+    private PooledPBEStringEncryptor singleEncryptor;
+    private PooledPBEStringEncryptor coreSizedEncryptor;
+    private CredentialSecretCache secretCache;
+
+    private String ciphertext;
+    private S3Credential credential;
+
+    @Setup
+    public void setUp() {
+        singleEncryptor = JasyptConfig.createEncryptor(PASSWORD, 1);
+        coreSizedEncryptor = JasyptConfig.createEncryptor(
+                PASSWORD, Runtime.getRuntime().availableProcessors());
+        secretCache = new CredentialSecretCache(coreSizedEncryptor, 300, 500);
+
+        ciphertext = singleEncryptor.encrypt(SECRET);
+
+        credential = S3Credential.builder()
+                .secretKey(ciphertext)
+                .build();
+        credential.setId(UUID.randomUUID());
+    }
+
+    @Benchmark
+    public String singleEncryptor() {
+        return singleEncryptor.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public String coreSizedPool() {
+        return coreSizedEncryptor.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public String cachedSecret() {
+        return secretCache.getSecretKey(credential);
+    }
+}
@@ -1,7 +1,9 @@
 package com.s3manager.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -21,4 +23,75 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    @Bean(name = "credentialValidationExecutor")
+    public Executor credentialValidationExecutor(
+            @Value("${app.s3.validation.concurrency:4}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("credential-validation-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "streamingTaskExecutor")
+    public AsyncTaskExecutor streamingTaskExecutor(
+            @Value("${app.s3.download.max-concurrent-streams:100}") int maxStreams) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.min(16, maxStreams));
+        executor.setMaxPoolSize(maxStreams);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("stream-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "s3TransferExecutor")
+    public Executor s3TransferExecutor(
+            @Value("${app.s3.transfer.max-threads:64}") int maxThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("s3-transfer-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs whole copy and move operations for the async engine. They submit their parts to
+     * {@code s3TransferExecutor} and wait, so they must not take threads from that pool.
+     */
+    @Bean(name = "s3OperationExecutor")
+    public Executor s3OperationExecutor(
+            @Value("${app.s3.operations.concurrency:16}") int concurrency,
+            @Value("${app.s3.operations.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("s3-operation-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs background jobs, {@code concurrency} at a time. Submissions beyond the queue
+     * are rejected rather than piling up.
+     */
+    @Bean(name = "jobExecutor")
+    public Executor jobExecutor(
+            @Value("${app.jobs.concurrency:4}") int concurrency,
+            @Value("${app.jobs.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("job-");
+        executor.initialize();
+        return executor;
+    }
+}
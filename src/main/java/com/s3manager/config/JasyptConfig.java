@@ -16,15 +16,24 @@ public class JasyptConfig {
     @Value("${jasypt.encryptor.password}")
     private String encryptorPassword;
 
+    // 0 means one encryptor per available core
+    @Value("${jasypt.encryptor.pool-size:0}")
+    private int poolSize;
+
     @Bean("jasyptStringEncryptor")
     @Primary
     public StringEncryptor stringEncryptor() {
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return createEncryptor(encryptorPassword, size);
+    }
+
+    public static PooledPBEStringEncryptor createEncryptor(String password, int poolSize) {
         PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
         SimpleStringPBEConfig config = new SimpleStringPBEConfig();
-        config.setPassword(encryptorPassword);
+        config.setPassword(password);
         config.setAlgorithm("PBEWITHHMACSHA512ANDAES_256");
         config.setKeyObtentionIterations("1000");
-        config.setPoolSize("1");
+        config.setPoolSize(String.valueOf(poolSize));
         config.setProviderName("SunJCE");
         config.setSaltGeneratorClassName("org.jasypt.salt.RandomSaltGenerator");
         config.setIvGeneratorClassName("org.jasypt.iv.RandomIvGenerator");
@@ -32,4 +41,4 @@ public class JasyptConfig {
         encryptor.setConfig(config);
         return encryptor;
     }
-}
\ No newline at end of file
+}
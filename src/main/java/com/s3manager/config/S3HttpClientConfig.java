@@ -0,0 +1,74 @@
+package com.s3manager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+
+import java.time.Duration;
+
+/**
+ * Single Apache HTTP client shared by every credential's {@code S3Client}, so
+ * connections to the same endpoint are pooled across credentials. When
+ * {@code app.s3.engine=async} a shared Netty client backs the {@code S3AsyncClient}s.
+ */
+@Configuration
+public class S3HttpClientConfig {
+
+    @Value("${app.s3.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${app.s3.http.connection-acquire-timeout:10000}")
+    private long connectionAcquireTimeout;
+
+    @Value("${app.s3.http.connection-timeout:5000}")
+    private long connectionTimeout;
+
+    @Value("${app.s3.http.socket-timeout:60000}")
+    private long socketTimeout;
+
+    @Value("${app.s3.http.connection-max-idle-time:60000}")
+    private long connectionMaxIdleTime;
+
+    @Value("${app.s3.http.use-idle-connection-reaper:true}")
+    private boolean useIdleConnectionReaper;
+
+    @Value("${app.s3.http.tcp-keep-alive:true}")
+    private boolean tcpKeepAlive;
+
+    @Value("${app.s3.http.max-pending-acquires:10000}")
+    private int maxPendingAcquires;
+
+    @Bean(destroyMethod = "close")
+    public SdkHttpClient s3HttpClient() {
+        return ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquireTimeout))
+                .connectionTimeout(Duration.ofMillis(connectionTimeout))
+                .socketTimeout(Duration.ofMillis(socketTimeout))
+                .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleTime))
+                .useIdleConnectionReaper(useIdleConnectionReaper)
+                .tcpKeepAlive(tcpKeepAlive)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.s3.engine", havingValue = "async")
+    public SdkAsyncHttpClient s3AsyncHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquireTimeout))
+                .connectionTimeout(Duration.ofMillis(connectionTimeout))
+                .readTimeout(Duration.ofMillis(socketTimeout))
+                .writeTimeout(Duration.ofMillis(socketTimeout))
+                .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleTime))
+                .useIdleConnectionReaper(useIdleConnectionReaper)
+                .tcpKeepAlive(tcpKeepAlive)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.s3manager.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Forwards the SDK's HTTP client metrics to Micrometer. The pool figures are
+ * sampled on every request, so the gauges report the most recent observation of
+ * the shared connection pool.
+ */
+@Component
+public class S3HttpMetricPublisher implements MetricPublisher {
+
+    private final AtomicInteger maxConnections = new AtomicInteger();
+    private final AtomicInteger leasedConnections = new AtomicInteger();
+    private final AtomicInteger availableConnections = new AtomicInteger();
+    private final AtomicInteger pendingAcquires = new AtomicInteger();
+    private final Timer acquireTimer;
+
+    public S3HttpMetricPublisher(MeterRegistry meterRegistry) {
+        Gauge.builder("s3.http.pool.max", maxConnections, AtomicInteger::get)
+                .description("Maximum connections in the shared S3 HTTP pool")
+                .register(meterRegistry);
+        Gauge.builder("s3.http.pool.leased", leasedConnections, AtomicInteger::get)
+                .description("Connections currently leased from the shared S3 HTTP pool")
+                .register(meterRegistry);
+        Gauge.builder("s3.http.pool.available", availableConnections, AtomicInteger::get)
+                .description("Idle connections available in the shared S3 HTTP pool")
+                .register(meterRegistry);
+        Gauge.builder("s3.http.pool.pending", pendingAcquires, AtomicInteger::get)
+                .description("Requests waiting to acquire a connection from the shared S3 HTTP pool")
+                .register(meterRegistry);
+        acquireTimer = Timer.builder("s3.http.pool.acquire")
+                .description("Time spent waiting to acquire a connection from the shared S3 HTTP pool")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        record(metricCollection);
+    }
+
+    @Override
+    public void close() {
+        // Lifecycle is owned by the Spring context
+    }
+
+    private void record(MetricCollection collection) {
+        setLast(maxConnections, collection.metricValues(HttpMetric.MAX_CONCURRENCY));
+        setLast(leasedConnections, collection.metricValues(HttpMetric.LEASED_CONCURRENCY));
+        setLast(availableConnections, collection.metricValues(HttpMetric.AVAILABLE_CONCURRENCY));
+        setLast(pendingAcquires, collection.metricValues(HttpMetric.PENDING_CONCURRENCY_ACQUIRES));
+        collection.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION).forEach(acquireTimer::record);
+
+        collection.children().forEach(this::record);
+    }
+
+    private static void setLast(AtomicInteger target, List<Integer> values) {
+        if (!values.isEmpty()) {
+            target.set(values.get(values.size() - 1));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.s3manager.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+/**
+ * Closes the download behind a streaming response once async processing is over.
+ * <p>
+ * Downloads open their S3 GET before the body is handed to the streaming executor, so
+ * that the status and headers can be taken from the response. If the executor rejects the
+ * body, or the request times out or fails before the body closes it, nothing else would
+ * release that connection.
+ * <p>
+ * It also gives streaming responses their own timeout: the MVC default applies to every
+ * async request and would cut off downloads and archives that take longer to write.
+ */
+@Slf4j
+public class StreamingDownloadInterceptor implements CallableProcessingInterceptor {
+
+    private static final String DOWNLOAD_ATTRIBUTE = StreamingDownloadInterceptor.class.getName() + ".download";
+
+    private final long streamTimeout;
+
+    /**
+     * @param streamTimeout how long a streaming response may take in milliseconds, 0 for no limit
+     */
+    public StreamingDownloadInterceptor(long streamTimeout) {
+        this.streamTimeout = streamTimeout;
+    }
+
+    /**
+     * Registers {@code download} to be closed when the response for {@code request} completes.
+     * The download must tolerate being closed again after its body already did so.
+     */
+    public static void track(HttpServletRequest request, Closeable download) {
+        request.setAttribute(DOWNLOAD_ATTRIBUTE, download);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        // Only streaming bodies are processed as callables; async processing has not started yet
+        if (request instanceof AsyncWebRequest asyncRequest) {
+            asyncRequest.setTimeout(streamTimeout);
+        }
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        Object download = request.getAttribute(DOWNLOAD_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (download instanceof Closeable closeable) {
+            request.removeAttribute(DOWNLOAD_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to close download after the response completed: {}", e.getMessage());
+            }
+        }
+    }
+}
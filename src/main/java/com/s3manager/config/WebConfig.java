@@ -1,12 +1,33 @@
 package com.s3manager.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final AsyncTaskExecutor streamingTaskExecutor;
+    private final long streamTimeout;
+
+    public WebConfig(
+            @Qualifier("streamingTaskExecutor") AsyncTaskExecutor streamingTaskExecutor,
+            @Value("${app.s3.download.stream-timeout:0}") long streamTimeout) {
+        this.streamingTaskExecutor = streamingTaskExecutor;
+        this.streamTimeout = streamTimeout;
+    }
+
+    // Streaming response bodies are written on this bounded pool instead of a thread per request
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingTaskExecutor);
+        configurer.registerCallableInterceptors(new StreamingDownloadInterceptor(streamTimeout));
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
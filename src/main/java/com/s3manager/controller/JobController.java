@@ -0,0 +1,88 @@
+package com.s3manager.controller;
+
+import com.s3manager.domain.entity.JobStatus;
+import com.s3manager.dto.common.ApiResponse;
+import com.s3manager.dto.common.PageResponse;
+import com.s3manager.dto.job.JobResponse;
+import com.s3manager.dto.s3.BulkDeleteRequest;
+import com.s3manager.dto.s3.PrefixOperation;
+import com.s3manager.dto.s3.PrefixTransferRequest;
+import com.s3manager.service.JobService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobService jobService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<PageResponse<JobResponse>>> listJobs(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) JobStatus status,
+            Authentication authentication) {
+        PageResponse<JobResponse> jobs = jobService.listJobs(authentication.getName(), page, size, status);
+        return ResponseEntity.ok(ApiResponse.success(jobs));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse<JobResponse>> getJob(
+            @PathVariable UUID jobId,
+            Authentication authentication) {
+        JobResponse response = jobService.getJob(authentication.getName(), jobId);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<ApiResponse<JobResponse>> cancelJob(
+            @PathVariable UUID jobId,
+            Authentication authentication) {
+        JobResponse response = jobService.cancel(authentication.getName(), jobId);
+        return ResponseEntity.ok(ApiResponse.success("Job cancellation requested", response));
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<ApiResponse<JobResponse>> submitBulkDelete(
+            @Valid @RequestBody BulkDeleteRequest request,
+            Authentication authentication) {
+        return toSubmitted(jobService.submitBulkDelete(authentication.getName(), request));
+    }
+
+    @PostMapping("/prefix/copy")
+    public ResponseEntity<ApiResponse<JobResponse>> submitCopyPrefix(
+            @Valid @RequestBody PrefixTransferRequest request,
+            Authentication authentication) {
+        return toSubmitted(jobService.submitPrefixTransfer(
+                authentication.getName(), request, PrefixOperation.COPY));
+    }
+
+    @PostMapping("/prefix/move")
+    public ResponseEntity<ApiResponse<JobResponse>> submitMovePrefix(
+            @Valid @RequestBody PrefixTransferRequest request,
+            Authentication authentication) {
+        return toSubmitted(jobService.submitPrefixTransfer(
+                authentication.getName(), request, PrefixOperation.MOVE));
+    }
+
+    @PostMapping("/prefix/rename")
+    public ResponseEntity<ApiResponse<JobResponse>> submitRenamePrefix(
+            @Valid @RequestBody PrefixTransferRequest request,
+            Authentication authentication) {
+        return toSubmitted(jobService.submitPrefixTransfer(
+                authentication.getName(), request, PrefixOperation.RENAME));
+    }
+
+    private ResponseEntity<ApiResponse<JobResponse>> toSubmitted(JobResponse response) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Job submitted", response));
+    }
+}
@@ -0,0 +1,71 @@
+package com.s3manager.controller;
+
+import com.s3manager.dto.common.ApiResponse;
+import com.s3manager.dto.s3.*;
+import com.s3manager.service.PresignedUploadService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/objects/presigned-uploads")
+@RequiredArgsConstructor
+public class PresignedUploadController {
+
+    private final PresignedUploadService presignedUploadService;
+
+    @PostMapping("/put")
+    public ResponseEntity<ApiResponse<PresignedUrlResponse>> presignPut(
+            @Valid @RequestBody PresignedUploadRequest request,
+            Authentication authentication) {
+        PresignedUrlResponse response = presignedUploadService.presignPut(authentication.getName(), request);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/post")
+    public ResponseEntity<ApiResponse<PresignedPostResponse>> presignPost(
+            @Valid @RequestBody PresignedUploadRequest request,
+            Authentication authentication) {
+        PresignedPostResponse response = presignedUploadService.presignPost(authentication.getName(), request);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/multipart")
+    public ResponseEntity<ApiResponse<PresignedMultipartResponse>> initiateMultipart(
+            @Valid @RequestBody PresignedMultipartRequest request,
+            Authentication authentication) {
+        PresignedMultipartResponse response = presignedUploadService.initiateMultipart(
+                authentication.getName(), request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Multipart upload started", response));
+    }
+
+    @PostMapping("/multipart/parts")
+    public ResponseEntity<ApiResponse<List<PresignedPartUrl>>> presignParts(
+            @Valid @RequestBody PresignedPartsRequest request,
+            Authentication authentication) {
+        List<PresignedPartUrl> response = presignedUploadService.presignParts(authentication.getName(), request);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/multipart/abort")
+    public ResponseEntity<ApiResponse<Void>> abortMultipart(
+            @Valid @RequestBody CompleteUploadRequest request,
+            Authentication authentication) {
+        presignedUploadService.abortMultipart(authentication.getName(), request);
+        return ResponseEntity.ok(ApiResponse.success("Multipart upload aborted", null));
+    }
+
+    @PostMapping("/complete")
+    public ResponseEntity<ApiResponse<UploadResponse>> completeUpload(
+            @Valid @RequestBody CompleteUploadRequest request,
+            Authentication authentication) {
+        UploadResponse response = presignedUploadService.complete(authentication.getName(), request);
+        return ResponseEntity.ok(ApiResponse.success("Object uploaded successfully", response));
+    }
+}
@@ -2,7 +2,7 @@ package com.s3manager.controller;
 
 import com.s3manager.dto.common.ApiResponse;
 import com.s3manager.dto.s3.BucketDTO;
-import com.s3manager.service.S3Service;
+import com.s3manager.service.S3AsyncService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,38 +11,39 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/buckets")
 @RequiredArgsConstructor
 public class S3BucketController {
 
-    private final S3Service s3Service;
+    private final S3AsyncService s3AsyncService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<BucketDTO>>> listBuckets(
+    public CompletableFuture<ResponseEntity<ApiResponse<List<BucketDTO>>>> listBuckets(
             @RequestParam(required = false) UUID credentialId,
             Authentication authentication) {
-        List<BucketDTO> buckets = s3Service.listBuckets(authentication.getName(), credentialId);
-        return ResponseEntity.ok(ApiResponse.success(buckets));
+        return s3AsyncService.listBuckets(authentication.getName(), credentialId)
+                .thenApply(buckets -> ResponseEntity.ok(ApiResponse.success(buckets)));
     }
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Void>> createBucket(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> createBucket(
             @RequestParam String bucketName,
             @RequestParam(required = false) UUID credentialId,
             Authentication authentication) {
-        s3Service.createBucket(authentication.getName(), bucketName, credentialId);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ApiResponse.success("Bucket created successfully", null));
+        return s3AsyncService.createBucket(authentication.getName(), bucketName, credentialId)
+                .thenApply(created -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(ApiResponse.success("Bucket created successfully", null)));
     }
 
     @DeleteMapping("/{bucketName}")
-    public ResponseEntity<ApiResponse<Void>> deleteBucket(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> deleteBucket(
             @PathVariable String bucketName,
             @RequestParam(required = false) UUID credentialId,
             Authentication authentication) {
-        s3Service.deleteBucket(authentication.getName(), bucketName, credentialId);
-        return ResponseEntity.ok(ApiResponse.success("Bucket deleted successfully", null));
+        return s3AsyncService.deleteBucket(authentication.getName(), bucketName, credentialId)
+                .thenApply(deleted -> ResponseEntity.ok(ApiResponse.success("Bucket deleted successfully", null)));
     }
 }
@@ -2,6 +2,7 @@ package com.s3manager.controller;
 
 import com.s3manager.dto.common.ApiResponse;
 import com.s3manager.dto.credential.*;
+import com.s3manager.service.CredentialHealthService;
 import com.s3manager.service.S3CredentialService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +20,7 @@ import java.util.UUID;
 public class S3CredentialController {
 
     private final S3CredentialService credentialService;
+    private final CredentialHealthService credentialHealthService;
 
     @PostMapping
     public ResponseEntity<ApiResponse<S3CredentialResponse>> createCredential(
@@ -77,7 +79,7 @@ public class S3CredentialController {
     public ResponseEntity<ApiResponse<CredentialValidationResponse>> validateCredential(
             @PathVariable UUID credentialId,
             Authentication authentication) {
-        CredentialValidationResponse response = credentialService.validateCredential(
+        CredentialValidationResponse response = credentialHealthService.validateCredential(
                 authentication.getName(), credentialId);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
@@ -1,19 +1,40 @@
 package com.s3manager.controller;
 
+import com.s3manager.config.StreamingDownloadInterceptor;
 import com.s3manager.dto.common.ApiResponse;
 import com.s3manager.dto.s3.*;
+import com.s3manager.exception.BadRequestException;
+import com.s3manager.service.ImagePreviewService;
+import com.s3manager.service.S3AsyncService;
 import com.s3manager.service.S3Service;
+import com.s3manager.service.TextPreviewService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/objects")
@@ -21,13 +42,16 @@ import java.util.UUID;
 public class S3ObjectController {
 
     private final S3Service s3Service;
+    private final S3AsyncService s3AsyncService;
+    private final ImagePreviewService imagePreviewService;
+    private final TextPreviewService textPreviewService;
 
     @PostMapping("/list")
-    public ResponseEntity<ApiResponse<ListObjectsResponse>> listObjects(
+    public CompletableFuture<ResponseEntity<ApiResponse<ListObjectsResponse>>> listObjects(
             @Valid @RequestBody ListObjectsRequest request,
             Authentication authentication) {
-        ListObjectsResponse response = s3Service.listObjects(authentication.getName(), request);
-        return ResponseEntity.ok(ApiResponse.success(response));
+        return s3AsyncService.listObjects(authentication.getName(), request)
+                .thenApply(response -> ResponseEntity.ok(ApiResponse.success(response)));
     }
 
     @PostMapping("/upload")
@@ -36,51 +60,251 @@ public class S3ObjectController {
             @RequestParam String key,
             @RequestParam MultipartFile file,
             @RequestParam(required = false) UUID credentialId,
+            @RequestParam(required = false) String compression,
+            @RequestParam(required = false) String contentMd5,
+            @RequestParam(required = false) String checksumCrc32c,
+            @RequestParam(defaultValue = "false") boolean skipIfUnchanged,
             Authentication authentication) {
+        UploadOptions options = UploadOptions.builder()
+                .compression(compression)
+                .contentMd5(contentMd5)
+                .checksumCrc32c(checksumCrc32c)
+                .skipIfUnchanged(skipIfUnchanged)
+                .build();
         UploadResponse response = s3Service.uploadObject(
-                authentication.getName(), bucket, key, file, credentialId);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ApiResponse.success("Object uploaded successfully", response));
+                authentication.getName(), bucket, key, file, credentialId, options);
+        return toUploadResult(response);
+    }
+
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<BatchUploadResponse>> uploadObjects(
+            @RequestParam String bucket,
+            @RequestParam(required = false) String prefix,
+            @RequestParam List<MultipartFile> files,
+            @RequestParam(required = false) UUID credentialId,
+            Authentication authentication) {
+        BatchUploadResponse response = s3Service.uploadObjects(
+                authentication.getName(), bucket, prefix, files, credentialId);
+        return ResponseEntity.ok(ApiResponse.success("Batch upload finished", response));
+    }
+
+    @PostMapping(value = "/upload/tar", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<ApiResponse<BatchUploadResponse>> uploadTar(
+            @RequestParam String bucket,
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) UUID credentialId,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        BatchUploadResponse response = s3Service.uploadTar(
+                authentication.getName(), bucket, prefix, request.getInputStream(), credentialId);
+        return ResponseEntity.ok(ApiResponse.success("Archive upload finished", response));
+    }
+
+    @PutMapping(value = "/{bucket}/{*key}", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<ApiResponse<UploadResponse>> uploadObjectStream(
+            @PathVariable String bucket,
+            @PathVariable String key,
+            @RequestParam(required = false) UUID credentialId,
+            @RequestParam(required = false) String checksumCrc32c,
+            @RequestParam(defaultValue = "false") boolean skipIfUnchanged,
+            @RequestHeader(value = "Content-MD5", required = false) String contentMd5,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        String objectKey = StringUtils.removeStart(key, "/");
+        if (objectKey.isEmpty()) {
+            throw new BadRequestException("Object key is required");
+        }
+        UploadOptions options = UploadOptions.builder()
+                .contentMd5(contentMd5)
+                .checksumCrc32c(checksumCrc32c)
+                .skipIfUnchanged(skipIfUnchanged)
+                .build();
+        UploadResponse response = s3Service.uploadStream(authentication.getName(), bucket, objectKey,
+                request.getInputStream(), request.getContentLengthLong(), request.getContentType(),
+                credentialId, options);
+        return toUploadResult(response);
     }
 
     @GetMapping("/download")
-    public ResponseEntity<byte[]> downloadObject(
+    public ResponseEntity<StreamingResponseBody> downloadObject(
+            @RequestParam String bucket,
+            @RequestParam String key,
+            @RequestParam(required = false) UUID credentialId,
+            @RequestParam(required = false) Boolean parallel,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest servletRequest,
+            Authentication authentication) {
+        DownloadRequest request = DownloadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .credentialId(credentialId)
+                .ranges(parseRanges(range))
+                .parallel(parallel)
+                .ifNoneMatch(ifNoneMatch)
+                .ifModifiedSince(parseHttpDate(ifModifiedSince))
+                .acceptEncoding(acceptEncoding)
+                .build();
+
+        ObjectDownload download = s3Service.downloadObject(authentication.getName(), request);
+        // The GET is already open; close it even if the body is never run
+        StreamingDownloadInterceptor.track(servletRequest, download);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(key, StandardCharsets.UTF_8)
+                .build());
+        headers.setContentType(resolveContentType(download.getContentType()));
+        if (download.getContentLength() != null) {
+            headers.setContentLength(download.getContentLength());
+        }
+        if (download.getETag() != null) {
+            headers.setETag(download.getETag());
+        }
+        if (download.getLastModified() != null) {
+            headers.setLastModified(download.getLastModified());
+        }
+        if (download.getContentRange() != null) {
+            headers.set(HttpHeaders.CONTENT_RANGE, download.getContentRange());
+        }
+        if (download.getContentEncoding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, download.getContentEncoding());
+        }
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+
+        StreamingResponseBody body = out -> {
+            try (download) {
+                download.writeTo(out);
+            }
+        };
+
+        return ResponseEntity.status(download.isPartial() ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .headers(headers)
+                .body(body);
+    }
+
+    @GetMapping("/preview")
+    public ResponseEntity<byte[]> previewObject(
             @RequestParam String bucket,
             @RequestParam String key,
             @RequestParam(required = false) UUID credentialId,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             Authentication authentication) {
-        byte[] data = s3Service.downloadObject(authentication.getName(), bucket, key, credentialId);
+        ObjectPreview preview = imagePreviewService.getPreview(
+                authentication.getName(), bucket, key, credentialId, size, ifNoneMatch);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(preview.getContentType()))
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePrivate())
+                .eTag(preview.getETag());
+        if (preview.getLastModified() != null) {
+            response.lastModified(preview.getLastModified());
+        }
+        return response.body(preview.getContent());
+    }
+
+    @GetMapping("/preview/text")
+    public ResponseEntity<ApiResponse<TextPreviewResponse>> previewText(
+            @RequestParam String bucket,
+            @RequestParam String key,
+            @RequestParam(required = false) UUID credentialId,
+            @RequestParam(defaultValue = "head") String mode,
+            @RequestParam(required = false) Integer lines,
+            @RequestParam(required = false) Long bytes,
+            Authentication authentication) {
+        if (!"head".equalsIgnoreCase(mode) && !"tail".equalsIgnoreCase(mode)) {
+            throw new BadRequestException("mode must be 'head' or 'tail'");
+        }
+        TextPreviewResponse response = textPreviewService.getTextPreview(authentication.getName(),
+                bucket, key, credentialId, "tail".equalsIgnoreCase(mode), lines, bytes);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(
+            @Valid @RequestBody ArchiveRequest request,
+            HttpServletRequest servletRequest,
+            Authentication authentication) {
+        ObjectDownload archive = s3Service.downloadArchive(authentication.getName(), request);
+        StreamingDownloadInterceptor.track(servletRequest, archive);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(archive.getKey(), StandardCharsets.UTF_8)
+                .build());
+        headers.setContentType(MediaType.parseMediaType(archive.getContentType()));
+
+        StreamingResponseBody body = out -> {
+            try (archive) {
+                archive.writeTo(out);
+            }
+        };
 
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + key + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(data);
+                .headers(headers)
+                .body(body);
     }
 
     @DeleteMapping
-    public ResponseEntity<ApiResponse<Void>> deleteObject(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> deleteObject(
             @RequestParam String bucket,
             @RequestParam String key,
             @RequestParam(required = false) UUID credentialId,
             Authentication authentication) {
-        s3Service.deleteObject(authentication.getName(), bucket, key, credentialId);
-        return ResponseEntity.ok(ApiResponse.success("Object deleted successfully", null));
+        return s3AsyncService.deleteObject(authentication.getName(), bucket, key, credentialId)
+                .thenApply(deleted -> ResponseEntity.ok(ApiResponse.success("Object deleted successfully", null)));
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<ApiResponse<BulkDeleteResponse>> deleteObjects(
+            @Valid @RequestBody BulkDeleteRequest request,
+            Authentication authentication) {
+        BulkDeleteResponse response = s3Service.deleteObjects(authentication.getName(), request);
+        return ResponseEntity.ok(ApiResponse.success("Bulk delete finished", response));
     }
 
     @PostMapping("/copy")
-    public ResponseEntity<ApiResponse<Void>> copyObject(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> copyObject(
             @Valid @RequestBody CopyMoveRequest request,
             Authentication authentication) {
-        s3Service.copyObject(authentication.getName(), request);
-        return ResponseEntity.ok(ApiResponse.success("Object copied successfully", null));
+        return s3AsyncService.copyObject(authentication.getName(), request)
+                .thenApply(copied -> ResponseEntity.ok(ApiResponse.success("Object copied successfully", null)));
     }
 
     @PostMapping("/move")
-    public ResponseEntity<ApiResponse<Void>> moveObject(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> moveObject(
             @Valid @RequestBody CopyMoveRequest request,
             Authentication authentication) {
-        s3Service.moveObject(authentication.getName(), request);
-        return ResponseEntity.ok(ApiResponse.success("Object moved successfully", null));
+        return s3AsyncService.moveObject(authentication.getName(), request)
+                .thenApply(moved -> ResponseEntity.ok(ApiResponse.success("Object moved successfully", null)));
+    }
+
+    @PostMapping("/prefix/copy")
+    public ResponseEntity<ApiResponse<PrefixTransferResponse>> copyPrefix(
+            @Valid @RequestBody PrefixTransferRequest request,
+            Authentication authentication) {
+        return toPrefixTransferResult(s3Service.transferPrefix(
+                authentication.getName(), request, PrefixOperation.COPY), "Prefix copied");
+    }
+
+    @PostMapping("/prefix/move")
+    public ResponseEntity<ApiResponse<PrefixTransferResponse>> movePrefix(
+            @Valid @RequestBody PrefixTransferRequest request,
+            Authentication authentication) {
+        return toPrefixTransferResult(s3Service.transferPrefix(
+                authentication.getName(), request, PrefixOperation.MOVE), "Prefix moved");
+    }
+
+    @PostMapping("/prefix/rename")
+    public ResponseEntity<ApiResponse<PrefixTransferResponse>> renamePrefix(
+            @Valid @RequestBody PrefixTransferRequest request,
+            Authentication authentication) {
+        return toPrefixTransferResult(s3Service.transferPrefix(
+                authentication.getName(), request, PrefixOperation.RENAME), "Prefix renamed");
     }
 
     @PostMapping("/presigned-url")
@@ -92,14 +316,85 @@ public class S3ObjectController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @PostMapping("/presigned-urls")
+    public ResponseEntity<ApiResponse<List<PresignedUrlResponse>>> generatePresignedUrls(
+            @Valid @RequestBody BatchPresignedUrlRequest request,
+            Authentication authentication) {
+        List<PresignedUrlResponse> response = s3Service.generatePresignedUrls(
+                authentication.getName(), request);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/metadata")
-    public ResponseEntity<ApiResponse<S3ObjectDTO>> getObjectMetadata(
+    public CompletableFuture<ResponseEntity<ApiResponse<S3ObjectDTO>>> getObjectMetadata(
             @RequestParam String bucket,
             @RequestParam String key,
             @RequestParam(required = false) UUID credentialId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince,
             Authentication authentication) {
-        S3ObjectDTO metadata = s3Service.getObjectMetadata(
-                authentication.getName(), bucket, key, credentialId);
-        return ResponseEntity.ok(ApiResponse.success(metadata));
+        return s3AsyncService.getObjectMetadata(authentication.getName(), bucket, key, credentialId,
+                        ifNoneMatch, parseHttpDate(ifModifiedSince))
+                .thenApply(metadata -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (metadata.getETag() != null) {
+                        response.eTag(metadata.getETag());
+                    }
+                    if (metadata.getLastModified() != null) {
+                        response.lastModified(metadata.getLastModified());
+                    }
+                    return response.body(ApiResponse.success(metadata));
+                });
+    }
+
+    private List<HttpRange> parseRanges(String range) {
+        if (range == null || range.isBlank()) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            // A malformed Range header is ignored and the full object is served
+            return List.of();
+        }
+    }
+
+    private Instant parseHttpDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            // An unparseable date makes the request unconditional, as RFC 9110 requires
+            return null;
+        }
+    }
+
+    private MediaType resolveContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private ResponseEntity<ApiResponse<UploadResponse>> toUploadResult(UploadResponse response) {
+        if (response.isSkipped()) {
+            return ResponseEntity.ok(ApiResponse.success("Object unchanged, upload skipped", response));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Object uploaded successfully", response));
+    }
+
+    private ResponseEntity<ApiResponse<PrefixTransferResponse>> toPrefixTransferResult(
+            PrefixTransferResponse response, String message) {
+        if (!response.getCompleted()) {
+            message += " partially; resume with the returned checkpoint";
+        }
+        return ResponseEntity.ok(ApiResponse.success(message, response));
     }
-}
\ No newline at end of file
+}
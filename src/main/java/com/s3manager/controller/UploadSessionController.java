@@ -0,0 +1,71 @@
+package com.s3manager.controller;
+
+import com.s3manager.dto.common.ApiResponse;
+import com.s3manager.dto.s3.UploadResponse;
+import com.s3manager.dto.upload.UploadSessionPartResponse;
+import com.s3manager.dto.upload.UploadSessionRequest;
+import com.s3manager.dto.upload.UploadSessionResponse;
+import com.s3manager.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/uploads")
+@RequiredArgsConstructor
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> initiateUpload(
+            @Valid @RequestBody UploadSessionRequest request,
+            Authentication authentication) {
+        UploadSessionResponse response = uploadSessionService.initiate(authentication.getName(), request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Upload session created", response));
+    }
+
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getUpload(
+            @PathVariable UUID sessionId,
+            Authentication authentication) {
+        UploadSessionResponse response = uploadSessionService.getSession(authentication.getName(), sessionId);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PutMapping(value = "/{sessionId}/parts/{partNumber}", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<ApiResponse<UploadSessionPartResponse>> uploadPart(
+            @PathVariable UUID sessionId,
+            @PathVariable int partNumber,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        UploadSessionPartResponse response = uploadSessionService.uploadPart(authentication.getName(),
+                sessionId, partNumber, request.getInputStream(), request.getContentLengthLong());
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<ApiResponse<UploadResponse>> completeUpload(
+            @PathVariable UUID sessionId,
+            Authentication authentication) {
+        UploadResponse response = uploadSessionService.complete(authentication.getName(), sessionId);
+        return ResponseEntity.ok(ApiResponse.success("Object uploaded successfully", response));
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<ApiResponse<Void>> abortUpload(
+            @PathVariable UUID sessionId,
+            Authentication authentication) {
+        uploadSessionService.abort(authentication.getName(), sessionId);
+        return ResponseEntity.ok(ApiResponse.success("Upload session aborted", null));
+    }
+}
@@ -0,0 +1,71 @@
+package com.s3manager.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "jobs", indexes = {
+        @Index(name = "idx_job_user", columnList = "user_id, createdAt"),
+        @Index(name = "idx_job_status", columnList = "status"),
+        @Index(name = "idx_job_owner", columnList = "owner, status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Job extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private JobStatus status;
+
+    @Column(length = 100)
+    private String bucketName;
+
+    @Column(length = 1024)
+    private String prefix;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String request; // the submitted request as JSON
+
+    @Column(columnDefinition = "TEXT")
+    private String result; // the operation's response as JSON, once finished
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long processed = 0L;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long failed = 0L;
+
+    @Column(length = 1024)
+    private String checkpoint; // startAfter for resubmitting an unfinished prefix job
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean cancelRequested = false;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @Column(length = 100)
+    private String owner; // the instance running the job
+
+    private LocalDateTime heartbeatAt; // last sign of life from the owner
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,16 @@
+package com.s3manager.domain.entity;
+
+/**
+ * QUEUED -> RUNNING -> COMPLETED | FAILED | CANCELLED, or QUEUED -> CANCELLED.
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
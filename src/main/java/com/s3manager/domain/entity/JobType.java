@@ -0,0 +1,8 @@
+package com.s3manager.domain.entity;
+
+public enum JobType {
+    BULK_DELETE,
+    PREFIX_COPY,
+    PREFIX_MOVE,
+    PREFIX_RENAME
+}
@@ -43,4 +43,9 @@ public class S3Credential extends BaseEntity {
     private Boolean isActive = true;
 
     private LocalDateTime lastValidatedAt;
+
+    private Boolean isHealthy; // null until the first background validation has run
+
+    @Column(length = 1000)
+    private String lastValidationError;
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.s3manager.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_session_user", columnList = "user_id"),
+        @Index(name = "idx_upload_session_status", columnList = "status, lastActivityAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "credential_id", nullable = false)
+    private S3Credential credential;
+
+    @Column(nullable = false, length = 100)
+    private String bucketName;
+
+    @Column(nullable = false, length = 1024)
+    private String objectKey;
+
+    @Column(nullable = false, length = 1000)
+    private String uploadId; // S3 multipart upload id
+
+    @Column(length = 200)
+    private String contentType;
+
+    private Long totalSize; // null if the client did not announce it
+
+    @Column(nullable = false)
+    private Long partSize;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private UploadSessionStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime lastActivityAt;
+}
@@ -0,0 +1,29 @@
+package com.s3manager.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "upload_session_parts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_upload_part_number", columnNames = {"session_id", "partNumber"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSessionPart extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    private UploadSession session;
+
+    @Column(nullable = false)
+    private Integer partNumber;
+
+    @Column(nullable = false, length = 100)
+    private String eTag;
+
+    @Column(nullable = false)
+    private Long size;
+}
@@ -0,0 +1,7 @@
+package com.s3manager.domain.entity;
+
+public enum UploadSessionStatus {
+    ACTIVE,
+    COMPLETED,
+    ABORTED
+}
@@ -0,0 +1,24 @@
+package com.s3manager.domain.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Published whenever an S3 credential is created, updated or removed so that
+ * anything derived from it (clients, decrypted secrets, ...) can be dropped.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CredentialChangedEvent {
+
+    private final UUID credentialId;
+    private final ChangeType changeType;
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
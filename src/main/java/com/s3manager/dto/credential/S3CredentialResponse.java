@@ -23,5 +23,7 @@ public class S3CredentialResponse {
     private Boolean isActive;
     private LocalDateTime createdAt;
     private LocalDateTime lastValidatedAt;
+    private Boolean isHealthy;
+    private String lastValidationError;
 }
 
@@ -0,0 +1,32 @@
+package com.s3manager.dto.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobResponse {
+    private UUID id;
+    private String type;
+    private String status;
+    private String bucket;
+    private String prefix;
+    private Long processed;
+    private Long failed;
+    private String checkpoint; // startAfter for resubmitting an unfinished prefix job
+    private Boolean cancelRequested;
+    private String errorMessage;
+    private Object result; // the operation's response, once finished
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime updatedAt;
+}
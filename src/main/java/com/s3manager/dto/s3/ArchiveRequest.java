@@ -0,0 +1,59 @@
+package com.s3manager.dto.s3;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveRequest {
+
+    @NotBlank(message = "Bucket is required")
+    private String bucket;
+
+    private String prefix;
+
+    @Size(max = 10000, message = "At most 10000 keys can be archived per request")
+    private List<String> keys;
+
+    @Builder.Default
+    private ArchiveFormat format = ArchiveFormat.ZIP;
+
+    private UUID credentialId;
+
+    @AssertTrue(message = "Either a prefix or a list of keys is required")
+    private boolean isSelectionPresent() {
+        return prefix != null || (keys != null && !keys.isEmpty());
+    }
+
+    public enum ArchiveFormat {
+        ZIP("application/zip", ".zip"),
+        TAR("application/x-tar", ".tar");
+
+        private final String contentType;
+        private final String extension;
+
+        ArchiveFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+}
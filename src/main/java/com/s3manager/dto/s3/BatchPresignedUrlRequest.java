@@ -0,0 +1,30 @@
+package com.s3manager.dto.s3;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPresignedUrlRequest {
+
+    @NotBlank(message = "Bucket is required")
+    private String bucket;
+
+    @NotEmpty(message = "At least one key is required")
+    @Size(max = 1000, message = "At most 1000 keys can be signed per request")
+    private List<String> keys;
+
+    private Integer expirationSeconds;
+    private UUID credentialId;
+}
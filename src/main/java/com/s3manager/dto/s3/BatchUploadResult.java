@@ -0,0 +1,19 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchUploadResult {
+    private String key;
+    private Boolean success;
+    private String eTag;
+    private Long size;
+    private String error;
+}
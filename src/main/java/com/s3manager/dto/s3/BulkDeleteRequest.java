@@ -0,0 +1,35 @@
+package com.s3manager.dto.s3;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteRequest {
+
+    @NotBlank(message = "Bucket is required")
+    private String bucket;
+
+    private String prefix; // everything under it is deleted
+
+    @Size(max = 100000, message = "At most 100000 keys can be deleted per request")
+    private List<String> keys;
+
+    private UUID credentialId;
+
+    @AssertTrue(message = "Either a prefix or a list of keys is required")
+    private boolean isSelectionPresent() {
+        return (prefix != null && !prefix.isEmpty()) || (keys != null && !keys.isEmpty());
+    }
+}
@@ -0,0 +1,20 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResponse {
+    private String bucket;
+    private Long deleted;
+    private Long failed;
+    private List<KeyError> errors;
+}
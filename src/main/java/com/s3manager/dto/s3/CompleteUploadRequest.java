@@ -0,0 +1,38 @@
+package com.s3manager.dto.s3;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompleteUploadRequest {
+
+    @NotBlank(message = "Bucket is required")
+    private String bucket;
+
+    @NotBlank(message = "Key is required")
+    private String key;
+
+    private String uploadId; // set for multipart uploads
+
+    private List<CompletedUploadPart> parts; // null = list the parts from S3
+
+    private UUID credentialId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CompletedUploadPart {
+        private Integer partNumber;
+        private String eTag;
+    }
+}
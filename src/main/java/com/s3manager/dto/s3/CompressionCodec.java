@@ -0,0 +1,29 @@
+package com.s3manager.dto.s3;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Codecs objects can be stored with. The encoding name is the HTTP content-coding token,
+ * used both for the object's Content-Encoding and to match a client's Accept-Encoding.
+ */
+public enum CompressionCodec {
+    GZIP("gzip"),
+    ZSTD("zstd");
+
+    private final String encoding;
+
+    CompressionCodec(String encoding) {
+        this.encoding = encoding;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public static Optional<CompressionCodec> fromEncoding(String encoding) {
+        return Arrays.stream(values())
+                .filter(codec -> codec.encoding.equalsIgnoreCase(encoding))
+                .findFirst();
+    }
+}
@@ -0,0 +1,33 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpRange;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DownloadRequest {
+    private String bucket;
+    private String key;
+    private UUID credentialId;
+
+    @Builder.Default
+    private List<HttpRange> ranges = List.of();
+
+    private Boolean parallel; // null = decide by object size
+
+    // Conditional request headers, passed through to S3
+    private String ifNoneMatch;
+    private Instant ifModifiedSince;
+
+    private String acceptEncoding; // compressed objects are sent encoded if accepted
+}
@@ -0,0 +1,15 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeyError {
+    private String key;
+    private String code;
+    private String message;
+}
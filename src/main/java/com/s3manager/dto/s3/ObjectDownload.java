@@ -0,0 +1,51 @@
+package com.s3manager.dto.s3;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An opened object download. The content is written to the caller's stream on demand,
+ * so the object is never held in memory as a whole. Must be closed once the body has
+ * been written (or if it never will be) to release the underlying connection.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class ObjectDownload implements Closeable {
+    private final String bucket;
+    private final String key;
+    private final Long contentLength;
+    private final String contentType;
+    private final String contentEncoding; // set when the stored, compressed bytes are sent as is
+    private final String eTag;
+    private final Instant lastModified;
+    private final String contentRange; // set for single-range partial responses
+    private final boolean partial;
+    private final BodyWriter body;
+    private final Closeable resource;
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public void writeTo(OutputStream out) throws IOException {
+        body.writeTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Closed by the response body and again once the request completes
+        if (resource != null && closed.compareAndSet(false, true)) {
+            resource.close();
+        }
+    }
+
+    @FunctionalInterface
+    public interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
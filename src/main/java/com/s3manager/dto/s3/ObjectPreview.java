@@ -0,0 +1,18 @@
+package com.s3manager.dto.s3;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * A rendered preview (thumbnail) of an object, small enough to be held in memory.
+ */
+@Getter
+@Builder
+public class ObjectPreview {
+    private final byte[] content;
+    private final String contentType;
+    private final String eTag;
+    private final Instant lastModified;
+}
@@ -0,0 +1,7 @@
+package com.s3manager.dto.s3;
+
+public enum PrefixOperation {
+    COPY,
+    MOVE,
+    RENAME // a move that stays within the bucket
+}
@@ -0,0 +1,33 @@
+package com.s3manager.dto.s3;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrefixTransferRequest {
+
+    @NotBlank(message = "Source bucket is required")
+    private String sourceBucket;
+
+    @NotBlank(message = "Source prefix is required")
+    private String sourcePrefix;
+
+    private String destinationBucket; // defaults to the source bucket
+
+    @NotNull(message = "Destination prefix is required")
+    private String destinationPrefix; // empty for the bucket root
+
+    private String startAfter; // checkpoint of an earlier run that did not complete
+
+    private UUID credentialId;
+}
@@ -0,0 +1,26 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrefixTransferResponse {
+    private String sourceBucket;
+    private String sourcePrefix;
+    private String destinationBucket;
+    private String destinationPrefix;
+    private Long copied;
+    private Long deleted;
+    private Long failed;
+    private List<KeyError> errors;
+    private Boolean completed;
+    private String checkpoint; // pass back as startAfter to resume
+}
@@ -0,0 +1,40 @@
+package com.s3manager.dto.s3;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedMultipartRequest {
+
+    @NotBlank(message = "Bucket is required")
+    private String bucket;
+
+    @NotBlank(message = "Key is required")
+    private String key;
+
+    private String contentType;
+
+    @NotNull(message = "Total size is required")
+    @Positive(message = "Total size must be positive")
+    private Long totalSize;
+
+    private Long partSize; // null = app.s3.chunk-size, raised to stay within 10000 parts
+
+    @Min(value = 1, message = "Expiration must be at least 1 second")
+    @Max(value = 604800, message = "Expiration must be at most 604800 seconds (7 days)")
+    private Integer expirationSeconds;
+    private UUID credentialId;
+}
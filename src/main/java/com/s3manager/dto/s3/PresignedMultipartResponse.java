@@ -0,0 +1,24 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedMultipartResponse {
+    private String bucket;
+    private String key;
+    private String uploadId;
+    private Long partSize;
+    private Integer partCount;
+    private List<PresignedPartUrl> parts; // the first parts; more via /multipart/parts
+    private Instant expiresAt;
+}
@@ -0,0 +1,40 @@
+package com.s3manager.dto.s3;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedPartsRequest {
+
+    @NotBlank(message = "Bucket is required")
+    private String bucket;
+
+    @NotBlank(message = "Key is required")
+    private String key;
+
+    @NotBlank(message = "Upload id is required")
+    private String uploadId;
+
+    @NotEmpty(message = "At least one part number is required")
+    @Size(max = 1000, message = "At most 1000 parts can be signed per request")
+    private List<Integer> partNumbers;
+
+    @Min(value = 1, message = "Expiration must be at least 1 second")
+    @Max(value = 604800, message = "Expiration must be at most 604800 seconds (7 days)")
+    private Integer expirationSeconds;
+    private UUID credentialId;
+}
@@ -0,0 +1,22 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedPostResponse {
+    private String url;
+    private Map<String, String> fields; // form fields to send before the file field
+    private Instant expiresAt;
+    private String key;
+    private String bucket;
+}
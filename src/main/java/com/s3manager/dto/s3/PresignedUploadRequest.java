@@ -0,0 +1,37 @@
+package com.s3manager.dto.s3;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadRequest {
+
+    @NotBlank(message = "Bucket is required")
+    private String bucket;
+
+    @NotBlank(message = "Key is required")
+    private String key;
+
+    private String contentType;
+
+    // Exact size for a presigned PUT, upper bound for a POST policy
+    @Positive(message = "Content length must be positive")
+    private Long contentLength;
+
+    @Min(value = 1, message = "Expiration must be at least 1 second")
+    @Max(value = 604800, message = "Expiration must be at most 604800 seconds (7 days)")
+    private Integer expirationSeconds;
+    private UUID credentialId;
+}
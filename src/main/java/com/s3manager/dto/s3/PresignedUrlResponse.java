@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 
 @Data
@@ -17,4 +19,6 @@ public class PresignedUrlResponse {
     private Instant expiresAt;
     private String key;
     private String bucket;
+    private String method; // set for upload URLs
+    private Map<String, List<String>> headers; // headers the client must send as signed
 }
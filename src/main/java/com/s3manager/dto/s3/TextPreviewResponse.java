@@ -0,0 +1,24 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TextPreviewResponse {
+    private String key;
+    private String bucket;
+    private String mode; // head | tail
+    private List<String> lines;
+    private String charset;
+    private Long objectSize;
+    private Long bytesRead;
+    private Boolean truncated; // more content exists beyond the returned lines
+}
@@ -0,0 +1,24 @@
+package com.s3manager.dto.s3;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadOptions {
+    private String compression; // gzip | zstd | none, null = configured default
+
+    // MD5 of the content as hex or base64, verified while the upload streams
+    private String contentMd5;
+
+    // CRC32C of the content as base64, only used to match an existing object
+    private String checksumCrc32c;
+
+    // Skip the upload if the existing object already has this content
+    private boolean skipIfUnchanged;
+}
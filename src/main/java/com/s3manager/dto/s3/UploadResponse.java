@@ -16,5 +16,9 @@ public class UploadResponse {
     private String eTag;
     private String versionId;
     private Long size;
+    private String compression; // codec the object is stored with, if any
+    private Long storedSize; // bytes stored in S3, set when compressed
+    private String contentMd5;
+    private boolean skipped; // the object already had this content
 }
 
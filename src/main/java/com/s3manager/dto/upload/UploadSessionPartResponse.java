@@ -0,0 +1,17 @@
+package com.s3manager.dto.upload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionPartResponse {
+    private Integer partNumber;
+    private String eTag;
+    private Long size;
+}
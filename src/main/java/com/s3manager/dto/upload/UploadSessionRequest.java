@@ -0,0 +1,34 @@
+package com.s3manager.dto.upload;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionRequest {
+
+    @NotBlank(message = "Bucket is required")
+    private String bucket;
+
+    @NotBlank(message = "Key is required")
+    private String key;
+
+    private String contentType;
+
+    @Positive(message = "Total size must be positive")
+    private Long totalSize;
+
+    @Positive(message = "Part size must be positive")
+    private Long partSize; // defaults to app.s3.chunk-size
+
+    private UUID credentialId;
+}
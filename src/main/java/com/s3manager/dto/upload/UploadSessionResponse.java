@@ -0,0 +1,30 @@
+package com.s3manager.dto.upload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private UUID id;
+    private String bucket;
+    private String key;
+    private String contentType;
+    private Long totalSize;
+    private Long partSize;
+    private Integer partCount; // null if the total size is unknown
+    private String status;
+    private List<UploadSessionPartResponse> parts;
+    private Long bytesReceived;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastActivityAt;
+}
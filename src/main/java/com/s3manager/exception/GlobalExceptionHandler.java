@@ -2,6 +2,8 @@ package com.s3manager.exception;
 
 import com.s3manager.dto.common.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -14,11 +16,15 @@ import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
 
+    @Value("${app.s3.download.retry-after:5}") // seconds
+    private long retryAfterSeconds;
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<ApiResponse<?>> handleBadRequest(BadRequestException ex) {
         log.error("Bad request: {}", ex.getMessage());
@@ -33,6 +39,13 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage()));
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<?>> handleTooManyRequests(TooManyRequestsException ex) {
+        log.error("Too many requests: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<ApiResponse<?>> handleUnauthorized(UnauthorizedException ex) {
         log.error("Unauthorized: {}", ex.getMessage());
@@ -61,6 +74,40 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage()));
     }
 
+    @ExceptionHandler(RangeNotSatisfiableException.class)
+    public ResponseEntity<ApiResponse<?>> handleRangeNotSatisfiable(RangeNotSatisfiableException ex) {
+        log.error("Range not satisfiable: {}", ex.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        if (ex.getObjectSize() != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes */" + ex.getObjectSize());
+        }
+        return response.body(ApiResponse.error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(NotModifiedException.class)
+    public ResponseEntity<Void> handleNotModified(NotModifiedException ex) {
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+        if (ex.getETag() != null) {
+            response.eTag(ex.getETag());
+        }
+        if (ex.getLastModified() != null) {
+            response.lastModified(ex.getLastModified());
+        }
+        return response.build();
+    }
+
+    /**
+     * A full executor, most often every streaming download slot being taken
+     * ({@code TaskRejectedException} is a subclass), is a temporary overload.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ApiResponse<?>> handleRejectedExecution(RejectedExecutionException ex) {
+        log.warn("Rejected for lack of capacity: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(ApiResponse.error("Server is busy, try again later"));
+    }
+
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<ApiResponse<?>> handleMaxUploadSize(MaxUploadSizeExceededException ex) {
         log.error("File size exceeds maximum: {}", ex.getMessage());
@@ -0,0 +1,27 @@
+package com.s3manager.exception;
+
+import java.time.Instant;
+
+/**
+ * Signals that a conditional request matched the current object, so the client's
+ * cached copy is still valid and a {@code 304 Not Modified} should be returned.
+ */
+public class NotModifiedException extends RuntimeException {
+
+    private final String eTag;
+    private final Instant lastModified;
+
+    public NotModifiedException(String eTag, Instant lastModified) {
+        super("Object not modified");
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,15 @@
+package com.s3manager.exception;
+
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    private final Long objectSize;
+
+    public RangeNotSatisfiableException(String message, Long objectSize) {
+        super(message);
+        this.objectSize = objectSize;
+    }
+
+    public Long getObjectSize() {
+        return objectSize;
+    }
+}
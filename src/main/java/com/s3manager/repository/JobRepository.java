@@ -0,0 +1,86 @@
+package com.s3manager.repository;
+
+import com.s3manager.domain.entity.Job;
+import com.s3manager.domain.entity.JobStatus;
+import com.s3manager.domain.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, UUID> {
+
+    Optional<Job> findByIdAndUser(UUID id, User user);
+
+    Page<Job> findByUser(User user, Pageable pageable);
+
+    Page<Job> findByUserAndStatus(User user, JobStatus status, Pageable pageable);
+
+    // The updates below are bulk updates on purpose: they change one state at a time and
+    // must not race the runner's progress writes on the entity version
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.status = ?3, j.finishedAt = ?4, j.updatedAt = ?4 WHERE j.id = ?1 AND j.status = ?2")
+    int finish(UUID id, JobStatus from, JobStatus to, LocalDateTime finishedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.status = ?3, j.startedAt = ?4, j.updatedAt = ?4 WHERE j.id = ?1 AND j.status = ?2")
+    int start(UUID id, JobStatus from, JobStatus to, LocalDateTime startedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.processed = ?2, j.failed = ?3, j.checkpoint = ?4, j.heartbeatAt = ?5, j.updatedAt = ?5 "
+            + "WHERE j.id = ?1")
+    void updateProgress(UUID id, long processed, long failed, String checkpoint, LocalDateTime at);
+
+    // Only a job that is still running gets its outcome, never one abandoned or purged meanwhile
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.status = ?3, j.processed = ?4, j.failed = ?5, j.checkpoint = ?6, j.result = ?7, "
+            + "j.errorMessage = ?8, j.finishedAt = ?9, j.updatedAt = ?9 WHERE j.id = ?1 AND j.status = ?2")
+    int finishRun(UUID id, JobStatus from, JobStatus to, long processed, long failed, String checkpoint,
+                  String result, String errorMessage, LocalDateTime finishedAt);
+
+    @Query("SELECT j.cancelRequested FROM Job j WHERE j.id = ?1 AND j.status = ?2")
+    Optional<Boolean> findCancelRequested(UUID id, JobStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.cancelRequested = true, j.updatedAt = ?2 WHERE j.id = ?1")
+    void requestCancel(UUID id, LocalDateTime at);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.heartbeatAt = ?3 WHERE j.owner = ?1 AND j.status IN ?2")
+    int heartbeat(String owner, Collection<JobStatus> unfinished, LocalDateTime at);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.status = ?3, j.errorMessage = ?4, j.finishedAt = ?5, j.updatedAt = ?5 "
+            + "WHERE j.owner = ?1 AND j.status IN ?2")
+    int abandonOwnedBy(String owner, Collection<JobStatus> unfinished, JobStatus failed,
+                       String errorMessage, LocalDateTime at);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.status = ?3, j.errorMessage = ?4, j.finishedAt = ?5, j.updatedAt = ?5 "
+            + "WHERE (j.heartbeatAt IS NULL OR j.heartbeatAt < ?1) AND j.status IN ?2")
+    int abandonStale(LocalDateTime staleBefore, Collection<JobStatus> unfinished, JobStatus failed,
+                     String errorMessage, LocalDateTime at);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Job j WHERE j.status IN ?1 AND j.finishedAt < ?2")
+    int deleteFinishedBefore(Collection<JobStatus> finished, LocalDateTime threshold);
+}
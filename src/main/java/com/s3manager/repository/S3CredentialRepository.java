@@ -2,11 +2,15 @@ package com.s3manager.repository;
 
 import com.s3manager.domain.entity.S3Credential;
 import com.s3manager.domain.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,6 +22,8 @@ public interface S3CredentialRepository extends JpaRepository<S3Credential, UUID
 
     List<S3Credential> findByUser(User user);
 
+    Slice<S3Credential> findByIsActiveTrue(Pageable pageable);
+
     Optional<S3Credential> findByIdAndUser(UUID id, User user);
 
     Optional<S3Credential> findByUserAndIsDefaultTrue(User user);
@@ -32,5 +38,12 @@ public interface S3CredentialRepository extends JpaRepository<S3Credential, UUID
     @Query("UPDATE S3Credential c SET c.isActive = false WHERE c.id = ?1")
     void softDelete(UUID credentialId);
 
+    // Bulk update on purpose: health bookkeeping must not bump the entity version
+    @Transactional
+    @Modifying
+    @Query("UPDATE S3Credential c SET c.isHealthy = ?2, c.lastValidatedAt = ?3, " +
+            "c.lastValidationError = ?4 WHERE c.id = ?1")
+    void updateHealth(UUID credentialId, Boolean healthy, LocalDateTime validatedAt, String error);
+
     long countByUser(User user);
 }
\ No newline at end of file
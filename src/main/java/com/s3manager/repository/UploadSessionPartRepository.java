@@ -0,0 +1,35 @@
+package com.s3manager.repository;
+
+import com.s3manager.domain.entity.UploadSession;
+import com.s3manager.domain.entity.UploadSessionPart;
+import com.s3manager.domain.entity.UploadSessionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionPartRepository extends JpaRepository<UploadSessionPart, UUID> {
+
+    List<UploadSessionPart> findBySessionOrderByPartNumberAsc(UploadSession session);
+
+    Optional<UploadSessionPart> findBySessionAndPartNumber(UploadSession session, Integer partNumber);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadSessionPart p WHERE p.session = ?1")
+    void deleteBySession(UploadSession session);
+
+    // A part upload that finishes after its session was completed or aborted stores its row late
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadSessionPart p WHERE p.session IN "
+            + "(SELECT s FROM UploadSession s WHERE s.status <> ?1 AND s.lastActivityAt < ?2)")
+    int deleteOfSessionsFinishedBefore(UploadSessionStatus activeStatus, LocalDateTime threshold);
+}
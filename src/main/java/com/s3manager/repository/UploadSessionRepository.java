@@ -0,0 +1,34 @@
+package com.s3manager.repository;
+
+import com.s3manager.domain.entity.UploadSession;
+import com.s3manager.domain.entity.UploadSessionStatus;
+import com.s3manager.domain.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    Optional<UploadSession> findByIdAndUser(UUID id, User user);
+
+    List<UploadSession> findByStatusAndLastActivityAtBefore(UploadSessionStatus status, LocalDateTime threshold);
+
+    // Bulk update on purpose: parallel part uploads would otherwise collide on the entity version
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.lastActivityAt = ?2 WHERE s.id = ?1")
+    void touch(UUID sessionId, LocalDateTime lastActivityAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.status <> ?1 AND s.lastActivityAt < ?2")
+    int deleteFinishedBefore(UploadSessionStatus activeStatus, LocalDateTime threshold);
+}
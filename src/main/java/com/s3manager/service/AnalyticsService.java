@@ -22,6 +22,7 @@ import java.util.stream.Collectors;
 public class AnalyticsService {
 
     private final S3CredentialService credentialService;
+    private final S3ClientRegistry clientRegistry;
     private final S3Service s3Service;
     private final AuditService auditService;
 
@@ -30,9 +31,8 @@ public class AnalyticsService {
         log.info("Generating storage analytics for user: {}", username);
 
         S3Credential credential = getCredential(username, credentialId);
-        S3Client s3Client = credentialService.createS3Client(credential);
-
-        try {
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
             // Get all buckets
             List<BucketDTO> buckets = s3Service.listBuckets(username, credentialId);
 
@@ -90,8 +90,6 @@ public class AnalyticsService {
         } catch (Exception e) {
             log.error("Failed to generate storage analytics: {}", e.getMessage());
             throw new RuntimeException("Failed to generate storage analytics: " + e.getMessage());
-        } finally {
-            s3Client.close();
         }
     }
 
@@ -87,12 +87,42 @@ public class AuditService {
         createAuditLog(user, AuditAction.DOWNLOAD_OBJECT, bucketName, objectKey, AuditStatus.SUCCESS, null);
     }
 
+    /**
+     * Records one upload per key, written as a single JDBC batch.
+     */
+    @Async
+    @Transactional
+    public void logUploadObjects(User user, String bucketName, List<String> objectKeys) {
+        List<AuditLog> auditLogs = objectKeys.stream()
+                .map(key -> buildAuditLog(user, AuditAction.UPLOAD_OBJECT, bucketName, key, AuditStatus.SUCCESS, null))
+                .collect(Collectors.toList());
+        auditLogRepository.saveAll(auditLogs);
+    }
+
+    @Async
+    @Transactional
+    public void logDownloadArchive(User user, String bucketName, String prefix, int count) {
+        createAuditLog(user, AuditAction.DOWNLOAD_OBJECT, bucketName, prefix, AuditStatus.SUCCESS,
+                String.format("Downloaded %d objects as an archive", count));
+    }
+
     @Async
     @Transactional
     public void logDeleteObject(User user, String bucketName, String objectKey) {
         createAuditLog(user, AuditAction.DELETE_OBJECT, bucketName, objectKey, AuditStatus.SUCCESS, null);
     }
 
+    /**
+     * Records a bulk delete as one entry rather than one per key.
+     */
+    @Async
+    @Transactional
+    public void logDeleteObjects(User user, String bucketName, String prefix, long deleted, long failed) {
+        createAuditLog(user, AuditAction.DELETE_OBJECT, bucketName, prefix,
+                failed == 0 ? AuditStatus.SUCCESS : AuditStatus.FAILURE,
+                String.format("Deleted %d objects, %d failed", deleted, failed));
+    }
+
     @Async
     @Transactional
     public void logCopyObject(User user, String bucketName, String objectKey) {
@@ -111,6 +141,33 @@ public class AuditService {
         createAuditLog(user, AuditAction.RENAME_OBJECT, bucketName, objectKey, AuditStatus.SUCCESS, null);
     }
 
+    @Async
+    @Transactional
+    public void logCopyPrefix(User user, String bucketName, String prefix,
+                              String destination, long copied, long failed) {
+        createAuditLog(user, AuditAction.COPY_OBJECT, bucketName, prefix,
+                failed == 0 ? AuditStatus.SUCCESS : AuditStatus.FAILURE,
+                String.format("Copied %d objects to %s, %d failed", copied, destination, failed));
+    }
+
+    @Async
+    @Transactional
+    public void logMovePrefix(User user, String bucketName, String prefix,
+                              String destination, long moved, long failed) {
+        createAuditLog(user, AuditAction.MOVE_OBJECT, bucketName, prefix,
+                failed == 0 ? AuditStatus.SUCCESS : AuditStatus.FAILURE,
+                String.format("Moved %d objects to %s, %d failed", moved, destination, failed));
+    }
+
+    @Async
+    @Transactional
+    public void logRenamePrefix(User user, String bucketName, String prefix,
+                                String destination, long renamed, long failed) {
+        createAuditLog(user, AuditAction.RENAME_OBJECT, bucketName, prefix,
+                failed == 0 ? AuditStatus.SUCCESS : AuditStatus.FAILURE,
+                String.format("Renamed %d objects to %s, %d failed", renamed, destination, failed));
+    }
+
     @Async
     @Transactional
     public void logListObjects(User user, String bucketName) {
@@ -153,6 +210,13 @@ public class AuditService {
                 AuditStatus.SUCCESS, null);
     }
 
+    @Async
+    @Transactional
+    public void logGeneratePresignedUrls(User user, String bucketName, int count) {
+        createAuditLog(user, AuditAction.GENERATE_PRESIGNED_URL, bucketName, null, AuditStatus.SUCCESS,
+                String.format("Generated %d presigned URLs", count));
+    }
+
     @Async
     @Transactional
     public void logPreviewObject(User user, String bucketName, String objectKey) {
@@ -235,9 +299,20 @@ public class AuditService {
             AuditStatus status,
             String errorMessage) {
 
+        auditLogRepository.save(buildAuditLog(user, action, bucketName, objectKey, status, errorMessage));
+    }
+
+    private AuditLog buildAuditLog(
+            User user,
+            AuditAction action,
+            String bucketName,
+            String objectKey,
+            AuditStatus status,
+            String errorMessage) {
+
         HttpServletRequest request = getCurrentRequest();
 
-        AuditLog auditLog = AuditLog.builder()
+        return AuditLog.builder()
                 .user(user)
                 .action(action)
                 .bucketName(bucketName)
@@ -248,8 +323,6 @@ public class AuditService {
                 .ipAddress(request != null ? getClientIpAddress(request) : null)
                 .userAgent(request != null ? request.getHeader("User-Agent") : null)
                 .build();
-
-        auditLogRepository.save(auditLog);
     }
 
     private HttpServletRequest getCurrentRequest() {
@@ -0,0 +1,237 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.BatchUploadResult;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Uploads many objects from one request with a single client.
+ * <p>
+ * Puts fan out over the shared transfer executor with at most {@code concurrency} in
+ * flight per batch. A failure only affects its own file. For TAR streams, entries up to
+ * {@code max-buffered-entry-size} are read into memory so the stream can move on while
+ * they upload. Larger entries are streamed through {@link MultipartUploader} in place.
+ * A TAR stream that fails part way still reports the entries uploaded before the failure.
+ */
+@Component
+@Slf4j
+public class BatchUploader {
+
+    private final Executor transferExecutor;
+    private final MultipartUploader multipartUploader;
+
+    @Value("${app.s3.upload.batch.concurrency:16}")
+    private int concurrency;
+
+    @Value("${app.s3.upload.batch.max-buffered-entry-size:4194304}")
+    private long maxBufferedEntrySize;
+
+    @Value("${app.s3.download.buffer-size:65536}")
+    private int bufferSize;
+
+    public BatchUploader(
+            @Qualifier("s3TransferExecutor") Executor transferExecutor,
+            MultipartUploader multipartUploader) {
+        this.transferExecutor = transferExecutor;
+        this.multipartUploader = multipartUploader;
+    }
+
+    public List<BatchUploadResult> uploadFiles(
+            S3Client s3Client, String bucket, String prefix, List<MultipartFile> files, long maxObjectSize)
+            throws IOException {
+
+        Batch batch = new Batch();
+        for (MultipartFile file : files) {
+            // Folder uploads from browsers carry the relative path as the file name
+            String key = prefix + StringUtils.defaultIfBlank(file.getOriginalFilename(), file.getName());
+            if (file.getSize() > maxObjectSize) {
+                batch.add(failed(key, "File size exceeds maximum allowed size"));
+                continue;
+            }
+            batch.submit(key, () -> put(s3Client, bucket, key, file.getContentType(),
+                    file.getInputStream(), file.getSize()));
+        }
+        return batch.await();
+    }
+
+    /**
+     * If the stream breaks off or turns out not to be a valid TAR, the entries read so far
+     * are still uploaded and returned, followed by a failed result describing the error.
+     */
+    public List<BatchUploadResult> uploadTar(
+            S3Client s3Client, String bucket, String prefix, InputStream body, long maxObjectSize) {
+
+        Batch batch = new Batch();
+        TarArchiveInputStream tar = new TarArchiveInputStream(body);
+        String current = null;
+
+        try {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextEntry()) != null) {
+                current = null;
+                if (!entry.isFile()) {
+                    continue;
+                }
+
+                String key = prefix + StringUtils.removeStart(entry.getName(), "./");
+                long size = entry.getSize();
+                current = key;
+
+                if (size > maxObjectSize) {
+                    // The rest of the entry is skipped by the next getNextEntry()
+                    batch.add(failed(key, "File size exceeds maximum allowed size"));
+                } else if (size <= maxBufferedEntrySize) {
+                    byte[] content = IOUtils.toByteArray(tar, size);
+                    batch.submit(key, () -> put(s3Client, bucket, key, null, content));
+                } else {
+                    batch.add(streamLarge(s3Client, bucket, key, tar, size));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("TAR stream to {} failed after {} entries: {}", bucket, batch.size(), e.getMessage());
+            // Entries already submitted finish uploading and are reported with the failure
+            batch.add(failed(current, "Failed to read TAR stream: " + e.getMessage()));
+        }
+        return batch.await();
+    }
+
+    private BatchUploadResult put(
+            S3Client s3Client, String bucket, String key, String contentType, InputStream in, long size)
+            throws IOException {
+
+        try (in) {
+            PutObjectResponse response = s3Client.putObject(putRequest(bucket, key, contentType),
+                    RequestBody.fromInputStream(in, size));
+            return succeeded(key, response.eTag(), size);
+        }
+    }
+
+    private BatchUploadResult put(S3Client s3Client, String bucket, String key, String contentType, byte[] content) {
+        PutObjectResponse response = s3Client.putObject(putRequest(bucket, key, contentType),
+                RequestBody.fromBytes(content));
+        return succeeded(key, response.eTag(), content.length);
+    }
+
+    private BatchUploadResult streamLarge(S3Client s3Client, String bucket, String key, InputStream in, long size) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        try (MultipartUploader.MultipartUploadStream upload = multipartUploader.open(s3Client, request, size)) {
+            byte[] buffer = new byte[bufferSize];
+            long remaining = size;
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                upload.write(buffer, 0, read);
+                remaining -= read;
+            }
+            MultipartUploader.Result result = upload.complete();
+            return succeeded(key, result.getETag(), result.getSize());
+        } catch (Exception e) {
+            log.warn("Failed to upload {} from archive: {}", key, e.getMessage());
+            return failed(key, e.getMessage());
+        }
+    }
+
+    private static PutObjectRequest putRequest(String bucket, String key, String contentType) {
+        return PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build();
+    }
+
+    private static BatchUploadResult succeeded(String key, String eTag, long size) {
+        return BatchUploadResult.builder()
+                .key(key)
+                .success(true)
+                .eTag(eTag)
+                .size(size)
+                .build();
+    }
+
+    private static BatchUploadResult failed(String key, String error) {
+        return BatchUploadResult.builder()
+                .key(key)
+                .success(false)
+                .error(error)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface UploadTask {
+        BatchUploadResult run() throws Exception;
+    }
+
+    /**
+     * Results of one batch, kept in submission order.
+     */
+    private class Batch {
+
+        private final Semaphore permits = new Semaphore(concurrency);
+        private final List<CompletableFuture<BatchUploadResult>> results = new ArrayList<>();
+
+        void add(BatchUploadResult result) {
+            results.add(CompletableFuture.completedFuture(result));
+        }
+
+        int size() {
+            return results.size();
+        }
+
+        void submit(String key, UploadTask task) throws IOException {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Batch upload interrupted");
+            }
+
+            try {
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return task.run();
+                    } catch (Exception e) {
+                        log.warn("Failed to upload {}: {}", key, e.getMessage());
+                        return failed(key, e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                }, transferExecutor));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                add(failed(key, "Upload rejected, transfer pool is saturated"));
+            }
+        }
+
+        List<BatchUploadResult> await() {
+            return results.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.KeyError;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes any number of keys with {@code DeleteObjects}, 1000 keys per request.
+ * <p>
+ * Keys are pulled from the iterator as batches fill up, so a lazy listing overlaps with
+ * the deletes instead of being collected first. Up to {@code concurrency} batches are in
+ * flight on the shared transfer executor. Errors are reported per key; a batch that fails
+ * as a whole counts every one of its keys as failed. Once the listener reports a
+ * cancellation no further batches are started.
+ */
+@Component
+@Slf4j
+public class BulkDeleter {
+
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    private final Executor transferExecutor;
+
+    @Value("${app.s3.delete.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.s3.delete.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public BulkDeleter(@Qualifier("s3TransferExecutor") Executor transferExecutor) {
+        this.transferExecutor = transferExecutor;
+    }
+
+    /**
+     * @param listener told about every finished batch, possibly from several threads at once
+     */
+    public Result delete(S3Client s3Client, String bucket, Iterator<String> keys, Listener listener)
+            throws InterruptedIOException {
+
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<KeyError> errors = Collections.synchronizedList(new ArrayList<>());
+
+        Listener counting = (deletedKeys, batchErrors) -> {
+            deleted.addAndGet(deletedKeys.size());
+            failed.addAndGet(batchErrors.size());
+            synchronized (errors) {
+                batchErrors.stream()
+                        .limit(Math.max(0, maxReportedErrors - errors.size()))
+                        .forEach(errors::add);
+            }
+            listener.onBatch(deletedKeys, batchErrors);
+        };
+
+        List<String> batch = new ArrayList<>(MAX_KEYS_PER_REQUEST);
+        while (keys.hasNext() && !listener.isCancelled()) {
+            batch.add(keys.next());
+            if (batch.size() < MAX_KEYS_PER_REQUEST && keys.hasNext()) {
+                continue;
+            }
+
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Bulk delete interrupted");
+            }
+
+            List<String> submitted = batch;
+            batch = new ArrayList<>(MAX_KEYS_PER_REQUEST);
+            Runnable task = () -> {
+                try {
+                    deleteBatch(s3Client, bucket, submitted, counting);
+                } finally {
+                    permits.release();
+                }
+            };
+
+            try {
+                batches.add(CompletableFuture.runAsync(task, transferExecutor));
+            } catch (RejectedExecutionException e) {
+                // The pool is saturated, so do this batch on the calling thread
+                task.run();
+            }
+        }
+
+        batches.forEach(CompletableFuture::join);
+        return new Result(deleted.get(), failed.get(), new ArrayList<>(errors));
+    }
+
+    /**
+     * Deletes up to 1000 keys with one {@code DeleteObjects} call on the calling thread.
+     */
+    public void deleteBatch(S3Client s3Client, String bucket, List<String> keys, Listener listener) {
+        try {
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucket)
+                    .delete(Delete.builder()
+                            .objects(keys.stream()
+                                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                                    .collect(Collectors.toList()))
+                            .quiet(true)
+                            .build())
+                    .build());
+
+            List<KeyError> errors = response.errors().stream()
+                    .map(error -> new KeyError(error.key(), error.code(), error.message()))
+                    .collect(Collectors.toList());
+            Set<String> failedKeys = errors.stream().map(KeyError::getKey).collect(Collectors.toSet());
+            List<String> deletedKeys = failedKeys.isEmpty() ? keys : keys.stream()
+                    .filter(key -> !failedKeys.contains(key))
+                    .collect(Collectors.toList());
+
+            listener.onBatch(deletedKeys, errors);
+
+        } catch (SdkException e) {
+            log.warn("Failed to delete a batch of {} keys from {}: {}", keys.size(), bucket, e.getMessage());
+            String code = errorCode(e);
+            listener.onBatch(List.of(), keys.stream()
+                    .map(key -> new KeyError(key, code, e.getMessage()))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    static String errorCode(SdkException e) {
+        return e instanceof AwsServiceException serviceException
+                && serviceException.awsErrorDetails() != null
+                ? serviceException.awsErrorDetails().errorCode()
+                : "RequestFailed";
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onBatch(List<String> deletedKeys, List<KeyError> errors);
+
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final long deleted;
+        private final long failed;
+        private final List<KeyError> errors; // at most max-reported-errors of them
+    }
+}
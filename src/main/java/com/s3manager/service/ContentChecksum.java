@@ -0,0 +1,137 @@
+package com.s3manager.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * MD5 and CRC32C of a byte stream, updated as the bytes go by. The MD5 is what S3 reports
+ * as the ETag of a single-part upload; CRC32C is what we send as the S3 checksum.
+ */
+public class ContentChecksum {
+
+    private final MessageDigest md5;
+    private final CRC32C crc32c = new CRC32C();
+    private byte[] md5Digest;
+
+    public ContentChecksum() {
+        try {
+            this.md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    /**
+     * Checksums everything left in {@code in}, without closing it.
+     */
+    public static ContentChecksum of(InputStream in, int bufferSize) throws IOException {
+        ContentChecksum checksum = new ContentChecksum();
+        byte[] buffer = new byte[bufferSize];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            checksum.update(buffer, 0, read);
+        }
+        return checksum;
+    }
+
+    public static String crc32cBase64(byte[] data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, offset, length);
+        return toBase64(crc.getValue());
+    }
+
+    /**
+     * Converts an MD5 given as hex or base64 to lowercase hex, or returns {@code null} if
+     * it is neither.
+     */
+    public static String normalizeMd5(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        String trimmed = hash.trim();
+        if (trimmed.matches("[0-9a-fA-F]{32}")) {
+            return trimmed.toLowerCase();
+        }
+        try {
+            byte[] digest = Base64.getDecoder().decode(trimmed);
+            return digest.length == 16 ? HexFormat.of().formatHex(digest) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Wraps {@code in} so that every byte read through it is checksummed.
+     */
+    public InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    update(new byte[]{(byte) b}, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    update(b, off, read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                // Skipped bytes would be missing from the checksum
+                return 0;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    public void update(byte[] data, int offset, int length) {
+        if (md5Digest != null) {
+            throw new IllegalStateException("Checksum already finished");
+        }
+        md5.update(data, offset, length);
+        crc32c.update(data, offset, length);
+    }
+
+    public String md5Hex() {
+        return HexFormat.of().formatHex(md5());
+    }
+
+    public String md5Base64() {
+        return Base64.getEncoder().encodeToString(md5());
+    }
+
+    public String crc32cBase64() {
+        return toBase64(crc32c.getValue());
+    }
+
+    private byte[] md5() {
+        if (md5Digest == null) {
+            md5Digest = md5.digest();
+        }
+        return md5Digest;
+    }
+
+    private static String toBase64(long crc) {
+        // S3 expects the big-endian bytes of the 32-bit value
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) crc).array());
+    }
+}
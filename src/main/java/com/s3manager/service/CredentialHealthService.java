@@ -0,0 +1,189 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.User;
+import com.s3manager.domain.event.CredentialChangedEvent;
+import com.s3manager.dto.credential.CredentialValidationResponse;
+import com.s3manager.exception.NotFoundException;
+import com.s3manager.repository.S3CredentialRepository;
+import com.s3manager.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import software.amazon.awssdk.services.s3.model.ListBucketsRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Validates S3 credentials outside of any database transaction.
+ * <p>
+ * New and updated credentials are probed in the background once their transaction
+ * has committed, and a scheduled sweep re-validates every active credential with
+ * bounded concurrency. Results are stored on the credential ({@code isHealthy},
+ * {@code lastValidatedAt}) so the UI can read health without calling S3.
+ */
+@Service
+@Slf4j
+public class CredentialHealthService {
+
+    private final S3CredentialRepository credentialRepository;
+    private final UserRepository userRepository;
+    private final S3ClientRegistry clientRegistry;
+    private final AuditService auditService;
+    private final Executor validationExecutor;
+
+    @Value("${app.s3.validation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.s3.validation.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.s3.validation.timeout:10000}")
+    private long timeoutMillis;
+
+    public CredentialHealthService(
+            S3CredentialRepository credentialRepository,
+            UserRepository userRepository,
+            S3ClientRegistry clientRegistry,
+            AuditService auditService,
+            @Qualifier("credentialValidationExecutor") Executor validationExecutor) {
+        this.credentialRepository = credentialRepository;
+        this.userRepository = userRepository;
+        this.clientRegistry = clientRegistry;
+        this.auditService = auditService;
+        this.validationExecutor = validationExecutor;
+    }
+
+    public CredentialValidationResponse validateCredential(String username, UUID credentialId) {
+        log.info("Validating S3 credential: {} for user: {}", credentialId, username);
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        S3Credential credential = credentialRepository.findByIdAndUser(credentialId, user)
+                .orElseThrow(() -> new NotFoundException("Credential not found"));
+
+        Optional<String> failure = probe(credential);
+        auditService.logValidateCredential(user, credential.getAlias(), failure.isEmpty());
+
+        return CredentialValidationResponse.builder()
+                .valid(failure.isEmpty())
+                .message(failure.map(error -> "Validation failed: " + error)
+                        .orElse("Credentials are valid"))
+                .validatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialChanged(CredentialChangedEvent event) {
+        if (!enabled || event.getChangeType() == CredentialChangedEvent.ChangeType.DELETED) {
+            return;
+        }
+
+        try {
+            validationExecutor.execute(() -> validateById(event.getCredentialId()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Validation queue full, credential {} will be checked by the next sweep",
+                    event.getCredentialId());
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${app.s3.validation.sweep-interval:900000}",
+            initialDelayString = "${app.s3.validation.initial-delay:60000}")
+    public void revalidateActiveCredentials() {
+        if (!enabled) {
+            return;
+        }
+
+        // A sweep can take minutes and must not hold one of the few scheduler threads
+        try {
+            validationExecutor.execute(this::sweep);
+        } catch (RejectedExecutionException e) {
+            log.warn("Validation queue full, skipping this credential sweep");
+        }
+    }
+
+    private void sweep() {
+        Semaphore permits = new Semaphore(concurrency);
+        Pageable pageable = PageRequest.of(0, 100, Sort.by("id"));
+        int submitted = 0;
+        Slice<S3Credential> slice;
+
+        do {
+            slice = credentialRepository.findByIsActiveTrue(pageable);
+
+            for (S3Credential credential : slice) {
+                if (!permits.tryAcquire()) {
+                    // Enough probes in flight: do this one on the sweep thread, which also
+                    // keeps a single-threaded pool from waiting on itself
+                    probe(credential);
+                    submitted++;
+                    continue;
+                }
+                try {
+                    validationExecutor.execute(() -> {
+                        try {
+                            probe(credential);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                    submitted++;
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    log.warn("Validation queue full, skipping credential {}", credential.getId());
+                }
+            }
+
+            pageable = slice.nextPageable();
+        } while (slice.hasNext());
+
+        log.info("Scheduled re-validation of {} active credentials", submitted);
+    }
+
+    private void validateById(UUID credentialId) {
+        credentialRepository.findById(credentialId)
+                .filter(credential -> Boolean.TRUE.equals(credential.getIsActive()))
+                .ifPresent(this::probe);
+    }
+
+    /**
+     * Runs a cheap {@code listBuckets} and records the outcome. Uses the cached client if
+     * there is one, but never creates or refreshes registry entries.
+     *
+     * @return the failure message, or empty if the credential is healthy
+     */
+    private Optional<String> probe(S3Credential credential) {
+        ListBucketsRequest request = ListBucketsRequest.builder()
+                .overrideConfiguration(o -> o.apiCallTimeout(Duration.ofMillis(timeoutMillis)))
+                .build();
+
+        try {
+            clientRegistry.withUncachedClient(credential, client -> client.listBuckets(request));
+            credentialRepository.updateHealth(credential.getId(), true, LocalDateTime.now(), null);
+            log.debug("Credential {} is healthy", credential.getId());
+            return Optional.empty();
+
+        } catch (Exception e) {
+            String error = StringUtils.abbreviate(String.valueOf(e.getMessage()), 1000);
+            log.warn("Credential {} failed validation: {}", credential.getId(), error);
+            credentialRepository.updateHealth(credential.getId(), false, LocalDateTime.now(), error);
+            return Optional.of(error);
+        }
+    }
+}
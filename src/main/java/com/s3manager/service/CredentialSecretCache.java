@@ -0,0 +1,190 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.event.CredentialChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.jasypt.encryption.StringEncryptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived, bounded cache of decrypted secret keys.
+ * <p>
+ * PBE decryption is deliberately expensive, so repeated client, presigner and
+ * signing work for the same credential reuses the plaintext for a few minutes.
+ * Entries are tied to the stored ciphertext, wiped when the credential changes and
+ * zeroed when they expire. A live entry is read without locking the map. A miss decrypts
+ * once per credential, however many threads ask at the same time: the first one installs
+ * a pending entry and decrypts outside the map, the others wait on that entry. A reader
+ * that loses the race against a wipe decrypts for itself instead of getting the zeroed
+ * buffer.
+ */
+@Service
+@Slf4j
+public class CredentialSecretCache {
+
+    private final StringEncryptor stringEncryptor;
+    private final long ttlNanos;
+    private final int maxSize;
+
+    private final ConcurrentMap<UUID, CachedSecret> secrets = new ConcurrentHashMap<>();
+
+    public CredentialSecretCache(
+            StringEncryptor stringEncryptor,
+            @Value("${app.s3.secret-cache.ttl:300}") long ttlSeconds,
+            @Value("${app.s3.secret-cache.max-size:500}") int maxSize) {
+        this.stringEncryptor = stringEncryptor;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxSize = maxSize;
+    }
+
+    public String getSecretKey(S3Credential credential) {
+        if (ttlNanos <= 0 || credential.getId() == null) {
+            return stringEncryptor.decrypt(credential.getSecretKey());
+        }
+
+        long now = System.nanoTime();
+        String ciphertext = credential.getSecretKey();
+
+        CachedSecret cached = secrets.get(credential.getId());
+        if (cached != null && cached.isValidFor(ciphertext, now)) {
+            String plaintext = cached.plaintext();
+            if (plaintext != null) {
+                return plaintext;
+            }
+        }
+
+        // Only the cheap swap happens under the map's lock, the decryption runs outside it
+        CachedSecret pending = new CachedSecret(ciphertext, now + ttlNanos);
+        cached = secrets.compute(credential.getId(), (id, current) -> {
+            if (current != null && current.isValidFor(ciphertext, now) && !current.isWiped()) {
+                return current;
+            }
+            if (current != null) {
+                current.wipe();
+            }
+            return pending;
+        });
+
+        if (cached == pending) {
+            try {
+                pending.complete(stringEncryptor.decrypt(ciphertext));
+            } catch (RuntimeException e) {
+                secrets.remove(credential.getId(), pending);
+                pending.fail(e);
+                throw e;
+            }
+            if (secrets.size() > maxSize) {
+                evictOldest();
+            }
+        }
+
+        String plaintext = cached.plaintext();
+        return plaintext != null ? plaintext : stringEncryptor.decrypt(ciphertext);
+    }
+
+    public void invalidate(UUID credentialId) {
+        CachedSecret removed = secrets.remove(credentialId);
+        if (removed != null) {
+            removed.wipe();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialChanged(CredentialChangedEvent event) {
+        invalidate(event.getCredentialId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.s3.secret-cache.sweep-interval:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        secrets.forEach((id, cached) -> {
+            if (cached.isExpired(now) && secrets.remove(id, cached)) {
+                cached.wipe();
+            }
+        });
+    }
+
+    private void evictOldest() {
+        secrets.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().expiresAt))
+                .ifPresent(entry -> {
+                    if (secrets.remove(entry.getKey(), entry.getValue())) {
+                        entry.getValue().wipe();
+                    }
+                });
+    }
+
+    private static final class CachedSecret {
+        final String ciphertext;
+        final long expiresAt;
+        private final CompletableFuture<char[]> decrypted = new CompletableFuture<>();
+        private boolean wiped;
+
+        CachedSecret(String ciphertext, long expiresAt) {
+            this.ciphertext = ciphertext;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        boolean isValidFor(String currentCiphertext, long now) {
+            return !isExpired(now) && ciphertext.equals(currentCiphertext);
+        }
+
+        synchronized void complete(String plaintext) {
+            char[] chars = plaintext.toCharArray();
+            if (wiped) {
+                Arrays.fill(chars, '\0');
+            }
+            decrypted.complete(chars);
+        }
+
+        void fail(RuntimeException e) {
+            decrypted.completeExceptionally(e);
+        }
+
+        /**
+         * Waits for the decryption if it is still running.
+         *
+         * @return a copy of the secret, or {@code null} if decrypting failed or the entry
+         *         has been wiped
+         */
+        String plaintext() {
+            char[] chars;
+            try {
+                chars = decrypted.join();
+            } catch (CompletionException | CancellationException e) {
+                return null;
+            }
+            synchronized (this) {
+                return wiped ? null : new String(chars);
+            }
+        }
+
+        synchronized boolean isWiped() {
+            return wiped;
+        }
+
+        synchronized void wipe() {
+            wiped = true;
+            if (decrypted.isDone() && !decrypted.isCompletedExceptionally()) {
+                Arrays.fill(decrypted.join(), '\0');
+            }
+        }
+    }
+}
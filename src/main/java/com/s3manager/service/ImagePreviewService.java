@@ -0,0 +1,309 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.s3.ObjectPreview;
+import com.s3manager.exception.BadRequestException;
+import com.s3manager.exception.NotModifiedException;
+import com.s3manager.exception.S3OperationException;
+import com.s3manager.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Renders downscaled previews of image objects.
+ * <p>
+ * The source is streamed straight into the image decoder, using subsampling so that large
+ * images are decoded at roughly the target resolution. Decoding is limited to
+ * {@code concurrency} images at a time. Finished renditions are cached in memory, keyed by
+ * object, ETag and size, with a total byte budget. An overwritten object gets a new ETag,
+ * so stale renditions are never served and simply age out of the cache.
+ */
+@Service
+@Slf4j
+public class ImagePreviewService {
+
+    private final S3CredentialService credentialService;
+    private final S3ClientRegistry clientRegistry;
+    private final UserRepository userRepository;
+    private final AuditService auditService;
+    private final Semaphore decodePermits;
+
+    @Value("${app.s3.preview.default-size:256}")
+    private int defaultSize;
+
+    @Value("${app.s3.preview.max-size:1024}")
+    private int maxSize;
+
+    @Value("${app.s3.preview.max-source-size:52428800}")
+    private long maxSourceSize;
+
+    @Value("${app.s3.preview.cache.max-bytes:67108864}")
+    private long cacheMaxBytes;
+
+    private final LinkedHashMap<String, ObjectPreview> renditions = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ImagePreviewService(
+            S3CredentialService credentialService,
+            S3ClientRegistry clientRegistry,
+            UserRepository userRepository,
+            AuditService auditService,
+            MeterRegistry meterRegistry,
+            @Value("${app.s3.preview.concurrency:0}") int concurrency) {
+        this.credentialService = credentialService;
+        this.clientRegistry = clientRegistry;
+        this.userRepository = userRepository;
+        this.auditService = auditService;
+        this.decodePermits = new Semaphore(
+                concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors());
+
+        this.hits = Counter.builder("s3.preview.cache.requests")
+                .tag("result", "hit")
+                .description("Previews served from the rendition cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("s3.preview.cache.requests")
+                .tag("result", "miss")
+                .description("Previews that had to be rendered")
+                .register(meterRegistry);
+        Gauge.builder("s3.preview.cache.bytes", this, service -> service.currentBytes())
+                .description("Bytes held by the rendition cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param size          the longest edge of the preview in pixels, or {@code null} for the default
+     * @param ifNoneMatch   the client's cached rendition ETag, if any
+     * @throws NotModifiedException if the client's rendition is still current
+     */
+    public ObjectPreview getPreview(
+            String username,
+            String bucket,
+            String key,
+            UUID credentialId,
+            Integer size,
+            String ifNoneMatch) {
+
+        int targetSize = size != null ? Math.max(16, Math.min(size, maxSize)) : defaultSize;
+        log.info("Generating {}px preview for object: {} in bucket: {}", targetSize, key, bucket);
+
+        S3Credential credential = getCredential(username, credentialId);
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build());
+
+            String renditionETag = "\"" + StringUtils.strip(head.eTag(), "\"") + "-" + targetSize + "\"";
+            if (renditionETag.equals(ifNoneMatch)) {
+                throw new NotModifiedException(renditionETag, head.lastModified());
+            }
+
+            String cacheKey = credential.getId() + "/" + bucket + "/" + key + "/" + renditionETag;
+            ObjectPreview preview = getCached(cacheKey);
+
+            if (preview != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                preview = render(s3Client, bucket, key, head, targetSize, renditionETag);
+                putCached(cacheKey, preview);
+            }
+
+            User user = getUser(username);
+            auditService.logPreviewObject(user, bucket, key);
+
+            return preview;
+
+        } catch (NotModifiedException | BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to generate preview: {}", e.getMessage());
+            throw new S3OperationException("Failed to generate preview: " + e.getMessage());
+        }
+    }
+
+    private ObjectPreview render(
+            S3Client s3Client, String bucket, String key, HeadObjectResponse head,
+            int targetSize, String renditionETag) throws IOException {
+
+        if (head.contentType() != null && !head.contentType().startsWith("image/")) {
+            throw new BadRequestException("Object is not an image");
+        }
+        if (head.contentLength() != null && head.contentLength() > maxSourceSize) {
+            throw new BadRequestException("Image is too large to preview");
+        }
+
+        try {
+            decodePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to render preview");
+        }
+
+        try (ResponseInputStream<GetObjectResponse> stream = s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .ifMatch(head.eTag())
+                .build())) {
+
+            BufferedImage source = decode(stream, targetSize);
+            BufferedImage scaled = scale(source, targetSize);
+            boolean alpha = scaled.getColorModel().hasAlpha();
+
+            return ObjectPreview.builder()
+                    .content(alpha ? encodePng(scaled) : encodeJpeg(scaled))
+                    .contentType(alpha ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE)
+                    .eTag(renditionETag)
+                    .lastModified(head.lastModified())
+                    .build();
+        } finally {
+            decodePermits.release();
+        }
+    }
+
+    /**
+     * Decodes the image, skipping source pixels so the result is no smaller than twice
+     * the target size. This keeps memory proportional to the preview, not the original.
+     */
+    private BufferedImage decode(ResponseInputStream<GetObjectResponse> stream, int targetSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(stream)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new BadRequestException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestEdge / (targetSize * 2));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int targetSize) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) targetSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.8f);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private synchronized ObjectPreview getCached(String cacheKey) {
+        return renditions.get(cacheKey);
+    }
+
+    private synchronized void putCached(String cacheKey, ObjectPreview preview) {
+        long size = preview.getContent().length;
+        if (size > cacheMaxBytes) {
+            return;
+        }
+
+        ObjectPreview previous = renditions.put(cacheKey, preview);
+        cachedBytes += size - (previous != null ? previous.getContent().length : 0);
+
+        Iterator<Map.Entry<String, ObjectPreview>> eldest = renditions.entrySet().iterator();
+        while (cachedBytes > cacheMaxBytes && eldest.hasNext()) {
+            Map.Entry<String, ObjectPreview> entry = eldest.next();
+            if (Objects.equals(entry.getKey(), cacheKey)) {
+                continue;
+            }
+            cachedBytes -= entry.getValue().getContent().length;
+            eldest.remove();
+        }
+    }
+
+    private synchronized long currentBytes() {
+        return cachedBytes;
+    }
+
+    private S3Credential getCredential(String username, UUID credentialId) {
+        if (credentialId != null) {
+            return credentialService.getCredentialByIdInternal(username, credentialId);
+        } else {
+            return credentialService.getDefaultCredential(username);
+        }
+    }
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new S3OperationException("User not found"));
+    }
+}
@@ -0,0 +1,406 @@
+package com.s3manager.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.s3manager.domain.entity.Job;
+import com.s3manager.domain.entity.JobStatus;
+import com.s3manager.domain.entity.JobType;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.common.PageResponse;
+import com.s3manager.dto.job.JobResponse;
+import com.s3manager.dto.s3.BulkDeleteRequest;
+import com.s3manager.dto.s3.BulkDeleteResponse;
+import com.s3manager.dto.s3.PrefixOperation;
+import com.s3manager.dto.s3.PrefixTransferRequest;
+import com.s3manager.dto.s3.PrefixTransferResponse;
+import com.s3manager.exception.BadRequestException;
+import com.s3manager.exception.NotFoundException;
+import com.s3manager.exception.S3OperationException;
+import com.s3manager.exception.TooManyRequestsException;
+import com.s3manager.repository.JobRepository;
+import com.s3manager.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Runs bulk S3 operations as persistent background jobs.
+ * <p>
+ * A submitted job is stored as {@code QUEUED} with its request and returned right away;
+ * the client polls it by id. Jobs run on the {@code jobExecutor}, at most
+ * {@code concurrency} at a time; once its queue is full, submissions are turned away with
+ * a 429 and nothing is stored. Running jobs write their counters (and, for prefix jobs, the
+ * checkpoint) to the table every {@code progress-interval}. Cancelling a queued job
+ * finishes it at once; a running job stops starting new work and ends as
+ * {@code CANCELLED}. The runner checks for a cancel each time it writes its progress, so
+ * a cancel handled by another instance reaches it too.
+ * <p>
+ * Each job records the instance that owns it, which refreshes the job's heartbeat while it
+ * is queued or running. Unfinished jobs are marked failed when their owner starts again
+ * (for a stable {@code instance-id}) or when their heartbeat is older than
+ * {@code stale-after}, so other instances never fail jobs that are still alive. A failed
+ * job keeps its last checkpoint, so a prefix job can be resubmitted with it as
+ * {@code startAfter}.
+ */
+@Service
+@Slf4j
+public class JobService {
+
+    private static final Set<JobStatus> UNFINISHED = EnumSet.of(JobStatus.QUEUED, JobStatus.RUNNING);
+
+    private final JobRepository jobRepository;
+    private final S3Service s3Service;
+    private final S3CredentialService credentialService;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final Executor jobExecutor;
+    private final String instanceId;
+    private final Map<UUID, JobContext> running = new ConcurrentHashMap<>();
+
+    @Value("${app.jobs.progress-interval:2000}") // ms
+    private long progressIntervalMillis;
+
+    @Value("${app.jobs.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${app.jobs.stale-after:300000}") // ms
+    private long staleAfterMillis;
+
+    public JobService(JobRepository jobRepository,
+                      S3Service s3Service,
+                      S3CredentialService credentialService,
+                      UserRepository userRepository,
+                      ObjectMapper objectMapper,
+                      @Qualifier("jobExecutor") Executor jobExecutor,
+                      @Value("${app.jobs.instance-id:}") String instanceId) {
+        this.jobRepository = jobRepository;
+        this.s3Service = s3Service;
+        this.credentialService = credentialService;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.jobExecutor = jobExecutor;
+        this.instanceId = StringUtils.isNotBlank(instanceId) ? instanceId : UUID.randomUUID().toString();
+    }
+
+    public JobResponse submitBulkDelete(String username, BulkDeleteRequest request) {
+        request.setCredentialId(resolveCredentialId(username, request.getCredentialId()));
+        return submit(username, JobType.BULK_DELETE, request.getBucket(), request.getPrefix(), request);
+    }
+
+    public JobResponse submitPrefixTransfer(String username, PrefixTransferRequest request, PrefixOperation operation) {
+        S3Service.validatePrefixTransfer(request, operation);
+        request.setCredentialId(resolveCredentialId(username, request.getCredentialId()));
+        JobType type = switch (operation) {
+            case COPY -> JobType.PREFIX_COPY;
+            case MOVE -> JobType.PREFIX_MOVE;
+            case RENAME -> JobType.PREFIX_RENAME;
+        };
+        return submit(username, type, request.getSourceBucket(), request.getSourcePrefix(), request);
+    }
+
+    public JobResponse getJob(String username, UUID jobId) {
+        return mapToResponse(getOwnedJob(username, jobId));
+    }
+
+    public PageResponse<JobResponse> listJobs(String username, int page, int size, JobStatus status) {
+        User user = getUser(username);
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+
+        Page<Job> jobPage = status != null
+                ? jobRepository.findByUserAndStatus(user, status, pageable)
+                : jobRepository.findByUser(user, pageable);
+
+        return PageResponse.<JobResponse>builder()
+                .content(jobPage.getContent().stream()
+                        .map(this::mapToResponse)
+                        .collect(Collectors.toList()))
+                .pageNumber(jobPage.getNumber())
+                .pageSize(jobPage.getSize())
+                .totalElements(jobPage.getTotalElements())
+                .totalPages(jobPage.getTotalPages())
+                .last(jobPage.isLast())
+                .build();
+    }
+
+    public JobResponse cancel(String username, UUID jobId) {
+        log.info("Cancelling job {} for user: {}", jobId, username);
+
+        Job job = getOwnedJob(username, jobId);
+        if (job.getStatus().isFinished()) {
+            throw new BadRequestException("Job is already " + job.getStatus().name().toLowerCase());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        jobRepository.requestCancel(jobId, now);
+        if (jobRepository.finish(jobId, JobStatus.QUEUED, JobStatus.CANCELLED, now) == 0) {
+            JobContext context = running.get(jobId);
+            if (context != null) {
+                context.cancelled = true;
+            }
+        }
+
+        return getJob(username, jobId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void abandonInterruptedJobs() {
+        int abandoned = jobRepository.abandonOwnedBy(instanceId, UNFINISHED,
+                JobStatus.FAILED, "Interrupted by a restart", LocalDateTime.now());
+        if (abandoned > 0) {
+            log.warn("Marked {} jobs interrupted by the last shutdown as failed", abandoned);
+        }
+        abandonStaleJobs();
+    }
+
+    /**
+     * Keeps this instance's jobs alive and fails those whose owner has stopped doing so.
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-interval:30000}")
+    public void heartbeat() {
+        jobRepository.heartbeat(instanceId, UNFINISHED, LocalDateTime.now());
+        abandonStaleJobs();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.sweep-interval:3600000}")
+    public void purgeFinishedJobs() {
+        int purged = jobRepository.deleteFinishedBefore(
+                EnumSet.of(JobStatus.COMPLETED, JobStatus.FAILED, JobStatus.CANCELLED),
+                LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            log.info("Purged {} finished jobs", purged);
+        }
+    }
+
+    // ================== Helper Methods ==================
+
+    private void abandonStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int abandoned = jobRepository.abandonStale(now.minus(Duration.ofMillis(staleAfterMillis)), UNFINISHED,
+                JobStatus.FAILED, "Its instance stopped responding", now);
+        if (abandoned > 0) {
+            log.warn("Marked {} jobs of unresponsive instances as failed", abandoned);
+        }
+    }
+
+    private JobResponse submit(String username, JobType type, String bucket, String prefix, Object request) {
+        User user = getUser(username);
+
+        Job job;
+        try {
+            job = jobRepository.save(Job.builder()
+                    .user(user)
+                    .type(type)
+                    .status(JobStatus.QUEUED)
+                    .bucketName(bucket)
+                    .prefix(prefix)
+                    .request(objectMapper.writeValueAsString(request))
+                    .owner(instanceId)
+                    .heartbeatAt(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new S3OperationException("Failed to submit job: " + e.getMessage());
+        }
+
+        UUID jobId = job.getId();
+        try {
+            jobExecutor.execute(() -> run(jobId, username));
+        } catch (RejectedExecutionException e) {
+            jobRepository.deleteById(jobId);
+            log.warn("Rejected {} job for user: {}, the job queue is full", type, username);
+            throw new TooManyRequestsException("Too many jobs are queued, try again later");
+        }
+
+        log.info("Submitted {} job {} for user: {}", type, jobId, username);
+        return mapToResponse(job);
+    }
+
+    private void run(UUID jobId, String username) {
+        JobContext context = new JobContext(jobId);
+        running.put(jobId, context);
+        try {
+            if (jobRepository.start(jobId, JobStatus.QUEUED, JobStatus.RUNNING, LocalDateTime.now()) == 0) {
+                return; // cancelled while queued
+            }
+
+            Job job = jobRepository.findById(jobId).orElseThrow();
+            context.cancelled |= job.getCancelRequested();
+            log.info("Running {} job {}", job.getType(), jobId);
+
+            try {
+                execute(job, username, context);
+            } catch (Exception e) {
+                log.error("Job {} failed: {}", jobId, e.getMessage());
+                finish(jobId, JobStatus.FAILED, null, context, e.getMessage());
+            }
+        } finally {
+            running.remove(jobId);
+        }
+    }
+
+    private void execute(Job job, String username, JobContext context) throws JsonProcessingException {
+        if (job.getType() == JobType.BULK_DELETE) {
+            BulkDeleteResponse response = s3Service.deleteObjects(username,
+                    objectMapper.readValue(job.getRequest(), BulkDeleteRequest.class), context);
+
+            context.record(response.getDeleted(), response.getFailed(), null);
+            finish(job.getId(), outcome(context), response, context, null);
+            return;
+        }
+
+        PrefixOperation operation = switch (job.getType()) {
+            case PREFIX_MOVE -> PrefixOperation.MOVE;
+            case PREFIX_RENAME -> PrefixOperation.RENAME;
+            default -> PrefixOperation.COPY;
+        };
+        PrefixTransferResponse response = s3Service.transferPrefix(username,
+                objectMapper.readValue(job.getRequest(), PrefixTransferRequest.class), operation, context);
+
+        context.record(response.getCopied(), response.getFailed(), response.getCheckpoint());
+        finish(job.getId(), outcome(context), response, context, null);
+    }
+
+    private JobStatus outcome(JobContext context) {
+        if (context.cancelled) {
+            return JobStatus.CANCELLED;
+        }
+        return context.failed > 0 ? JobStatus.FAILED : JobStatus.COMPLETED;
+    }
+
+    private void finish(UUID jobId, JobStatus status, Object result, JobContext context, String errorMessage) {
+        try {
+            if (errorMessage == null && status == JobStatus.FAILED) {
+                errorMessage = context.failed + " objects failed";
+            }
+            int updated = jobRepository.finishRun(jobId, JobStatus.RUNNING, status,
+                    context.processed, context.failed, context.checkpoint,
+                    result != null ? objectMapper.writeValueAsString(result) : null,
+                    StringUtils.abbreviate(errorMessage, 1000), LocalDateTime.now());
+            if (updated == 0) {
+                log.warn("Job {} was abandoned or removed while running, its outcome is dropped", jobId);
+                return;
+            }
+
+            log.info("Job {} {}: {} processed, {} failed", jobId, status.name().toLowerCase(),
+                    context.processed, context.failed);
+        } catch (Exception e) {
+            log.error("Failed to record the outcome of job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private UUID resolveCredentialId(String username, UUID credentialId) {
+        // Pinned at submission, so a later change of the default credential does not redirect the job
+        if (credentialId != null) {
+            return credentialService.getCredentialByIdInternal(username, credentialId).getId();
+        }
+        return credentialService.getDefaultCredential(username).getId();
+    }
+
+    private Job getOwnedJob(String username, UUID jobId) {
+        return jobRepository.findByIdAndUser(jobId, getUser(username))
+                .orElseThrow(() -> new NotFoundException("Job not found"));
+    }
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new S3OperationException("User not found"));
+    }
+
+    private JobResponse mapToResponse(Job job) {
+        Object result = null;
+        if (job.getResult() != null) {
+            try {
+                result = objectMapper.readTree(job.getResult());
+            } catch (JsonProcessingException e) {
+                log.warn("Unreadable result of job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+
+        return JobResponse.builder()
+                .id(job.getId())
+                .type(job.getType().name())
+                .status(job.getStatus().name())
+                .bucket(job.getBucketName())
+                .prefix(job.getPrefix())
+                .processed(job.getProcessed())
+                .failed(job.getFailed())
+                .checkpoint(job.getCheckpoint())
+                .cancelRequested(job.getCancelRequested())
+                .errorMessage(job.getErrorMessage())
+                .result(result)
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * Progress of one running job, written to the table at most every {@code progress-interval}.
+     * A job that is no longer running in the table is stopped like a cancelled one.
+     */
+    private class JobContext implements ProgressListener {
+        private final UUID jobId;
+        private final AtomicLong lastFlush = new AtomicLong(System.nanoTime());
+        private volatile boolean cancelled;
+        private volatile long processed;
+        private volatile long failed;
+        private volatile String checkpoint;
+
+        JobContext(UUID jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void onProgress(long processed, long failed, String checkpoint) {
+            record(processed, failed, checkpoint);
+
+            long last = lastFlush.get();
+            long now = System.nanoTime();
+            if (now - last < Duration.ofMillis(progressIntervalMillis).toNanos()
+                    || !lastFlush.compareAndSet(last, now)) {
+                return;
+            }
+            try {
+                jobRepository.updateProgress(jobId, processed, failed, checkpoint, LocalDateTime.now());
+                // Picks up a cancel sent to another instance, and stops a job that was abandoned
+                if (jobRepository.findCancelRequested(jobId, JobStatus.RUNNING).orElse(true)) {
+                    cancelled = true;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to record progress of job {}: {}", jobId, e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        void record(long processed, long failed, String checkpoint) {
+            this.processed = processed;
+            this.failed = failed;
+            this.checkpoint = checkpoint;
+        }
+    }
+}
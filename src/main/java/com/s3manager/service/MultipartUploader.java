@@ -0,0 +1,348 @@
+package com.s3manager.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Uploads an object of any size through an {@link OutputStream}, switching to a
+ * multipart upload once more than one part has been written.
+ * <p>
+ * Parts of {@code part-size} bytes are uploaded concurrently on the shared transfer
+ * executor. Each upload owns at most {@code concurrency + 1} part buffers, which bounds
+ * both memory and connections per upload. A failed part is retried on its own. An
+ * upload that is closed without {@link MultipartUploadStream#complete()} is aborted, so
+ * S3 is never left holding orphaned parts. With {@code checksums} on, every part carries
+ * a CRC32C computed from its buffer, which S3 verifies on receipt.
+ */
+@Component
+@Slf4j
+public class MultipartUploader {
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private final Executor transferExecutor;
+
+    @Value("${app.s3.upload.multipart.threshold:16777216}")
+    private long threshold;
+
+    @Value("${app.s3.upload.multipart.part-size:${app.s3.chunk-size}}")
+    private long partSize;
+
+    @Value("${app.s3.upload.multipart.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.s3.upload.multipart.part-retries:3}")
+    private int partRetries;
+
+    @Value("${app.s3.upload.checksums:true}")
+    private boolean checksums;
+
+    public MultipartUploader(@Qualifier("s3TransferExecutor") Executor transferExecutor) {
+        this.transferExecutor = transferExecutor;
+    }
+
+    public boolean shouldUse(long objectSize) {
+        return objectSize >= threshold;
+    }
+
+    /**
+     * Starts an upload described by {@code request}. The multipart upload itself is only
+     * created once the first part is full; smaller objects end up as a single PUT.
+     *
+     * @param expectedSize the object size if known, used to keep within S3's part limit
+     */
+    public MultipartUploadStream open(S3Client s3Client, CreateMultipartUploadRequest request, Long expectedSize) {
+        long size = Math.max(partSize, MIN_PART_SIZE);
+        if (expectedSize != null) {
+            size = Math.max(size, (expectedSize + MAX_PARTS - 1) / MAX_PARTS);
+        }
+        if (checksums) {
+            request = request.toBuilder()
+                    .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                    .build();
+        }
+        return new MultipartUploadStream(s3Client, request, Math.toIntExact(size));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final String eTag;
+        private final String versionId;
+        private final long size;
+    }
+
+    public class MultipartUploadStream extends OutputStream {
+
+        private final S3Client s3Client;
+        private final CreateMultipartUploadRequest request;
+        private final int bufferSize;
+        private final BlockingQueue<byte[]> freeBuffers;
+        private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+
+        private int allocatedBuffers;
+        private byte[] buffer;
+        private int count;
+        private long totalBytes;
+        private String uploadId;
+        private boolean closed;
+
+        MultipartUploadStream(S3Client s3Client, CreateMultipartUploadRequest request, int bufferSize) {
+            this.s3Client = s3Client;
+            this.request = request;
+            this.bufferSize = bufferSize;
+            this.freeBuffers = new ArrayBlockingQueue<>(concurrency + 1);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Upload already closed");
+            }
+            while (len > 0) {
+                if (buffer == null) {
+                    buffer = acquireBuffer();
+                }
+                int chunk = Math.min(len, bufferSize - count);
+                System.arraycopy(b, off, buffer, count, chunk);
+                count += chunk;
+                totalBytes += chunk;
+                off += chunk;
+                len -= chunk;
+
+                if (count == bufferSize) {
+                    submitPart();
+                }
+            }
+        }
+
+        public long getBytesWritten() {
+            return totalBytes;
+        }
+
+        /**
+         * Uploads the remaining data and completes the upload.
+         */
+        public Result complete() throws IOException {
+            if (closed) {
+                throw new IOException("Upload already closed");
+            }
+
+            try {
+                if (uploadId == null) {
+                    byte[] data = buffer != null ? buffer : new byte[0];
+                    PutObjectResponse response = s3Client.putObject(toPutObjectRequest(data, count),
+                            RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, count), count));
+                    closed = true;
+                    return new Result(response.eTag(), response.versionId(), totalBytes);
+                }
+
+                if (count > 0) {
+                    submitPart();
+                }
+
+                List<CompletedPart> completedParts = awaitParts().stream()
+                        .sorted(Comparator.comparing(CompletedPart::partNumber))
+                        .collect(Collectors.toList());
+
+                CompleteMultipartUploadResponse response = s3Client.completeMultipartUpload(
+                        CompleteMultipartUploadRequest.builder()
+                                .bucket(request.bucket())
+                                .key(request.key())
+                                .uploadId(uploadId)
+                                .multipartUpload(CompletedMultipartUpload.builder()
+                                        .parts(completedParts)
+                                        .build())
+                                .build());
+
+                closed = true;
+                log.debug("Completed multipart upload of {}:{} in {} parts ({} bytes)",
+                        request.bucket(), request.key(), completedParts.size(), totalBytes);
+                return new Result(response.eTag(), response.versionId(), totalBytes);
+
+            } catch (SdkException e) {
+                throw new IOException("Failed to complete upload: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Aborts the upload unless it was completed. In-flight parts are allowed to finish
+         * first, as S3 may otherwise keep parts that land after the abort.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (uploadId == null) {
+                return;
+            }
+
+            parts.forEach(part -> part.exceptionally(ex -> null).join());
+            try {
+                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(request.bucket())
+                        .key(request.key())
+                        .uploadId(uploadId)
+                        .build());
+                log.info("Aborted multipart upload of {}:{}", request.bucket(), request.key());
+            } catch (SdkException e) {
+                log.error("Failed to abort multipart upload {} of {}:{}: {}",
+                        uploadId, request.bucket(), request.key(), e.getMessage());
+            }
+        }
+
+        private void submitPart() throws IOException {
+            failFast();
+
+            if (uploadId == null) {
+                try {
+                    uploadId = s3Client.createMultipartUpload(request).uploadId();
+                } catch (SdkException e) {
+                    throw new IOException("Failed to start multipart upload: " + e.getMessage(), e);
+                }
+                log.debug("Started multipart upload {} of {}:{}", uploadId, request.bucket(), request.key());
+            }
+
+            byte[] data = buffer;
+            int length = count;
+            int partNumber = parts.size() + 1;
+
+            parts.add(CompletableFuture
+                    .supplyAsync(() -> uploadPart(data, length, partNumber), transferExecutor)
+                    .whenComplete((part, ex) -> freeBuffers.offer(data)));
+
+            buffer = null;
+            count = 0;
+        }
+
+        private CompletedPart uploadPart(byte[] data, int length, int partNumber) {
+            String checksum = checksums ? ContentChecksum.crc32cBase64(data, 0, length) : null;
+            UploadPartRequest partRequest = UploadPartRequest.builder()
+                    .bucket(request.bucket())
+                    .key(request.key())
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) length)
+                    .checksumCRC32C(checksum)
+                    .build();
+
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    UploadPartResponse response = s3Client.uploadPart(partRequest,
+                            RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length));
+                    return CompletedPart.builder()
+                            .partNumber(partNumber)
+                            .eTag(response.eTag())
+                            .checksumCRC32C(checksum)
+                            .build();
+
+                } catch (SdkException e) {
+                    boolean retryable = e.retryable()
+                            || (e instanceof S3Exception s3Exception && s3Exception.statusCode() >= 500);
+                    if (!retryable || attempt > partRetries) {
+                        throw e;
+                    }
+                    log.warn("Retrying part {} of {}:{} (attempt {}): {}",
+                            partNumber, request.bucket(), request.key(), attempt + 1, e.getMessage());
+                    try {
+                        Thread.sleep(200L << (attempt - 1));
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        private byte[] acquireBuffer() throws IOException {
+            byte[] free = freeBuffers.poll();
+            if (free != null) {
+                return free;
+            }
+            if (allocatedBuffers <= concurrency) {
+                allocatedBuffers++;
+                return new byte[bufferSize];
+            }
+            try {
+                // Every buffer is in flight, so wait for a part to finish
+                return freeBuffers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Upload interrupted");
+            }
+        }
+
+        private void failFast() throws IOException {
+            for (CompletableFuture<CompletedPart> part : parts) {
+                if (part.isCompletedExceptionally()) {
+                    awaitParts();
+                }
+            }
+        }
+
+        private List<CompletedPart> awaitParts() throws IOException {
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            for (CompletableFuture<CompletedPart> part : parts) {
+                try {
+                    completed.add(part.join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    throw new IOException("Failed to upload part: " + cause.getMessage(), cause);
+                }
+            }
+            return completed;
+        }
+
+        private PutObjectRequest toPutObjectRequest(byte[] data, int length) {
+            PutObjectRequest.Builder builder = PutObjectRequest.builder()
+                    .bucket(request.bucket())
+                    .key(request.key())
+                    .contentType(request.contentType())
+                    .contentEncoding(request.contentEncoding())
+                    .contentDisposition(request.contentDisposition())
+                    .cacheControl(request.cacheControl())
+                    .metadata(request.metadata())
+                    .storageClass(request.storageClass())
+                    .serverSideEncryption(request.serverSideEncryption());
+
+            if (checksums) {
+                ContentChecksum checksum = new ContentChecksum();
+                checksum.update(data, 0, length);
+                builder.contentMD5(checksum.md5Base64())
+                        .checksumCRC32C(checksum.crc32cBase64());
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.ArchiveRequest.ArchiveFormat;
+import com.s3manager.dto.s3.CompressionCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Streams a set of objects as a single ZIP or TAR archive.
+ * <p>
+ * While one entry is being written, the next {@code prefetch} objects are read ahead, up
+ * to {@code prefetch-max-size} bytes each. Small objects are then held whole; larger ones
+ * fetch the rest only when their entry is written, so no prefetched GET sits open and
+ * memory stays bounded at {@code prefetch * prefetch-max-size} regardless of archive size. Objects stored compressed by
+ * {@link ObjectCompressor} are decoded, so entries hold the content that was uploaded.
+ */
+@Component
+@Slf4j
+public class ObjectArchiver {
+
+    private final Executor transferExecutor;
+    private final ObjectCompressor objectCompressor;
+
+    @Value("${app.s3.download.archive.prefetch:4}")
+    private int prefetch;
+
+    @Value("${app.s3.download.archive.prefetch-max-size:1048576}")
+    private int prefetchMaxSize;
+
+    @Value("${app.s3.download.archive.compression-level:1}") // most objects are already compressed
+    private int compressionLevel;
+
+    @Value("${app.s3.download.buffer-size:65536}")
+    private int bufferSize;
+
+    public ObjectArchiver(
+            @Qualifier("s3TransferExecutor") Executor transferExecutor,
+            ObjectCompressor objectCompressor) {
+        this.transferExecutor = transferExecutor;
+        this.objectCompressor = objectCompressor;
+    }
+
+    /**
+     * Writes every object in {@code keys} to {@code out} as an archive entry named by
+     * {@code entryNames}. Keys that disappear before they are fetched are skipped.
+     *
+     * @return the number of entries written
+     */
+    public int write(
+            S3Client s3Client,
+            String bucket,
+            Iterator<String> keys,
+            EntryNamer entryNames,
+            ArchiveFormat format,
+            OutputStream out) throws IOException {
+
+        // The servlet stream is closed by the container, not by finishing the archive
+        OutputStream target = CloseShieldOutputStream.wrap(out);
+
+        if (format == ArchiveFormat.TAR) {
+            try (TarArchiveOutputStream tar = new TarArchiveOutputStream(target)) {
+                tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+                tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+                return writeEntries(s3Client, bucket, keys, tar, (name, size, response) -> {
+                    if (size == null) {
+                        throw new IOException("Size of " + name + " is unknown, it cannot be added to a TAR archive");
+                    }
+                    TarArchiveEntry entry = new TarArchiveEntry(name);
+                    entry.setSize(size);
+                    if (response.lastModified() != null) {
+                        entry.setModTime(Date.from(response.lastModified()));
+                    }
+                    return entry;
+                }, entryNames);
+            }
+        }
+
+        try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(target)) {
+            zip.setUseZip64(Zip64Mode.AsNeeded);
+            // STORED would need each entry's CRC up front, so level 0 still goes through deflate
+            zip.setMethod(ZipArchiveOutputStream.DEFLATED);
+            zip.setLevel(compressionLevel);
+            return writeEntries(s3Client, bucket, keys, zip, (name, size, response) -> {
+                ZipArchiveEntry entry = new ZipArchiveEntry(name);
+                if (size != null) {
+                    entry.setSize(size);
+                }
+                if (response.lastModified() != null) {
+                    entry.setTime(response.lastModified().toEpochMilli());
+                }
+                return entry;
+            }, entryNames);
+        }
+    }
+
+    private <E extends ArchiveEntry> int writeEntries(
+            S3Client s3Client,
+            String bucket,
+            Iterator<String> keys,
+            ArchiveOutputStream<E> archive,
+            EntryFactory<E> entries,
+            EntryNamer entryNames) throws IOException {
+
+        Deque<PendingEntry> window = new ArrayDeque<>(prefetch);
+        byte[] buffer = new byte[bufferSize];
+        int written = 0;
+
+        while (keys.hasNext() && window.size() < prefetch) {
+            window.add(prefetch(s3Client, bucket, keys.next()));
+        }
+
+        while (!window.isEmpty()) {
+            PendingEntry pending = window.poll();
+            if (keys.hasNext()) {
+                window.add(prefetch(s3Client, bucket, keys.next()));
+            }
+
+            Prefetched prefetched = await(pending);
+            if (prefetched == null) {
+                continue;
+            }
+
+            GetObjectResponse response = prefetched.response;
+            CompressionCodec codec = objectCompressor.codecOf(response.metadata());
+            // Only objects larger than the prefetched head hold a connection, and only while written
+            ResponseInputStream<GetObjectResponse> rest = prefetched.isComplete()
+                    ? null
+                    : openRest(s3Client, bucket, pending.key, prefetched);
+
+            try {
+                Long size = codec != null
+                        ? objectCompressor.originalSizeOf(response.metadata())
+                        : Long.valueOf(prefetched.length);
+                archive.putArchiveEntry(entries.create(entryNames.name(pending.key), size, response));
+                InputStream stored = new ByteArrayInputStream(prefetched.head);
+                if (rest != null) {
+                    stored = new SequenceInputStream(stored, CloseShieldInputStream.wrap(rest));
+                }
+                try (InputStream content = codec != null ? objectCompressor.decompress(codec, stored) : stored) {
+                    int read;
+                    while ((read = content.read(buffer)) != -1) {
+                        archive.write(buffer, 0, read);
+                    }
+                }
+                archive.closeArchiveEntry();
+                if (rest != null) {
+                    rest.close();
+                }
+                written++;
+            } catch (IOException | RuntimeException e) {
+                if (rest != null) {
+                    rest.abort();
+                }
+                throw e;
+            }
+        }
+
+        archive.finish();
+        archive.flush();
+        return written;
+    }
+
+    /**
+     * Reads up to {@code prefetch-max-size} bytes of {@code key} in the background. The GET
+     * is read to the end right away, so no connection sits idle while earlier entries are
+     * written and S3 has nothing to reset.
+     */
+    private PendingEntry prefetch(S3Client s3Client, String bucket, String key) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=0-" + (prefetchMaxSize - 1))
+                .build();
+
+        return new PendingEntry(key, CompletableFuture.supplyAsync(() -> {
+            ResponseBytes<GetObjectResponse> bytes;
+            try {
+                bytes = s3Client.getObjectAsBytes(request);
+            } catch (S3Exception e) {
+                if (e.statusCode() != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                    throw e;
+                }
+                // Empty objects have no first byte to range over
+                bytes = s3Client.getObjectAsBytes(request.toBuilder().range(null).build());
+            }
+            return new Prefetched(bytes.response(), bytes.asByteArray());
+        }, transferExecutor));
+    }
+
+    /**
+     * Opens the part of an object after its prefetched head, pinned to the same version.
+     */
+    private ResponseInputStream<GetObjectResponse> openRest(
+            S3Client s3Client, String bucket, String key, Prefetched prefetched) throws IOException {
+
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=" + prefetched.head.length + "-")
+                .ifMatch(prefetched.response.eTag())
+                .build();
+        try {
+            return s3Client.getObject(request);
+        } catch (SdkException e) {
+            throw new IOException("Failed to fetch " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Prefetched await(PendingEntry pending) throws IOException {
+        try {
+            return pending.content.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Archive download interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NoSuchKeyException) {
+                log.warn("Skipping {} in archive, object no longer exists", pending.key);
+                return null;
+            }
+            throw new IOException("Failed to fetch " + pending.key + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryNamer {
+        String name(String key);
+    }
+
+    @FunctionalInterface
+    private interface EntryFactory<E extends ArchiveEntry> {
+        /**
+         * @param size the entry's content length, or {@code null} if it is not known
+         */
+        E create(String name, Long size, GetObjectResponse response) throws IOException;
+    }
+
+    private static class PendingEntry {
+        final String key;
+        final CompletableFuture<Prefetched> content;
+
+        PendingEntry(String key, CompletableFuture<Prefetched> content) {
+            this.key = key;
+            this.content = content;
+        }
+    }
+
+    /**
+     * The start of an object, or all of it when it fits in {@code prefetch-max-size}.
+     */
+    private static class Prefetched {
+        final GetObjectResponse response;
+        final byte[] head;
+        /** Stored size of the whole object */
+        final long length;
+
+        Prefetched(GetObjectResponse response, byte[] head) {
+            this.response = response;
+            this.head = head;
+            this.length = totalLength(response, head.length);
+        }
+
+        boolean isComplete() {
+            return head.length >= length;
+        }
+
+        private static long totalLength(GetObjectResponse response, long received) {
+            // "bytes 0-1048575/5242880", absent when the whole object was returned
+            String contentRange = response.contentRange();
+            if (contentRange == null || contentRange.indexOf('/') < 0) {
+                return received;
+            }
+            return Long.parseLong(contentRange.substring(contentRange.indexOf('/') + 1).trim());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.CompressionCodec;
+import com.s3manager.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transparent compression of stored objects.
+ * <p>
+ * An upload is compressed when the client asks for a codec, or when the bucket or content
+ * type is configured for it. The codec and original size are kept in the object's user
+ * metadata, which is what marks an object as compressed on the way back out; the object's
+ * Content-Encoding is set as well, so presigned downloads are decoded by browsers.
+ */
+@Component
+@Slf4j
+public class ObjectCompressor {
+
+    static final String CODEC_METADATA = "s3m-codec";
+    static final String ORIGINAL_SIZE_METADATA = "s3m-original-size";
+
+    private static final String NONE = "none";
+    private static final String DECODED_ETAG_SUFFIX = "-decoded";
+
+    @Value("${app.s3.compression.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.compression.default-codec:gzip}")
+    private String defaultCodec;
+
+    @Value("${app.s3.compression.buckets:}")
+    private Set<String> buckets;
+
+    @Value("${app.s3.compression.content-types:}")
+    private List<String> contentTypes;
+
+    @Value("${app.s3.compression.min-size:1024}")
+    private long minSize;
+
+    @Value("${app.s3.compression.gzip-level:6}")
+    private int gzipLevel;
+
+    @Value("${app.s3.compression.zstd-level:3}")
+    private int zstdLevel;
+
+    /**
+     * Picks the codec for an upload, or {@code null} to store it as is. An explicit
+     * {@code requested} codec (or {@code none}) always wins; otherwise the bucket and
+     * content type rules apply to objects of at least {@code min-size} bytes.
+     */
+    public CompressionCodec resolve(String requested, String bucket, String contentType, long size) {
+        if (StringUtils.isNotBlank(requested)) {
+            if (NONE.equalsIgnoreCase(requested)) {
+                return null;
+            }
+            return CompressionCodec.fromEncoding(requested)
+                    .orElseThrow(() -> new BadRequestException("Unsupported compression: " + requested));
+        }
+
+        if (!enabled || size < minSize) {
+            return null;
+        }
+        if (buckets.contains(bucket) || matchesContentType(contentType)) {
+            return CompressionCodec.fromEncoding(defaultCodec).orElse(CompressionCodec.GZIP);
+        }
+        return null;
+    }
+
+    /**
+     * User metadata to store with an object compressed by {@code codec}.
+     */
+    public Map<String, String> metadata(CompressionCodec codec, long originalSize) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(CODEC_METADATA, codec.getEncoding());
+        metadata.put(ORIGINAL_SIZE_METADATA, String.valueOf(originalSize));
+        return metadata;
+    }
+
+    /**
+     * The codec an object was stored with, or {@code null} if it was not compressed here.
+     */
+    public CompressionCodec codecOf(Map<String, String> metadata) {
+        if (metadata == null || !metadata.containsKey(CODEC_METADATA)) {
+            return null;
+        }
+        return CompressionCodec.fromEncoding(metadata.get(CODEC_METADATA)).orElse(null);
+    }
+
+    public Long originalSizeOf(Map<String, String> metadata) {
+        try {
+            return Long.valueOf(metadata.get(ORIGINAL_SIZE_METADATA));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * ETag for the decompressed representation of an object stored as {@code eTag}. The
+     * stored ETag describes the compressed bytes, so the decoded body needs its own.
+     */
+    public static String decodedETag(String eTag) {
+        if (eTag == null) {
+            return null;
+        }
+        return "\"" + StringUtils.strip(eTag, "\"") + DECODED_ETAG_SUFFIX + "\"";
+    }
+
+    /**
+     * Maps any decoded-representation ETags in an {@code If-None-Match} header back to the
+     * stored ETags that S3 compares against.
+     */
+    public static String storedETags(String ifNoneMatch) {
+        return ifNoneMatch == null ? null : ifNoneMatch.replace(DECODED_ETAG_SUFFIX + "\"", "\"");
+    }
+
+    public static boolean containsDecodedETag(String ifNoneMatch) {
+        return ifNoneMatch != null && ifNoneMatch.contains(DECODED_ETAG_SUFFIX + "\"");
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header allows the stored bytes to be sent as is.
+     */
+    public boolean accepts(String acceptEncoding, CompressionCodec codec) {
+        if (StringUtils.isBlank(acceptEncoding)) {
+            return false;
+        }
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase(codec.getEncoding()) && !coding.equals("*")) {
+                continue;
+            }
+            return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    /**
+     * Wraps {@code out} in a compressor. Closing the returned stream finishes the
+     * compressed data and closes {@code out}.
+     */
+    public OutputStream compress(CompressionCodec codec, OutputStream out) throws IOException {
+        return switch (codec) {
+            case GZIP -> {
+                GzipParameters parameters = new GzipParameters();
+                parameters.setCompressionLevel(gzipLevel);
+                yield new GzipCompressorOutputStream(out, parameters);
+            }
+            case ZSTD -> new ZstdCompressorOutputStream(out, zstdLevel);
+        };
+    }
+
+    /**
+     * Wraps {@code in} in a decompressor. Closing the returned stream closes {@code in}.
+     */
+    public InputStream decompress(CompressionCodec codec, InputStream in) throws IOException {
+        return switch (codec) {
+            case GZIP -> new GzipCompressorInputStream(new BufferedInputStream(in));
+            case ZSTD -> new ZstdCompressorInputStream(new BufferedInputStream(in));
+        };
+    }
+
+    private boolean matchesContentType(String contentType) {
+        if (StringUtils.isBlank(contentType) || contentTypes.isEmpty()) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return contentTypes.stream().anyMatch(type -> MediaType.parseMediaType(type.trim()).includes(mediaType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
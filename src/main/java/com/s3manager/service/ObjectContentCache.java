@@ -0,0 +1,412 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.ObjectDownload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Optional on-disk cache of whole objects for hot downloads.
+ * <p>
+ * Entries are keyed by credential, bucket and key, and are only served when the ETag
+ * (and Last-Modified, when known) from a fresh HEAD still matches. The cache is bounded
+ * by a total byte budget with least-recently-used eviction. Hits are written with
+ * {@link FileChannel#transferTo}. The index lives in memory, so the cache's files are
+ * removed from the directory on startup; anything else in it is left alone. Failing to
+ * write the cache never fails the download itself.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ObjectContentCache {
+
+    private static final String ENTRY_SUFFIX = ".cached";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // Entries and the temp files they are written to, see cacheKey and Files.createTempFile
+    private static final Pattern OWN_FILE = Pattern.compile("[0-9a-f]{64}(\\.cached|-?\\d*\\.tmp)");
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.s3.download.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.download.cache.directory:${java.io.tmpdir}/s3-manager-cache}")
+    private String directory;
+
+    @Value("${app.s3.download.cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    @Value("${app.s3.download.cache.max-entry-size:104857600}")
+    private long maxEntrySize;
+
+    private final LinkedHashMap<String, CachedObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private Path cacheDir;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        cacheDir = Paths.get(directory);
+        Files.createDirectories(cacheDir);
+        deleteOwnFiles();
+
+        hits = Counter.builder("s3.download.cache.requests")
+                .tag("result", "hit")
+                .description("Downloads served from the local content cache")
+                .register(meterRegistry);
+        misses = Counter.builder("s3.download.cache.requests")
+                .tag("result", "miss")
+                .description("Downloads that had to be fetched from S3")
+                .register(meterRegistry);
+        Gauge.builder("s3.download.cache.bytes", this, cache -> cache.currentBytes())
+                .description("Bytes held by the local content cache")
+                .register(meterRegistry);
+
+        log.info("Object content cache enabled at {} ({} bytes)", cacheDir, maxBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens the cached copy if it still matches the object's current validators.
+     */
+    public Optional<ObjectDownload> openCached(
+            UUID credentialId, String bucket, String key, String eTag, Instant lastModified) {
+
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        String cacheKey = cacheKey(credentialId, bucket, key);
+        CachedObject cached;
+        synchronized (this) {
+            cached = entries.get(cacheKey);
+            if (cached != null && !cached.matches(eTag, lastModified)) {
+                remove(cacheKey);
+                cached = null;
+            }
+        }
+
+        if (cached == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(cached.path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // Evicted between the lookup and the open
+            misses.increment();
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Failed to open cached object {}: {}", cached.path, e.getMessage());
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(ObjectDownload.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentLength(cached.size)
+                .contentType(cached.contentType)
+                .eTag(cached.eTag)
+                .lastModified(cached.lastModified)
+                .body(out -> transfer(channel, out))
+                .resource(channel)
+                .build());
+    }
+
+    /**
+     * Wraps a download so that its content is written to the cache while it streams to
+     * the client. Downloads without a known length or above the entry limit pass through.
+     */
+    public ObjectDownload populating(UUID credentialId, ObjectDownload download) {
+        if (!enabled || download.getContentLength() == null
+                || download.getContentLength() > maxEntrySize || download.getETag() == null) {
+            return download;
+        }
+
+        String cacheKey = cacheKey(credentialId, download.getBucket(), download.getKey());
+
+        return download.toBuilder()
+                .body(out -> {
+                    Path temp;
+                    try {
+                        temp = Files.createTempFile(cacheDir, cacheKey, TEMP_SUFFIX);
+                    } catch (IOException e) {
+                        log.warn("Not caching {}, failed to create a cache file: {}", download.getKey(), e.getMessage());
+                        download.writeTo(out);
+                        return;
+                    }
+
+                    boolean committed = false;
+                    try {
+                        CachingOutputStream caching = new CachingOutputStream(out, temp);
+                        try (caching) {
+                            download.writeTo(caching);
+                        }
+                        committed = caching.isComplete() && commit(cacheKey, temp, download);
+                    } finally {
+                        if (!committed) {
+                            deleteQuietly(temp);
+                        }
+                    }
+                })
+                .build();
+    }
+
+    public void invalidate(UUID credentialId, String bucket, String key) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (this) {
+            remove(cacheKey(credentialId, bucket, key));
+        }
+    }
+
+    /**
+     * @return whether the entry was stored; the client already has its content either way
+     */
+    private boolean commit(String cacheKey, Path temp, ObjectDownload download) {
+        long size;
+        try {
+            size = Files.size(temp);
+        } catch (IOException e) {
+            log.warn("Failed to store {} in the cache: {}", download.getKey(), e.getMessage());
+            return false;
+        }
+        if (size != download.getContentLength()) {
+            return false;
+        }
+
+        Path target = cacheDir.resolve(cacheKey + ENTRY_SUFFIX);
+        List<Path> evicted = new ArrayList<>();
+
+        synchronized (this) {
+            remove(cacheKey);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("Failed to store {} in the cache: {}", download.getKey(), e.getMessage());
+                return false;
+            }
+            entries.put(cacheKey, new CachedObject(target, size, download.getETag(),
+                    download.getLastModified(), download.getContentType()));
+            totalBytes += size;
+
+            Iterator<Map.Entry<String, CachedObject>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                CachedObject victim = eldest.next().getValue();
+                eldest.remove();
+                totalBytes -= victim.size;
+                evicted.add(victim.path);
+            }
+        }
+
+        evicted.forEach(ObjectContentCache::deleteQuietly);
+        return true;
+    }
+
+    private void deleteOwnFiles() throws IOException {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir,
+                file -> OWN_FILE.matcher(file.getFileName().toString()).matches() && Files.isRegularFile(file))) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Removed {} files left in the object content cache", deleted);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete cache file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void remove(String cacheKey) {
+        CachedObject removed = entries.remove(cacheKey);
+        if (removed != null) {
+            totalBytes -= removed.size;
+            try {
+                Files.deleteIfExists(removed.path);
+            } catch (IOException e) {
+                log.warn("Failed to delete cached object {}: {}", removed.path, e.getMessage());
+            }
+        }
+    }
+
+    private synchronized long currentBytes() {
+        return totalBytes;
+    }
+
+    private static void transfer(FileChannel channel, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            position += channel.transferTo(position, size - position, target);
+        }
+        out.flush();
+    }
+
+    private static String cacheKey(UUID credentialId, String bucket, String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((credentialId + "\n" + bucket + "\n" + key).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Writes to the client and, for as long as that works, to the cache file. A failed cache
+     * write only drops the entry, it never reaches the client's stream.
+     */
+    private static class CachingOutputStream extends OutputStream {
+        private final OutputStream client;
+        private final Path path;
+        private OutputStream file;
+        private boolean failed;
+
+        CachingOutputStream(OutputStream client, Path path) {
+            this.client = client;
+            this.path = path;
+            try {
+                this.file = Files.newOutputStream(path);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            client.write(b);
+            if (file != null) {
+                try {
+                    file.write(b);
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            client.write(b, off, len);
+            if (file != null) {
+                try {
+                    file.write(b, off, len);
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            client.flush();
+        }
+
+        // Closes the cache file only; the servlet stream is closed by the container
+        @Override
+        public void close() {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    fail(e);
+                }
+                file = null;
+            }
+        }
+
+        boolean isComplete() {
+            return !failed;
+        }
+
+        private void fail(IOException e) {
+            log.warn("Not caching, failed to write {}: {}", path, e.getMessage());
+            failed = true;
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                    // already failed
+                }
+                file = null;
+            }
+        }
+    }
+
+    private static class CachedObject {
+        final Path path;
+        final long size;
+        final String eTag;
+        final Instant lastModified;
+        final String contentType;
+
+        CachedObject(Path path, long size, String eTag, Instant lastModified, String contentType) {
+            this.path = path;
+            this.size = size;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+        }
+
+        boolean matches(String currentETag, Instant currentLastModified) {
+            return Objects.equals(eTag, currentETag)
+                    && (currentLastModified == null || lastModified == null
+                    || lastModified.equals(currentLastModified));
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.KeyError;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Server-side copies of single objects and of everything under a prefix.
+ * <p>
+ * Objects of {@code multipart.threshold} bytes or more are copied as a multipart upload
+ * whose parts are {@code UploadPartCopy} byte ranges of the source, copied concurrently.
+ * That is the only way to copy objects over 5 GB, and much faster than one
+ * {@code CopyObject} for anything in the gigabytes. The parts are pinned to the source
+ * ETag, and the upload carries over the content type, the other content headers, user
+ * metadata and storage class. Smaller objects get one {@code CopyObject}, which keeps
+ * metadata by itself; only the storage class has to be passed along.
+ * <p>
+ * A prefix is listed page by page while the keys already listed are being copied, with
+ * up to {@code concurrency} {@code CopyObject} calls in flight on the shared transfer
+ * executor. For a move, sources are removed with batched {@code DeleteObjects} calls once
+ * their copies have succeeded, so a failed copy never loses its source.
+ * <p>
+ * Listings come back in key order, which makes a checkpoint cheap: the result carries the
+ * last key before which everything is done, and passing it back as {@code startAfter}
+ * resumes the run. Keys after the checkpoint may be copied a second time, which is
+ * harmless.
+ */
+@Component
+@Slf4j
+public class ObjectCopier {
+
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_SINGLE_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private final Executor transferExecutor;
+    private final BulkDeleter bulkDeleter;
+
+    @Value("${app.s3.copy.concurrency:16}")
+    private int concurrency;
+
+    @Value("${app.s3.copy.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${app.s3.copy.multipart.threshold:268435456}")
+    private long multipartThreshold;
+
+    @Value("${app.s3.copy.multipart.part-size:67108864}")
+    private long partSize;
+
+    @Value("${app.s3.copy.multipart.concurrency:8}")
+    private int partConcurrency;
+
+    public ObjectCopier(@Qualifier("s3TransferExecutor") Executor transferExecutor, BulkDeleter bulkDeleter) {
+        this.transferExecutor = transferExecutor;
+        this.bulkDeleter = bulkDeleter;
+    }
+
+    public void copy(S3Client s3Client, String sourceBucket, String sourceKey,
+                     String destinationBucket, String destinationKey) {
+        HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(sourceBucket)
+                .key(sourceKey)
+                .build());
+
+        if (useMultipart(head.contentLength())) {
+            copyMultipart(s3Client, sourceBucket, sourceKey, destinationBucket, destinationKey, head);
+        } else {
+            copySingle(s3Client, sourceBucket, sourceKey, destinationBucket, destinationKey,
+                    head.storageClassAsString());
+        }
+    }
+
+    /**
+     * Same as {@link #copy}, but for an object from a listing, which already tells whether
+     * the source has to be looked at more closely.
+     */
+    private void copy(S3Client s3Client, String sourceBucket, S3Object source,
+                      String destinationBucket, String destinationKey) {
+        if (useMultipart(source.size())) {
+            copy(s3Client, sourceBucket, source.key(), destinationBucket, destinationKey);
+        } else {
+            copySingle(s3Client, sourceBucket, source.key(), destinationBucket, destinationKey,
+                    source.storageClassAsString());
+        }
+    }
+
+    private boolean useMultipart(Long size) {
+        return size != null && size >= Math.min(multipartThreshold, MAX_SINGLE_COPY_SIZE);
+    }
+
+    private void copySingle(S3Client s3Client, String sourceBucket, String sourceKey,
+                            String destinationBucket, String destinationKey, String storageClass) {
+        s3Client.copyObject(CopyObjectRequest.builder()
+                .sourceBucket(sourceBucket)
+                .sourceKey(sourceKey)
+                .destinationBucket(destinationBucket)
+                .destinationKey(destinationKey)
+                .storageClass(storageClass) // CopyObject would otherwise write STANDARD
+                .build());
+    }
+
+    private void copyMultipart(S3Client s3Client, String sourceBucket, String sourceKey,
+                               String destinationBucket, String destinationKey, HeadObjectResponse head) {
+        long size = head.contentLength();
+        long rangeSize = Math.max(Math.max(partSize, MIN_PART_SIZE), (size + MAX_PARTS - 1) / MAX_PARTS);
+        int partCount = (int) ((size + rangeSize - 1) / rangeSize);
+
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(destinationBucket)
+                        .key(destinationKey)
+                        .contentType(head.contentType())
+                        .contentEncoding(head.contentEncoding())
+                        .contentDisposition(head.contentDisposition())
+                        .contentLanguage(head.contentLanguage())
+                        .cacheControl(head.cacheControl())
+                        .expires(head.expires())
+                        .metadata(head.metadata())
+                        .storageClass(head.storageClassAsString())
+                        .build())
+                .uploadId();
+        log.debug("Copying {}:{} ({} bytes) in {} parts, upload {}",
+                sourceBucket, sourceKey, size, partCount, uploadId);
+
+        CompletedPart[] parts = new CompletedPart[partCount];
+        AtomicInteger nextPart = new AtomicInteger(1);
+        CountDownLatch finished = new CountDownLatch(partCount);
+        AtomicReference<SdkException> failure = new AtomicReference<>();
+
+        // Workers take parts until none are left. The calling thread is one of them, so the
+        // copy completes even if the pool is too busy to ever start the others.
+        Runnable worker = () -> {
+            int partNumber;
+            while ((partNumber = nextPart.getAndIncrement()) <= partCount) {
+                try {
+                    if (failure.get() == null) {
+                        long start = (partNumber - 1) * rangeSize;
+                        long end = Math.min(start + rangeSize, size) - 1;
+                        UploadPartCopyResponse response = s3Client.uploadPartCopy(UploadPartCopyRequest.builder()
+                                .sourceBucket(sourceBucket)
+                                .sourceKey(sourceKey)
+                                .copySourceIfMatch(head.eTag())
+                                .copySourceRange("bytes=" + start + "-" + end)
+                                .destinationBucket(destinationBucket)
+                                .destinationKey(destinationKey)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .build());
+                        parts[partNumber - 1] = CompletedPart.builder()
+                                .partNumber(partNumber)
+                                .eTag(response.copyPartResult().eTag())
+                                .build();
+                    }
+                } catch (SdkException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    finished.countDown();
+                }
+            }
+        };
+
+        for (int i = 1; i < Math.min(partConcurrency, partCount); i++) {
+            try {
+                transferExecutor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, SdkClientException.create("Copy interrupted"));
+        }
+
+        if (failure.get() != null) {
+            abort(s3Client, destinationBucket, destinationKey, uploadId);
+            throw failure.get();
+        }
+
+        try {
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(destinationBucket)
+                    .key(destinationKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (SdkException e) {
+            abort(s3Client, destinationBucket, destinationKey, uploadId);
+            throw e;
+        }
+    }
+
+    private static void abort(S3Client s3Client, String bucket, String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            log.info("Aborted multipart copy to {}:{}", bucket, key);
+        } catch (SdkException e) {
+            log.error("Failed to abort multipart copy {} to {}:{}: {}", uploadId, bucket, key, e.getMessage());
+        }
+    }
+
+    /**
+     * Copies every key under {@code sourcePrefix} to the same relative key under
+     * {@code destinationPrefix}, deleting the sources afterwards if {@code deleteSource} is set.
+     *
+     * @param startAfter checkpoint of an earlier run, or {@code null} to start from the beginning
+     * @param listener   told about every copied or failed key, possibly from several threads at once
+     */
+    public Result copyPrefix(S3Client s3Client,
+                             String sourceBucket, String sourcePrefix,
+                             String destinationBucket, String destinationPrefix,
+                             String startAfter, boolean deleteSource,
+                             Listener listener) throws InterruptedIOException {
+
+        Run run = new Run(s3Client, sourceBucket, destinationBucket, deleteSource, startAfter, listener);
+
+        Iterator<S3Object> objects = s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                        .bucket(sourceBucket)
+                        .prefix(sourcePrefix)
+                        .startAfter(startAfter)
+                        .build())
+                .contents()
+                .iterator();
+
+        boolean cancelled = false;
+        while (objects.hasNext()) {
+            if (listener.isCancelled()) {
+                cancelled = true;
+                break;
+            }
+
+            S3Object object = objects.next();
+            String destinationKey = destinationPrefix + object.key().substring(sourcePrefix.length());
+            Entry entry = run.add(object);
+
+            acquire(run.permits, 1);
+            Runnable task = () -> {
+                try {
+                    run.copy(entry, destinationKey);
+                } finally {
+                    run.permits.release();
+                }
+            };
+
+            try {
+                transferExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // The pool is saturated, so do this copy on the calling thread
+                task.run();
+            }
+        }
+
+        // Holding every permit means every copy has finished
+        acquire(run.permits, concurrency);
+        run.permits.release(concurrency);
+        run.flushDeletes();
+
+        return run.toResult(!cancelled);
+    }
+
+    private static void acquire(Semaphore permits, int count) throws InterruptedIOException {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Copy interrupted");
+        }
+    }
+
+    public interface Listener {
+        void onCopied(String sourceKey, String destinationKey);
+
+        default void onFailed(KeyError error) {
+        }
+
+        default void onCheckpoint(String checkpoint) {
+        }
+
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final long copied;
+        private final long deleted;
+        private final long failed;
+        private final List<KeyError> errors; // at most max-reported-errors of them
+        private final boolean completed;
+        private final String checkpoint;     // startAfter for a rerun, null to start over
+    }
+
+    private static class Entry {
+        private final S3Object object;
+        private final String key;
+        private boolean done;
+
+        Entry(S3Object object) {
+            this.object = object;
+            this.key = object.key();
+        }
+    }
+
+    /**
+     * State of one {@link #copyPrefix} call.
+     */
+    private class Run {
+        private final S3Client s3Client;
+        private final String sourceBucket;
+        private final String destinationBucket;
+        private final boolean deleteSource;
+        private final Listener listener;
+        private final Semaphore permits = new Semaphore(concurrency);
+
+        private final AtomicLong copied = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<KeyError> errors = Collections.synchronizedList(new ArrayList<>());
+
+        // Listed keys not yet behind the checkpoint, in listing order
+        private final Deque<Entry> window = new ArrayDeque<>();
+        private String checkpoint;
+        private boolean stalled;
+
+        private List<Entry> pendingDeletes = new ArrayList<>(MAX_KEYS_PER_DELETE);
+
+        Run(S3Client s3Client, String sourceBucket, String destinationBucket,
+            boolean deleteSource, String startAfter, Listener listener) {
+            this.s3Client = s3Client;
+            this.sourceBucket = sourceBucket;
+            this.destinationBucket = destinationBucket;
+            this.deleteSource = deleteSource;
+            this.checkpoint = startAfter;
+            this.listener = listener;
+        }
+
+        synchronized Entry add(S3Object object) {
+            Entry entry = new Entry(object);
+            if (!stalled) {
+                window.addLast(entry);
+            }
+            return entry;
+        }
+
+        void copy(Entry entry, String destinationKey) {
+            try {
+                ObjectCopier.this.copy(s3Client, sourceBucket, entry.object, destinationBucket, destinationKey);
+            } catch (SdkException e) {
+                log.warn("Failed to copy {}:{}: {}", sourceBucket, entry.key, e.getMessage());
+                fail(entry, new KeyError(entry.key, BulkDeleter.errorCode(e), e.getMessage()));
+                return;
+            }
+
+            copied.incrementAndGet();
+            listener.onCopied(entry.key, destinationKey);
+
+            if (!deleteSource) {
+                complete(entry);
+                return;
+            }
+
+            List<Entry> batch = null;
+            synchronized (this) {
+                pendingDeletes.add(entry);
+                if (pendingDeletes.size() >= MAX_KEYS_PER_DELETE) {
+                    batch = pendingDeletes;
+                    pendingDeletes = new ArrayList<>(MAX_KEYS_PER_DELETE);
+                }
+            }
+            if (batch != null) {
+                delete(batch);
+            }
+        }
+
+        void flushDeletes() {
+            List<Entry> batch;
+            synchronized (this) {
+                batch = pendingDeletes;
+                pendingDeletes = new ArrayList<>();
+            }
+            if (!batch.isEmpty()) {
+                delete(batch);
+            }
+        }
+
+        private void delete(List<Entry> batch) {
+            Map<String, Entry> byKey = new HashMap<>();
+            batch.forEach(entry -> byKey.put(entry.key, entry));
+
+            bulkDeleter.deleteBatch(s3Client, sourceBucket,
+                    batch.stream().map(entry -> entry.key).collect(Collectors.toList()),
+                    (deletedKeys, batchErrors) -> {
+                        deleted.addAndGet(deletedKeys.size());
+                        deletedKeys.forEach(key -> complete(byKey.get(key)));
+                        batchErrors.forEach(error -> fail(byKey.get(error.getKey()), error));
+                    });
+        }
+
+        private void complete(Entry entry) {
+            String advanced = null;
+            synchronized (this) {
+                entry.done = true;
+                while (!window.isEmpty() && window.peekFirst().done) {
+                    checkpoint = window.pollFirst().key;
+                    advanced = checkpoint;
+                }
+            }
+            if (advanced != null) {
+                listener.onCheckpoint(advanced);
+            }
+        }
+
+        private void fail(Entry entry, KeyError error) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(error);
+                }
+            }
+            synchronized (this) {
+                // A rerun has to start before this key, so the checkpoint stops here
+                stalled = true;
+                window.clear();
+            }
+            listener.onFailed(error);
+        }
+
+        synchronized Result toResult(boolean listedEverything) {
+            boolean completed = listedEverything && !stalled && window.isEmpty();
+            return new Result(copied.get(), deleted.get(), failed.get(),
+                    new ArrayList<>(errors), completed, completed ? null : checkpoint);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.s3manager.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Downloads a large object as concurrent byte-range GETs and writes the parts to the
+ * output in order.
+ * <p>
+ * At most {@code concurrency} parts are in flight at any time and each part is at most
+ * {@code partSize} bytes, which bounds the reorder memory per download. Every part is
+ * fetched with {@code If-Match} on the object's ETag so a concurrent overwrite fails the
+ * download instead of mixing versions.
+ */
+@Component
+@Slf4j
+public class ParallelDownloader {
+
+    private final Executor transferExecutor;
+
+    @Value("${app.s3.download.parallel.part-size:${app.s3.chunk-size}}")
+    private long partSize;
+
+    @Value("${app.s3.download.parallel.concurrency:8}")
+    private int concurrency;
+
+    @Value("${app.s3.download.parallel.threshold:104857600}")
+    private long threshold;
+
+    @Value("${app.s3.download.parallel.auto:false}")
+    private boolean auto;
+
+    public ParallelDownloader(@Qualifier("s3TransferExecutor") Executor transferExecutor) {
+        this.transferExecutor = transferExecutor;
+    }
+
+    /**
+     * Whether a download should use the parallel engine when the caller did not ask
+     * explicitly. Only then is it worth a HEAD request to learn the object size.
+     */
+    public boolean isAutoEnabled() {
+        return auto;
+    }
+
+    public boolean shouldUse(long objectSize) {
+        return objectSize >= threshold && objectSize > partSize;
+    }
+
+    public void download(
+            S3Client s3Client,
+            String bucket,
+            String key,
+            String eTag,
+            long objectSize,
+            OutputStream out) throws IOException {
+
+        log.debug("Parallel download of {}:{} ({} bytes, part size {}, concurrency {})",
+                bucket, key, objectSize, partSize, concurrency);
+
+        Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>(concurrency);
+        long nextOffset = 0;
+
+        try {
+            while (nextOffset < objectSize && window.size() < concurrency) {
+                window.add(fetchPart(s3Client, bucket, key, eTag, nextOffset, objectSize));
+                nextOffset += partSize;
+            }
+
+            while (!window.isEmpty()) {
+                byte[] part = await(window.poll());
+                if (nextOffset < objectSize) {
+                    window.add(fetchPart(s3Client, bucket, key, eTag, nextOffset, objectSize));
+                    nextOffset += partSize;
+                }
+                out.write(part);
+            }
+            out.flush();
+
+        } finally {
+            window.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private CompletableFuture<byte[]> fetchPart(
+            S3Client s3Client, String bucket, String key, String eTag, long offset, long objectSize) {
+
+        long end = Math.min(offset + partSize, objectSize) - 1;
+
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=" + offset + "-" + end);
+
+        if (eTag != null) {
+            request.ifMatch(eTag);
+        }
+
+        return CompletableFuture.supplyAsync(
+                () -> s3Client.getObjectAsBytes(request.build()).asByteArray(), transferExecutor);
+    }
+
+    private byte[] await(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Parallel download interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to download part: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.s3manager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.s3.*;
+import com.s3manager.exception.BadRequestException;
+import com.s3manager.exception.S3OperationException;
+import com.s3manager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Uploads that go from the client straight to S3.
+ * <p>
+ * The server only signs requests and does the bookkeeping: presigned PUTs for single
+ * objects, POST policies for browser forms, and presigned part URLs for multipart uploads.
+ * Once the client is done it calls {@link #complete}, which confirms the object in S3,
+ * writes the {@code UPLOAD_OBJECT} audit record and invalidates the local content cache.
+ * Multipart uploads abandoned by a client are not tracked here and should be cleaned up
+ * by a bucket lifecycle rule.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresignedUploadService {
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final long MAX_PUT_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter SCOPE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd")
+            .withZone(ZoneOffset.UTC);
+
+    private final S3CredentialService credentialService;
+    private final S3ClientRegistry clientRegistry;
+    private final CredentialSecretCache secretCache;
+    private final ObjectContentCache contentCache;
+    private final UserRepository userRepository;
+    private final AuditService auditService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.s3.presigned-url-expiration}")
+    private int presignedUrlExpiration;
+
+    @Value("${app.s3.chunk-size}")
+    private long defaultPartSize;
+
+    @Value("${app.s3.upload.presigned.max-size:5497558138880}") // 5TB, the S3 object limit
+    private long maxSize;
+
+    @Value("${app.s3.upload.presigned.initial-part-urls:1000}")
+    private int initialPartUrls;
+
+    /**
+     * Signs a PUT of exactly {@code contentLength} bytes. The returned headers are part of
+     * the signature and must be sent as they are.
+     */
+    public PresignedUrlResponse presignPut(String username, PresignedUploadRequest request) {
+        log.info("Presigning PUT of {}:{} for user: {}", request.getBucket(), request.getKey(), username);
+
+        if (request.getContentLength() == null) {
+            throw new BadRequestException("Content length is required for a presigned PUT");
+        }
+        if (request.getContentLength() > Math.min(maxSize, MAX_PUT_SIZE)) {
+            throw new BadRequestException("Object too large for a single PUT, use a multipart upload");
+        }
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+
+        try (S3ClientRegistry.Lease<S3Presigner> presigner = clientRegistry.leasePresigner(credential)) {
+            PresignedPutObjectRequest presigned = presigner.client()
+                    .presignPutObject(PutObjectPresignRequest.builder()
+                            .signatureDuration(resolveDuration(request.getExpirationSeconds()))
+                            .putObjectRequest(PutObjectRequest.builder()
+                                    .bucket(request.getBucket())
+                                    .key(request.getKey())
+                                    .contentType(request.getContentType())
+                                    .contentLength(request.getContentLength())
+                                    .build())
+                            .build());
+
+            // The client's HTTP stack sets Host itself
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            headers.putAll(presigned.signedHeaders());
+            headers.remove("host");
+
+            User user = getUser(username);
+            auditService.logGeneratePresignedUrl(user, request.getBucket(), request.getKey());
+
+            return PresignedUrlResponse.builder()
+                    .url(presigned.url().toString())
+                    .expiresAt(presigned.expiration())
+                    .key(request.getKey())
+                    .bucket(request.getBucket())
+                    .method("PUT")
+                    .headers(headers)
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Failed to presign PUT: {}", e.getMessage());
+            throw new S3OperationException("Failed to presign upload: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds a SigV4-signed POST policy for a browser form upload. The policy pins the
+     * bucket, key and content type and caps the size at {@code contentLength} (or the
+     * configured maximum).
+     */
+    public PresignedPostResponse presignPost(String username, PresignedUploadRequest request) {
+        log.info("Presigning POST of {}:{} for user: {}", request.getBucket(), request.getKey(), username);
+
+        long maxContentLength = request.getContentLength() != null
+                ? Math.min(request.getContentLength(), MAX_PUT_SIZE)
+                : Math.min(maxSize, MAX_PUT_SIZE);
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+
+        try {
+            Instant now = Instant.now();
+            Instant expiresAt = now.plus(resolveDuration(request.getExpirationSeconds())).truncatedTo(ChronoUnit.SECONDS);
+            String scopeDate = SCOPE_DATE.format(now);
+            String amzDate = AMZ_DATE.format(now);
+            String amzCredential = credential.getAccessKey() + "/" + scopeDate + "/"
+                    + credential.getRegion() + "/s3/aws4_request";
+
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("key", request.getKey());
+            if (request.getContentType() != null) {
+                fields.put("Content-Type", request.getContentType());
+            }
+            fields.put("success_action_status", "201");
+            fields.put("x-amz-algorithm", ALGORITHM);
+            fields.put("x-amz-credential", amzCredential);
+            fields.put("x-amz-date", amzDate);
+
+            List<Object> conditions = new ArrayList<>();
+            conditions.add(Map.of("bucket", request.getBucket()));
+            fields.forEach((name, value) -> conditions.add(Map.of(name, value)));
+            conditions.add(List.of("content-length-range", 0, maxContentLength));
+
+            Map<String, Object> policy = new LinkedHashMap<>();
+            policy.put("expiration", DateTimeFormatter.ISO_INSTANT.format(expiresAt));
+            policy.put("conditions", conditions);
+
+            String encodedPolicy = Base64.getEncoder().encodeToString(objectMapper.writeValueAsBytes(policy));
+
+            fields.put("policy", encodedPolicy);
+            fields.put("x-amz-signature",
+                    signPolicy(secretCache.getSecretKey(credential), scopeDate, credential.getRegion(), encodedPolicy));
+
+            User user = getUser(username);
+            auditService.logGeneratePresignedUrl(user, request.getBucket(), request.getKey());
+
+            return PresignedPostResponse.builder()
+                    .url(postUrl(credential, request.getBucket()))
+                    .fields(fields)
+                    .expiresAt(expiresAt)
+                    .key(request.getKey())
+                    .bucket(request.getBucket())
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Failed to presign POST: {}", e.getMessage());
+            throw new S3OperationException("Failed to presign upload: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a multipart upload and signs URLs for its first parts. URLs for the remaining
+     * parts, or fresh ones after expiry, come from {@link #presignParts}.
+     */
+    public PresignedMultipartResponse initiateMultipart(String username, PresignedMultipartRequest request) {
+        log.info("Starting presigned multipart upload of {}:{} for user: {}",
+                request.getBucket(), request.getKey(), username);
+
+        if (request.getTotalSize() > maxSize) {
+            throw new BadRequestException("Object exceeds the maximum size of " + maxSize + " bytes");
+        }
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        long partSize = resolvePartSize(request);
+        int partCount = (int) ((request.getTotalSize() + partSize - 1) / partSize);
+
+        try (S3ClientRegistry.Lease<S3Client> client = clientRegistry.leaseClient(credential);
+             S3ClientRegistry.Lease<S3Presigner> presigner = clientRegistry.leasePresigner(credential)) {
+            CreateMultipartUploadResponse response = client.client()
+                    .createMultipartUpload(CreateMultipartUploadRequest.builder()
+                            .bucket(request.getBucket())
+                            .key(request.getKey())
+                            .contentType(request.getContentType())
+                            .build());
+
+            Duration duration = resolveDuration(request.getExpirationSeconds());
+            List<PresignedPartUrl> parts = presignPartUrls(presigner.client(),
+                    request.getBucket(), request.getKey(), response.uploadId(),
+                    IntStream.rangeClosed(1, Math.min(partCount, initialPartUrls)).boxed().toList(), duration);
+
+            User user = getUser(username);
+            auditService.logGeneratePresignedUrl(user, request.getBucket(), request.getKey());
+
+            log.info("Presigned multipart upload {} started ({} parts of {} bytes)",
+                    response.uploadId(), partCount, partSize);
+
+            return PresignedMultipartResponse.builder()
+                    .bucket(request.getBucket())
+                    .key(request.getKey())
+                    .uploadId(response.uploadId())
+                    .partSize(partSize)
+                    .partCount(partCount)
+                    .parts(parts)
+                    .expiresAt(Instant.now().plus(duration))
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Failed to start presigned multipart upload: {}", e.getMessage());
+            throw new S3OperationException("Failed to start multipart upload: " + e.getMessage());
+        }
+    }
+
+    public List<PresignedPartUrl> presignParts(String username, PresignedPartsRequest request) {
+        for (Integer partNumber : request.getPartNumbers()) {
+            if (partNumber == null || partNumber < 1 || partNumber > MAX_PARTS) {
+                throw new BadRequestException("Part number must be between 1 and " + MAX_PARTS);
+            }
+        }
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+
+        // Signing is local, so this never touches S3
+        try (S3ClientRegistry.Lease<S3Presigner> presigner = clientRegistry.leasePresigner(credential)) {
+            return presignPartUrls(presigner.client(), request.getBucket(), request.getKey(),
+                    request.getUploadId(), request.getPartNumbers(), resolveDuration(request.getExpirationSeconds()));
+        } catch (Exception e) {
+            log.error("Failed to presign upload parts: {}", e.getMessage());
+            throw new S3OperationException("Failed to presign upload parts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records an upload the client made directly to S3. A multipart upload is completed
+     * first, with the given parts or, if none are given, the parts S3 holds. The object is
+     * then confirmed with a HEAD, so an upload that never happened is not audited.
+     */
+    public UploadResponse complete(String username, CompleteUploadRequest request) {
+        log.info("Completing presigned upload of {}:{} for user: {}", request.getBucket(), request.getKey(), username);
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            if (request.getUploadId() != null) {
+                s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                        .bucket(request.getBucket())
+                        .key(request.getKey())
+                        .uploadId(request.getUploadId())
+                        .multipartUpload(CompletedMultipartUpload.builder()
+                                .parts(resolveParts(s3Client, request))
+                                .build())
+                        .build());
+            }
+
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(request.getBucket())
+                    .key(request.getKey())
+                    .build());
+
+            contentCache.invalidate(credential.getId(), request.getBucket(), request.getKey());
+
+            User user = getUser(username);
+            auditService.logUploadObject(user, request.getBucket(), request.getKey());
+
+            log.info("Presigned upload recorded: {} ({} bytes)", request.getKey(), head.contentLength());
+
+            return UploadResponse.builder()
+                    .key(request.getKey())
+                    .bucket(request.getBucket())
+                    .eTag(head.eTag())
+                    .versionId(head.versionId())
+                    .size(head.contentLength())
+                    .build();
+
+        } catch (NoSuchKeyException e) {
+            throw new BadRequestException("Object has not been uploaded");
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to complete presigned upload: {}", e.getMessage());
+            throw new S3OperationException("Failed to complete upload: " + e.getMessage());
+        }
+    }
+
+    public void abortMultipart(String username, CompleteUploadRequest request) {
+        log.info("Aborting presigned multipart upload {} for user: {}", request.getUploadId(), username);
+
+        if (request.getUploadId() == null) {
+            throw new BadRequestException("Upload id is required");
+        }
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+
+        try (S3ClientRegistry.Lease<S3Client> client = clientRegistry.leaseClient(credential)) {
+            client.client().abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(request.getBucket())
+                    .key(request.getKey())
+                    .uploadId(request.getUploadId())
+                    .build());
+        } catch (NoSuchUploadException e) {
+            log.debug("Upload {} was already gone in S3", request.getUploadId());
+        } catch (Exception e) {
+            log.error("Failed to abort multipart upload: {}", e.getMessage());
+            throw new S3OperationException("Failed to abort upload: " + e.getMessage());
+        }
+    }
+
+    // ================== Helper Methods ==================
+
+    private List<PresignedPartUrl> presignPartUrls(
+            S3Presigner presigner, String bucket, String key, String uploadId,
+            List<Integer> partNumbers, Duration duration) {
+
+        return partNumbers.stream()
+                .map(partNumber -> {
+                    PresignedUploadPartRequest presigned = presigner.presignUploadPart(
+                            UploadPartPresignRequest.builder()
+                                    .signatureDuration(duration)
+                                    .uploadPartRequest(UploadPartRequest.builder()
+                                            .bucket(bucket)
+                                            .key(key)
+                                            .uploadId(uploadId)
+                                            .partNumber(partNumber)
+                                            .build())
+                                    .build());
+                    return PresignedPartUrl.builder()
+                            .partNumber(partNumber)
+                            .url(presigned.url().toString())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private List<CompletedPart> resolveParts(S3Client s3Client, CompleteUploadRequest request) {
+        if (request.getParts() != null && !request.getParts().isEmpty()) {
+            return request.getParts().stream()
+                    .sorted(Comparator.comparing(CompleteUploadRequest.CompletedUploadPart::getPartNumber))
+                    .map(part -> CompletedPart.builder()
+                            .partNumber(part.getPartNumber())
+                            .eTag(part.getETag())
+                            .build())
+                    .collect(Collectors.toList());
+        }
+
+        List<CompletedPart> parts = s3Client.listPartsPaginator(ListPartsRequest.builder()
+                        .bucket(request.getBucket())
+                        .key(request.getKey())
+                        .uploadId(request.getUploadId())
+                        .build())
+                .parts().stream()
+                .map(part -> CompletedPart.builder()
+                        .partNumber(part.partNumber())
+                        .eTag(part.eTag())
+                        .build())
+                .collect(Collectors.toList());
+
+        if (parts.isEmpty()) {
+            throw new BadRequestException("No parts have been uploaded");
+        }
+        return parts;
+    }
+
+    private long resolvePartSize(PresignedMultipartRequest request) {
+        long partSize = request.getPartSize() != null ? request.getPartSize() : defaultPartSize;
+        partSize = Math.max(partSize, (request.getTotalSize() + MAX_PARTS - 1) / MAX_PARTS);
+        return Math.min(Math.max(partSize, MIN_PART_SIZE), MAX_PART_SIZE);
+    }
+
+    private Duration resolveDuration(Integer expirationSeconds) {
+        return Duration.ofSeconds(expirationSeconds != null ? expirationSeconds : presignedUrlExpiration);
+    }
+
+    private static String postUrl(S3Credential credential, String bucket) {
+        if (StringUtils.isNotBlank(credential.getEndpoint())) {
+            // S3-compatible stores generally only do path-style addressing
+            return StringUtils.stripEnd(credential.getEndpoint(), "/") + "/" + bucket;
+        }
+        if (bucket.contains(".")) {
+            // Dotted bucket names break the wildcard certificate of virtual-hosted URLs
+            return "https://s3." + credential.getRegion() + ".amazonaws.com/" + bucket;
+        }
+        return "https://" + bucket + ".s3." + credential.getRegion() + ".amazonaws.com/";
+    }
+
+    /**
+     * SigV4 signature of a Base64-encoded POST policy, which is its own string to sign.
+     */
+    static String signPolicy(String secretKey, String date, String region, String encodedPolicy)
+            throws GeneralSecurityException {
+        return HexFormat.of().formatHex(hmac(signingKey(secretKey, date, region), encodedPolicy));
+    }
+
+    private static byte[] signingKey(String secretKey, String date, String region) throws GeneralSecurityException {
+        byte[] dateKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        byte[] regionKey = hmac(dateKey, region);
+        byte[] serviceKey = hmac(regionKey, "s3");
+        return hmac(serviceKey, "aws4_request");
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private S3Credential getCredential(String username, UUID credentialId) {
+        if (credentialId != null) {
+            return credentialService.getCredentialByIdInternal(username, credentialId);
+        } else {
+            return credentialService.getDefaultCredential(username);
+        }
+    }
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new S3OperationException("User not found"));
+    }
+}
@@ -0,0 +1,24 @@
+package com.s3manager.service;
+
+/**
+ * Hooks into a long-running bulk operation, used when it runs as a job. Calls may come
+ * from several threads at once.
+ */
+public interface ProgressListener {
+
+    ProgressListener NONE = new ProgressListener() {
+    };
+
+    /**
+     * @param checkpoint where a rerun could resume, or {@code null} if the operation has none
+     */
+    default void onProgress(long processed, long failed, String checkpoint) {
+    }
+
+    /**
+     * Polled between units of work; once it returns {@code true} no new work is started.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
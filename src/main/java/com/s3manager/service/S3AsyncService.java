@@ -0,0 +1,272 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.s3.BucketDTO;
+import com.s3manager.dto.s3.CopyMoveRequest;
+import com.s3manager.dto.s3.ListObjectsRequest;
+import com.s3manager.dto.s3.ListObjectsResponse;
+import com.s3manager.dto.s3.S3ObjectDTO;
+import com.s3manager.exception.S3OperationException;
+import com.s3manager.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Non-blocking front for the request/response style S3 operations.
+ * <p>
+ * With {@code app.s3.engine=async} calls go through a per-credential
+ * {@link S3AsyncClient}, so the servlet thread is released while S3 answers.
+ * With the default {@code blocking} engine every call delegates to {@link S3Service}
+ * and returns an already completed future.
+ */
+@Service
+@Slf4j
+public class S3AsyncService {
+
+    private final S3Service s3Service;
+    private final S3CredentialService credentialService;
+    private final S3ClientRegistry clientRegistry;
+    private final ObjectContentCache contentCache;
+    private final UserRepository userRepository;
+    private final AuditService auditService;
+    private final Executor operationExecutor;
+
+    @Value("${app.s3.engine:blocking}")
+    private String engine;
+
+    public S3AsyncService(S3Service s3Service,
+                          S3CredentialService credentialService,
+                          S3ClientRegistry clientRegistry,
+                          ObjectContentCache contentCache,
+                          UserRepository userRepository,
+                          AuditService auditService,
+                          @Qualifier("s3OperationExecutor") Executor operationExecutor) {
+        this.s3Service = s3Service;
+        this.credentialService = credentialService;
+        this.clientRegistry = clientRegistry;
+        this.contentCache = contentCache;
+        this.userRepository = userRepository;
+        this.auditService = auditService;
+        this.operationExecutor = operationExecutor;
+    }
+
+    public boolean isAsyncEngine() {
+        return "async".equalsIgnoreCase(engine);
+    }
+
+    // ================== Bucket Operations ==================
+
+    public CompletableFuture<List<BucketDTO>> listBuckets(String username, UUID credentialId) {
+        if (!isAsyncEngine()) {
+            return CompletableFuture.completedFuture(s3Service.listBuckets(username, credentialId));
+        }
+
+        log.info("Listing buckets for user: {}", username);
+
+        S3Credential credential = getCredential(username, credentialId);
+        User user = getUser(username);
+
+        return handle(withAsyncClient(credential, client -> client.listBuckets())
+                .thenApply(response -> {
+                    List<BucketDTO> buckets = S3Service.toBucketDTOs(response, credential);
+                    auditService.logListBuckets(user, buckets.size());
+                    log.info("Listed {} buckets for user: {}", buckets.size(), username);
+                    return buckets;
+                }), "list buckets");
+    }
+
+    public CompletableFuture<Void> createBucket(String username, String bucketName, UUID credentialId) {
+        if (!isAsyncEngine()) {
+            s3Service.createBucket(username, bucketName, credentialId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        log.info("Creating bucket: {} for user: {}", bucketName, username);
+
+        S3Credential credential = getCredential(username, credentialId);
+        User user = getUser(username);
+
+        CreateBucketRequest request = CreateBucketRequest.builder()
+                .bucket(bucketName)
+                .build();
+
+        return handle(withAsyncClient(credential, client -> client.createBucket(request))
+                .thenAccept(response -> {
+                    auditService.logCreateBucket(user, bucketName);
+                    log.info("Bucket created successfully: {}", bucketName);
+                }), "create bucket");
+    }
+
+    public CompletableFuture<Void> deleteBucket(String username, String bucketName, UUID credentialId) {
+        if (!isAsyncEngine()) {
+            s3Service.deleteBucket(username, bucketName, credentialId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        log.info("Deleting bucket: {} for user: {}", bucketName, username);
+
+        S3Credential credential = getCredential(username, credentialId);
+        User user = getUser(username);
+
+        DeleteBucketRequest request = DeleteBucketRequest.builder()
+                .bucket(bucketName)
+                .build();
+
+        return handle(withAsyncClient(credential, client -> client.deleteBucket(request))
+                .thenAccept(response -> {
+                    auditService.logDeleteBucket(user, bucketName);
+                    log.info("Bucket deleted successfully: {}", bucketName);
+                }), "delete bucket");
+    }
+
+    // ================== Object Operations ==================
+
+    public CompletableFuture<ListObjectsResponse> listObjects(String username, ListObjectsRequest request) {
+        if (!isAsyncEngine()) {
+            return CompletableFuture.completedFuture(s3Service.listObjects(username, request));
+        }
+
+        log.info("Listing objects in bucket: {} for user: {}", request.getBucket(), username);
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        User user = getUser(username);
+
+        return handle(withAsyncClient(credential,
+                        client -> client.listObjectsV2(S3Service.buildListObjectsRequest(request)))
+                .thenApply(response -> {
+                    auditService.logListObjects(user, request.getBucket());
+                    return S3Service.toListObjectsResponse(request.getBucket(), response);
+                }), "list objects");
+    }
+
+    public CompletableFuture<Void> deleteObject(String username, String bucket, String key, UUID credentialId) {
+        if (!isAsyncEngine()) {
+            s3Service.deleteObject(username, bucket, key, credentialId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        log.info("Deleting object: {} from bucket: {} for user: {}", key, bucket, username);
+
+        S3Credential credential = getCredential(username, credentialId);
+        User user = getUser(username);
+
+        return handle(withAsyncClient(credential, client -> deleteObject(client, bucket, key))
+                .thenRun(() -> {
+                    contentCache.invalidate(credential.getId(), bucket, key);
+                    auditService.logDeleteObject(user, bucket, key);
+                    log.info("Object deleted successfully: {}", key);
+                }), "delete object");
+    }
+
+    /**
+     * Copies always go through {@link ObjectCopier} (via {@link S3Service}), which needs
+     * blocking calls for its multipart path. With the async engine they run on the
+     * bounded operation executor instead of the servlet thread; the copier's parts still go
+     * to the transfer executor, which a whole copy waiting on them would otherwise starve.
+     */
+    public CompletableFuture<Void> copyObject(String username, CopyMoveRequest request) {
+        if (!isAsyncEngine()) {
+            s3Service.copyObject(username, request);
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> s3Service.copyObject(username, request), operationExecutor);
+    }
+
+    public CompletableFuture<Void> moveObject(String username, CopyMoveRequest request) {
+        if (!isAsyncEngine()) {
+            s3Service.moveObject(username, request);
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> s3Service.moveObject(username, request), operationExecutor);
+    }
+
+    public CompletableFuture<S3ObjectDTO> getObjectMetadata(
+            String username, String bucket, String key, UUID credentialId,
+            String ifNoneMatch, Instant ifModifiedSince) {
+        if (!isAsyncEngine()) {
+            return CompletableFuture.completedFuture(s3Service.getObjectMetadata(
+                    username, bucket, key, credentialId, ifNoneMatch, ifModifiedSince));
+        }
+
+        log.info("Getting metadata for object: {} in bucket: {}", key, bucket);
+
+        S3Credential credential = getCredential(username, credentialId);
+
+        HeadObjectRequest request = HeadObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .ifNoneMatch(ifNoneMatch)
+                .ifModifiedSince(ifModifiedSince)
+                .build();
+
+        return handle(withAsyncClient(credential, client -> client.headObject(request))
+                .thenApply(response -> S3Service.toObjectDTO(bucket, key, response)),
+                "get object metadata");
+    }
+
+    // ================== Helper Methods ==================
+
+    // The client is leased until the call has completed
+    private <T> CompletableFuture<T> withAsyncClient(
+            S3Credential credential, Function<S3AsyncClient, CompletableFuture<T>> call) {
+        S3ClientRegistry.Lease<S3AsyncClient> lease = clientRegistry.leaseAsyncClient(credential);
+        try {
+            return call.apply(lease.client()).whenComplete((result, ex) -> lease.close());
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Void> deleteObject(S3AsyncClient s3Client, String bucket, String key) {
+        DeleteObjectRequest request = DeleteObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        return s3Client.deleteObject(request).thenApply(response -> null);
+    }
+
+    private <T> CompletableFuture<T> handle(CompletableFuture<T> future, String operation) {
+        return future.handle((result, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex;
+                if (cause instanceof S3Exception s3Exception
+                        && s3Exception.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                    throw S3Service.toNotModified(s3Exception);
+                }
+                log.error("Failed to {}: {}", operation, cause.getMessage());
+                throw new S3OperationException("Failed to " + operation + ": " + cause.getMessage(), cause);
+            }
+            return result;
+        });
+    }
+
+    private S3Credential getCredential(String username, UUID credentialId) {
+        if (credentialId != null) {
+            return credentialService.getCredentialByIdInternal(username, credentialId);
+        } else {
+            return credentialService.getDefaultCredential(username);
+        }
+    }
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new S3OperationException("User not found"));
+    }
+}
@@ -0,0 +1,344 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.event.CredentialChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Keeps one long-lived {@link S3Client} (and, in async mode, one {@link S3AsyncClient})
+ * per credential so that connection pools, TLS sessions and endpoint resolution are
+ * reused across requests. Credential-bound {@link S3Presigner}s are cached the same way.
+ * <p>
+ * Entries are keyed by credential id and checked against the entity version, so an
+ * updated credential transparently gets a fresh client. Idle entries are closed by a
+ * periodic sweep. Clients are handed out as {@link Lease}s: one that is evicted or
+ * invalidated while leased is only closed once the last lease is released.
+ */
+@Service
+@Slf4j
+public class S3ClientRegistry {
+
+    private final ClientCache<S3Client> syncClients;
+    private final ClientCache<S3AsyncClient> asyncClients;
+    private final ClientCache<S3Presigner> presigners;
+
+    @Value("${app.s3.client-cache.max-size:200}")
+    private int maxSize;
+
+    @Value("${app.s3.client-cache.idle-timeout:1800}") // seconds
+    private long idleTimeoutSeconds;
+
+    public S3ClientRegistry(S3CredentialService credentialService, MeterRegistry meterRegistry) {
+        this.syncClients = new ClientCache<>("sync", credentialService::createS3Client, meterRegistry);
+        this.asyncClients = new ClientCache<>("async", credentialService::createS3AsyncClient, meterRegistry);
+        this.presigners = new ClientCache<>("presigner", credentialService::createS3Presigner, meterRegistry);
+    }
+
+    /**
+     * Hands out the cached client for {@code credential}. The client stays open until the
+     * lease is closed, even if the entry is evicted or invalidated in the meantime.
+     */
+    public Lease<S3Client> leaseClient(S3Credential credential) {
+        return syncClients.lease(credential);
+    }
+
+    /**
+     * Runs {@code call} with the cached client if there is one, or else with a throwaway
+     * client that is closed afterwards. Never adds an entry or refreshes its idle time, so
+     * background work such as health probes doesn't keep clients alive or push out the
+     * ones that requests are using.
+     */
+    public <R> R withUncachedClient(S3Credential credential, Function<S3Client, R> call) {
+        try (Lease<S3Client> cached = syncClients.peek(credential)) {
+            if (cached != null) {
+                return call.apply(cached.client());
+            }
+        }
+        try (S3Client client = syncClients.factory.apply(credential)) {
+            return call.apply(client);
+        }
+    }
+
+    public Lease<S3AsyncClient> leaseAsyncClient(S3Credential credential) {
+        return asyncClients.lease(credential);
+    }
+
+    public Lease<S3Presigner> leasePresigner(S3Credential credential) {
+        return presigners.lease(credential);
+    }
+
+    public void invalidate(UUID credentialId) {
+        syncClients.invalidate(credentialId);
+        asyncClients.invalidate(credentialId);
+        presigners.invalidate(credentialId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialChanged(CredentialChangedEvent event) {
+        invalidate(event.getCredentialId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.s3.client-cache.eviction-interval:60000}")
+    public void evictIdleClients() {
+        long threshold = System.nanoTime() - Duration.ofSeconds(idleTimeoutSeconds).toNanos();
+        syncClients.evictIdle(threshold);
+        asyncClients.evictIdle(threshold);
+        presigners.evictIdle(threshold);
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        syncClients.clear();
+        asyncClients.clear();
+        presigners.clear();
+    }
+
+    private final class ClientCache<T extends SdkAutoCloseable> {
+
+        private final String type;
+        private final Function<S3Credential, T> factory;
+        private final ConcurrentMap<UUID, CachedClient<T>> clients = new ConcurrentHashMap<>();
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter evictions;
+
+        ClientCache(String type, Function<S3Credential, T> factory, MeterRegistry meterRegistry) {
+            this.type = type;
+            this.factory = factory;
+            this.hits = Counter.builder("s3.client.cache.requests")
+                    .tag("type", type)
+                    .tag("result", "hit")
+                    .description("S3 client lookups served from the registry")
+                    .register(meterRegistry);
+            this.misses = Counter.builder("s3.client.cache.requests")
+                    .tag("type", type)
+                    .tag("result", "miss")
+                    .description("S3 client lookups that required building a new client")
+                    .register(meterRegistry);
+            this.evictions = Counter.builder("s3.client.cache.evictions")
+                    .tag("type", type)
+                    .description("S3 clients closed because they were idle, stale or removed")
+                    .register(meterRegistry);
+            Gauge.builder("s3.client.cache.size", clients, Map::size)
+                    .tag("type", type)
+                    .description("Number of S3 clients currently held by the registry")
+                    .register(meterRegistry);
+        }
+
+        Lease<T> lease(S3Credential credential) {
+            CachedClient<T> cached = clients.get(credential.getId());
+            if (cached != null && cached.matches(credential) && cached.acquire()) {
+                hits.increment();
+                return new Lease<>(cached.client, () -> release(cached, true));
+            }
+
+            while (true) {
+                List<CachedClient<T>> replaced = new ArrayList<>(1);
+                CachedClient<T> current = clients.compute(credential.getId(), (id, existing) -> {
+                    if (existing != null && existing.matches(credential)) {
+                        return existing;
+                    }
+                    if (existing != null) {
+                        replaced.add(existing);
+                    }
+                    misses.increment();
+                    log.debug("Building {} S3 client for credential: {} (version {})",
+                            type, credential.getId(), credential.getVersion());
+                    return new CachedClient<>(credential.getVersion(), factory.apply(credential));
+                });
+
+                replaced.forEach(this::retire);
+                // Evicted between compute and acquire, so build or find the next one
+                if (current.acquire()) {
+                    if (clients.size() > maxSize) {
+                        evictLeastRecentlyUsed();
+                    }
+                    return new Lease<>(current.client, () -> release(current, true));
+                }
+            }
+        }
+
+        /**
+         * @return a lease on the cached client, or {@code null} if there is none; the idle
+         *         time of the entry is left alone
+         */
+        Lease<T> peek(S3Credential credential) {
+            CachedClient<T> cached = clients.get(credential.getId());
+            if (cached != null && cached.matches(credential) && cached.acquire(false)) {
+                return new Lease<>(cached.client, () -> release(cached, false));
+            }
+            return null;
+        }
+
+        void invalidate(UUID credentialId) {
+            CachedClient<T> removed = clients.remove(credentialId);
+            if (removed != null) {
+                log.debug("Invalidated {} S3 client for credential: {}", type, credentialId);
+                retire(removed);
+            }
+        }
+
+        void evictIdle(long threshold) {
+            clients.forEach((id, cached) -> {
+                if (!cached.inUse() && cached.lastAccess - threshold < 0 && clients.remove(id, cached)) {
+                    log.debug("Evicting idle {} S3 client for credential: {}", type, id);
+                    retire(cached);
+                }
+            });
+        }
+
+        void clear() {
+            clients.keySet().forEach(this::invalidate);
+        }
+
+        private void evictLeastRecentlyUsed() {
+            // Clients that are in use are only closed once released, so prefer those that aren't
+            clients.entrySet().stream()
+                    .min(Comparator.<Map.Entry<UUID, CachedClient<T>>, Boolean>comparing(
+                                    entry -> entry.getValue().inUse())
+                            .thenComparingLong(entry -> entry.getValue().lastAccess))
+                    .ifPresent(entry -> {
+                        if (clients.remove(entry.getKey(), entry.getValue())) {
+                            retire(entry.getValue());
+                        }
+                    });
+        }
+
+        private void release(CachedClient<T> cached, boolean touch) {
+            if (cached.release(touch)) {
+                close(cached);
+            }
+        }
+
+        private void retire(CachedClient<T> cached) {
+            if (cached.retire()) {
+                close(cached);
+            }
+        }
+
+        private void close(CachedClient<T> cached) {
+            evictions.increment();
+            try {
+                cached.client.close();
+            } catch (Exception e) {
+                log.warn("Failed to close {} S3 client: {}", type, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A client handed out by the registry, to be closed once the caller is done with it.
+     * Streams and other work that outlive the call that obtained the client must hold on
+     * to the lease until they finish.
+     */
+    public static final class Lease<T> implements AutoCloseable {
+        private final T client;
+        private final Runnable release;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(T client, Runnable release) {
+            this.client = client;
+            this.release = release;
+        }
+
+        public T client() {
+            return client;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release.run();
+            }
+        }
+    }
+
+    private static class CachedClient<T> {
+        final Long version;
+        final T client;
+        volatile long lastAccess = System.nanoTime();
+        volatile boolean retired;
+        // Number of open leases, or -1 once the client has been closed
+        private final AtomicInteger leases = new AtomicInteger();
+
+        CachedClient(Long version, T client) {
+            this.version = version;
+            this.client = client;
+        }
+
+        boolean matches(S3Credential credential) {
+            return Objects.equals(version, credential.getVersion());
+        }
+
+        boolean acquire() {
+            return acquire(true);
+        }
+
+        /**
+         * @return {@code false} if the client has already been closed
+         */
+        boolean acquire(boolean touch) {
+            int count;
+            do {
+                count = leases.get();
+                if (count < 0) {
+                    return false;
+                }
+            } while (!leases.compareAndSet(count, count + 1));
+            if (touch) {
+                lastAccess = System.nanoTime();
+            }
+            return true;
+        }
+
+        /**
+         * @return {@code true} if this was the last lease on a retired client, which must now be closed
+         */
+        boolean release(boolean touch) {
+            // Long-running holders count as use until they are done
+            if (touch) {
+                lastAccess = System.nanoTime();
+            }
+            return leases.decrementAndGet() == 0 && retired && leases.compareAndSet(0, -1);
+        }
+
+        /**
+         * Marks the client as no longer cached. Called once it has been removed from the map.
+         *
+         * @return {@code true} if no lease is open and the client must now be closed
+         */
+        boolean retire() {
+            retired = true;
+            return leases.compareAndSet(0, -1);
+        }
+
+        boolean inUse() {
+            return leases.get() > 0;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.s3manager.service;
 
+import com.s3manager.config.S3HttpMetricPublisher;
 import com.s3manager.domain.entity.S3Credential;
 import com.s3manager.domain.entity.User;
+import com.s3manager.domain.event.CredentialChangedEvent;
 import com.s3manager.dto.credential.*;
 import com.s3manager.exception.BadRequestException;
 import com.s3manager.exception.NotFoundException;
@@ -10,17 +12,23 @@ import com.s3manager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jasypt.encryption.StringEncryptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 
 import java.net.URI;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -34,6 +42,11 @@ public class S3CredentialService {
     private final UserRepository userRepository;
     private final StringEncryptor stringEncryptor;
     private final AuditService auditService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CredentialSecretCache secretCache;
+    private final SdkHttpClient s3HttpClient;
+    private final S3HttpMetricPublisher s3HttpMetricPublisher;
+    private final ObjectProvider<SdkAsyncHttpClient> s3AsyncHttpClient;
 
     @Transactional
     public S3CredentialResponse createCredential(String username, S3CredentialRequest request) {
@@ -46,9 +59,6 @@ public class S3CredentialService {
             throw new BadRequestException("Credential with this alias already exists");
         }
 
-        // Validate credentials
-        validateS3Credentials(request);
-
         // If this is set as default, clear other defaults
         if (Boolean.TRUE.equals(request.getIsDefault())) {
             credentialRepository.clearDefaultCredentials(user);
@@ -66,11 +76,12 @@ public class S3CredentialService {
                 .endpoint(request.getEndpoint())
                 .isDefault(request.getIsDefault())
                 .isActive(true)
-                .lastValidatedAt(LocalDateTime.now())
                 .build();
 
         credential = credentialRepository.save(credential);
 
+        eventPublisher.publishEvent(new CredentialChangedEvent(
+                credential.getId(), CredentialChangedEvent.ChangeType.CREATED));
         auditService.logCreateCredential(user, credential.getAlias());
 
         log.info("S3 credential created successfully: {} for user: {}",
@@ -135,9 +146,6 @@ public class S3CredentialService {
             throw new BadRequestException("Credential with this alias already exists");
         }
 
-        // Validate new credentials
-        validateS3Credentials(request);
-
         // If setting as default, clear other defaults
         if (Boolean.TRUE.equals(request.getIsDefault()) && !credential.getIsDefault()) {
             credentialRepository.clearDefaultCredentials(user);
@@ -150,10 +158,14 @@ public class S3CredentialService {
         credential.setRegion(request.getRegion());
         credential.setEndpoint(request.getEndpoint());
         credential.setIsDefault(request.getIsDefault());
-        credential.setLastValidatedAt(LocalDateTime.now());
+        // Health is unknown until the background validation for the new values has run
+        credential.setIsHealthy(null);
+        credential.setLastValidationError(null);
 
         credential = credentialRepository.save(credential);
 
+        eventPublisher.publishEvent(new CredentialChangedEvent(
+                credentialId, CredentialChangedEvent.ChangeType.UPDATED));
         auditService.logUpdateCredential(user, credential.getAlias());
 
         log.info("S3 credential updated successfully: {}", credentialId);
@@ -173,6 +185,8 @@ public class S3CredentialService {
         // Soft delete
         credentialRepository.softDelete(credentialId);
 
+        eventPublisher.publishEvent(new CredentialChangedEvent(
+                credentialId, CredentialChangedEvent.ChangeType.DELETED));
         auditService.logDeleteCredential(user, credential.getAlias());
 
         log.info("S3 credential deleted successfully: {}", credentialId);
@@ -194,87 +208,60 @@ public class S3CredentialService {
         log.info("Default credential set successfully: {}", credentialId);
     }
 
-    @Transactional
-    public CredentialValidationResponse validateCredential(String username, UUID credentialId) {
-        log.info("Validating S3 credential: {} for user: {}", credentialId, username);
+    public S3Client createS3Client(S3Credential credential) {
+        S3ClientBuilder s3Builder = S3Client.builder()
+                .httpClient(s3HttpClient)
+                .overrideConfiguration(o -> o.addMetricPublisher(s3HttpMetricPublisher))
+                .credentialsProvider(createCredentialsProvider(credential))
+                .region(Region.of(credential.getRegion()));
 
-        User user = getUserByUsername(username);
+        if (credential.getEndpoint() != null && !credential.getEndpoint().isEmpty()) {
+            s3Builder.endpointOverride(URI.create(credential.getEndpoint()));
+        }
 
-        S3Credential credential = credentialRepository.findByIdAndUser(credentialId, user)
-                .orElseThrow(() -> new NotFoundException("Credential not found"));
+        return s3Builder.build();
+    }
 
-        try {
-            // Test credentials by listing buckets
-            S3Client s3Client = createS3Client(credential);
-            s3Client.listBuckets();
-            s3Client.close();
-
-            // Update last validated timestamp
-            credential.setLastValidatedAt(LocalDateTime.now());
-            credentialRepository.save(credential);
-
-            auditService.logValidateCredential(user, credential.getAlias(), true);
-
-            return CredentialValidationResponse.builder()
-                    .valid(true)
-                    .message("Credentials are valid")
-                    .validatedAt(LocalDateTime.now())
-                    .build();
-
-        } catch (Exception e) {
-            log.error("Credential validation failed: {}", e.getMessage());
-            auditService.logValidateCredential(user, credential.getAlias(), false);
-
-            return CredentialValidationResponse.builder()
-                    .valid(false)
-                    .message("Validation failed: " + e.getMessage())
-                    .validatedAt(LocalDateTime.now())
-                    .build();
+    public S3AsyncClient createS3AsyncClient(S3Credential credential) {
+        SdkAsyncHttpClient asyncHttpClient = s3AsyncHttpClient.getIfAvailable();
+        if (asyncHttpClient == null) {
+            throw new IllegalStateException("Async S3 engine is not enabled (app.s3.engine=async)");
         }
-    }
 
-    private void validateS3Credentials(S3CredentialRequest request) {
-        try {
-            AwsBasicCredentials awsCreds = AwsBasicCredentials.create(
-                    request.getAccessKey(),
-                    request.getSecretKey()
-            );
+        S3AsyncClientBuilder s3Builder = S3AsyncClient.builder()
+                .httpClient(asyncHttpClient)
+                .overrideConfiguration(o -> o.addMetricPublisher(s3HttpMetricPublisher))
+                .credentialsProvider(createCredentialsProvider(credential))
+                .region(Region.of(credential.getRegion()));
 
-            S3ClientBuilder s3Builder = S3Client.builder()
-                    .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
-                    .region(Region.of(request.getRegion()));
+        if (credential.getEndpoint() != null && !credential.getEndpoint().isEmpty()) {
+            s3Builder.endpointOverride(URI.create(credential.getEndpoint()));
+        }
 
-            if (request.getEndpoint() != null && !request.getEndpoint().isEmpty()) {
-                s3Builder.endpointOverride(URI.create(request.getEndpoint()));
-            }
+        return s3Builder.build();
+    }
 
-            S3Client s3Client = s3Builder.build();
-            s3Client.listBuckets();
-            s3Client.close();
+    public S3Presigner createS3Presigner(S3Credential credential) {
+        S3Presigner.Builder presignerBuilder = S3Presigner.builder()
+                .credentialsProvider(createCredentialsProvider(credential))
+                .region(Region.of(credential.getRegion()));
 
-        } catch (Exception e) {
-            log.error("S3 credential validation failed: {}", e.getMessage());
-            throw new BadRequestException("Invalid S3 credentials: " + e.getMessage());
+        if (credential.getEndpoint() != null && !credential.getEndpoint().isEmpty()) {
+            presignerBuilder.endpointOverride(URI.create(credential.getEndpoint()));
         }
+
+        return presignerBuilder.build();
     }
 
-    public S3Client createS3Client(S3Credential credential) {
-        String decryptedSecretKey = stringEncryptor.decrypt(credential.getSecretKey());
+    private StaticCredentialsProvider createCredentialsProvider(S3Credential credential) {
+        String decryptedSecretKey = secretCache.getSecretKey(credential);
 
         AwsBasicCredentials awsCreds = AwsBasicCredentials.create(
                 credential.getAccessKey(),
                 decryptedSecretKey
         );
 
-        S3ClientBuilder s3Builder = S3Client.builder()
-                .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
-                .region(Region.of(credential.getRegion()));
-
-        if (credential.getEndpoint() != null && !credential.getEndpoint().isEmpty()) {
-            s3Builder.endpointOverride(URI.create(credential.getEndpoint()));
-        }
-
-        return s3Builder.build();
+        return StaticCredentialsProvider.create(awsCreds);
     }
 
     private User getUserByUsername(String username) {
@@ -293,6 +280,8 @@ public class S3CredentialService {
                 .isActive(credential.getIsActive())
                 .createdAt(credential.getCreatedAt())
                 .lastValidatedAt(credential.getLastValidatedAt())
+                .isHealthy(credential.getIsHealthy())
+                .lastValidationError(credential.getLastValidationError())
                 .build();
     }
 }
\ No newline at end of file
@@ -5,31 +5,67 @@ import com.s3manager.domain.entity.User;
 import com.s3manager.dto.s3.*;
 import com.s3manager.dto.s3.ListObjectsRequest;
 import com.s3manager.dto.s3.ListObjectsResponse;
+import com.s3manager.exception.BadRequestException;
+import com.s3manager.exception.NotModifiedException;
+import com.s3manager.exception.RangeNotSatisfiableException;
 import com.s3manager.exception.S3OperationException;
 import com.s3manager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.SdkHttpResponse;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class S3Service {
 
+    private static final String CONTENT_MD5_METADATA = "s3m-content-md5";
+
     private final S3CredentialService credentialService;
+    private final S3ClientRegistry clientRegistry;
+    private final ParallelDownloader parallelDownloader;
+    private final ObjectContentCache contentCache;
+    private final ObjectArchiver objectArchiver;
+    private final MultipartUploader multipartUploader;
+    private final BatchUploader batchUploader;
+    private final ObjectCompressor objectCompressor;
+    private final BulkDeleter bulkDeleter;
+    private final ObjectCopier objectCopier;
     private final UserRepository userRepository;
     private final AuditService auditService;
 
@@ -39,24 +75,29 @@ public class S3Service {
     @Value("${app.s3.max-upload-size}")
     private long maxUploadSize;
 
+    @Value("${app.s3.upload.checksums:true}")
+    private boolean uploadChecksums;
+
+    @Value("${app.s3.upload.batch.max-files:5000}")
+    private int maxBatchFiles;
+
+    @Value("${app.s3.download.buffer-size:65536}")
+    private int downloadBufferSize;
+
+    @Value("${app.s3.download.max-ranges:16}")
+    private int maxRanges;
+
     // ================== Bucket Operations ==================
 
     public List<BucketDTO> listBuckets(String username, UUID credentialId) {
         log.info("Listing buckets for user: {}", username);
 
         S3Credential credential = getCredential(username, credentialId);
-        S3Client s3Client = credentialService.createS3Client(credential);
-
-        try {
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
             ListBucketsResponse response = s3Client.listBuckets();
 
-            List<BucketDTO> buckets = response.buckets().stream()
-                    .map(bucket -> BucketDTO.builder()
-                            .name(bucket.name())
-                            .creationDate(bucket.creationDate())
-                            .region(credential.getRegion())
-                            .build())
-                    .collect(Collectors.toList());
+            List<BucketDTO> buckets = toBucketDTOs(response, credential);
 
             User user = getUser(username);
             auditService.logListBuckets(user, buckets.size());
@@ -67,8 +108,6 @@ public class S3Service {
         } catch (Exception e) {
             log.error("Failed to list buckets: {}", e.getMessage());
             throw new S3OperationException("Failed to list buckets: " + e.getMessage());
-        } finally {
-            s3Client.close();
         }
     }
 
@@ -76,9 +115,8 @@ public class S3Service {
         log.info("Creating bucket: {} for user: {}", bucketName, username);
 
         S3Credential credential = getCredential(username, credentialId);
-        S3Client s3Client = credentialService.createS3Client(credential);
-
-        try {
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
             CreateBucketRequest request = CreateBucketRequest.builder()
                     .bucket(bucketName)
                     .build();
@@ -93,8 +131,6 @@ public class S3Service {
         } catch (Exception e) {
             log.error("Failed to create bucket: {}", e.getMessage());
             throw new S3OperationException("Failed to create bucket: " + e.getMessage());
-        } finally {
-            s3Client.close();
         }
     }
 
@@ -102,9 +138,8 @@ public class S3Service {
         log.info("Deleting bucket: {} for user: {}", bucketName, username);
 
         S3Credential credential = getCredential(username, credentialId);
-        S3Client s3Client = credentialService.createS3Client(credential);
-
-        try {
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
             DeleteBucketRequest request = DeleteBucketRequest.builder()
                     .bucket(bucketName)
                     .build();
@@ -119,8 +154,6 @@ public class S3Service {
         } catch (Exception e) {
             log.error("Failed to delete bucket: {}", e.getMessage());
             throw new S3OperationException("Failed to delete bucket: " + e.getMessage());
-        } finally {
-            s3Client.close();
         }
     }
 
@@ -130,59 +163,18 @@ public class S3Service {
         log.info("Listing objects in bucket: {} for user: {}", request.getBucket(), username);
 
         S3Credential credential = getCredential(username, request.getCredentialId());
-        S3Client s3Client = credentialService.createS3Client(credential);
-
-        try {
-            ListObjectsV2Request.Builder listBuilder = ListObjectsV2Request.builder()
-                    .bucket(request.getBucket());
-
-            if (request.getPrefix() != null) {
-                listBuilder.prefix(request.getPrefix());
-            }
-            if (request.getDelimiter() != null) {
-                listBuilder.delimiter(request.getDelimiter());
-            }
-            if (request.getMaxKeys() != null) {
-                listBuilder.maxKeys(request.getMaxKeys());
-            }
-            if (request.getContinuationToken() != null) {
-                listBuilder.continuationToken(request.getContinuationToken());
-            }
-
-            ListObjectsV2Response response = s3Client.listObjectsV2(listBuilder.build());
-
-            List<S3ObjectDTO> objects = response.contents().stream()
-                    .map(s3Object -> S3ObjectDTO.builder()
-                            .key(s3Object.key())
-                            .bucket(request.getBucket())
-                            .size(s3Object.size())
-                            .lastModified(s3Object.lastModified())
-                            .eTag(s3Object.eTag())
-                            .storageClass(s3Object.storageClassAsString())
-                            .isFolder(s3Object.key().endsWith("/"))
-                            .build())
-                    .collect(Collectors.toList());
-
-            List<String> commonPrefixes = response.commonPrefixes().stream()
-                    .map(CommonPrefix::prefix)
-                    .collect(Collectors.toList());
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            ListObjectsV2Response response = s3Client.listObjectsV2(buildListObjectsRequest(request));
 
             User user = getUser(username);
             auditService.logListObjects(user, request.getBucket());
 
-            return ListObjectsResponse.builder()
-                    .objects(objects)
-                    .commonPrefixes(commonPrefixes)
-                    .nextContinuationToken(response.nextContinuationToken())
-                    .isTruncated(response.isTruncated())
-                    .keyCount(response.keyCount())
-                    .build();
+            return toListObjectsResponse(request.getBucket(), response);
 
         } catch (Exception e) {
             log.error("Failed to list objects: {}", e.getMessage());
             throw new S3OperationException("Failed to list objects: " + e.getMessage());
-        } finally {
-            s3Client.close();
         }
     }
 
@@ -192,6 +184,23 @@ public class S3Service {
             String key,
             MultipartFile file,
             UUID credentialId) {
+        return uploadObject(username, bucket, key, file, credentialId, new UploadOptions());
+    }
+
+    /**
+     * Uploads a file, compressing it on the way when the options name a codec or the bucket
+     * or content type is configured for it (see {@link ObjectCompressor}). The content's MD5
+     * and CRC32C are computed as it is read; a client-supplied MD5 is verified against them
+     * before the object is committed. With {@code skipIfUnchanged}, the existing object is
+     * checked first and nothing is transferred if it already holds the same content.
+     */
+    public UploadResponse uploadObject(
+            String username,
+            String bucket,
+            String key,
+            MultipartFile file,
+            UUID credentialId,
+            UploadOptions options) {
 
         log.info("Uploading object: {} to bucket: {} for user: {}", key, bucket, username);
 
@@ -199,82 +208,459 @@ public class S3Service {
             throw new S3OperationException("File size exceeds maximum allowed size");
         }
 
+        CompressionCodec codec = objectCompressor.resolve(
+                options.getCompression(), bucket, file.getContentType(), file.getSize());
+        String expectedMd5 = parseContentMd5(options.getContentMd5());
+
         S3Credential credential = getCredential(username, credentialId);
-        S3Client s3Client = credentialService.createS3Client(credential);
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            // Read up front only when the checksum is needed before the transfer starts;
+            // the file is already local, so this is cheap next to the upload itself
+            ContentChecksum precomputed = null;
+            boolean singlePut = codec == null && !multipartUploader.shouldUse(file.getSize());
+            if (singlePut || (options.isSkipIfUnchanged() && expectedMd5 == null)) {
+                try (InputStream in = file.getInputStream()) {
+                    precomputed = ContentChecksum.of(in, downloadBufferSize);
+                }
+                verifyContentMd5(precomputed, expectedMd5);
+                expectedMd5 = precomputed.md5Hex();
+            }
 
-        try {
-            PutObjectRequest.Builder putBuilder = PutObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .contentType(file.getContentType());
+            if (options.isSkipIfUnchanged()) {
+                Optional<HeadObjectResponse> unchanged = findUnchanged(s3Client, bucket, key,
+                        file.getSize(), expectedMd5, options.getChecksumCrc32c());
+                if (unchanged.isPresent()) {
+                    log.info("Object {} is unchanged, skipping upload", key);
+                    return toSkippedResponse(bucket, key, file.getSize(), expectedMd5, unchanged.get());
+                }
+            }
 
-            PutObjectResponse response = s3Client.putObject(
-                    putBuilder.build(),
-                    RequestBody.fromInputStream(file.getInputStream(), file.getSize())
-            );
+            Map<String, String> metadata = new HashMap<>();
+            if (expectedMd5 != null) {
+                metadata.put(CONTENT_MD5_METADATA, expectedMd5);
+            }
+
+            String eTag;
+            String versionId;
+            String contentMd5;
+            Long storedSize = null;
+
+            if (codec != null) {
+                // The compressed size is only known at the end, so always stream
+                metadata.putAll(objectCompressor.metadata(codec, file.getSize()));
+                CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(file.getContentType())
+                        .contentEncoding(codec.getEncoding())
+                        .metadata(metadata)
+                        .build();
+
+                ContentChecksum checksum = new ContentChecksum();
+                try (InputStream in = file.getInputStream()) {
+                    MultipartUploader.Result result = compressedUpload(
+                            s3Client, createRequest, checksum.wrap(in), codec, file.getSize(), checksum, expectedMd5);
+                    eTag = result.getETag();
+                    versionId = result.getVersionId();
+                    storedSize = result.getSize();
+                }
+                contentMd5 = checksum.md5Hex();
+            } else if (!singlePut) {
+                CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(file.getContentType())
+                        .metadata(metadata)
+                        .build();
+
+                ContentChecksum checksum = new ContentChecksum();
+                try (InputStream in = file.getInputStream()) {
+                    MultipartUploader.Result result = streamUpload(
+                            s3Client, createRequest, checksum.wrap(in), file.getSize(), checksum, expectedMd5);
+                    eTag = result.getETag();
+                    versionId = result.getVersionId();
+                }
+                contentMd5 = checksum.md5Hex();
+            } else {
+                PutObjectRequest.Builder putBuilder = PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(file.getContentType())
+                        .metadata(metadata)
+                        .contentMD5(precomputed.md5Base64());
+
+                if (uploadChecksums) {
+                    putBuilder.checksumCRC32C(precomputed.crc32cBase64());
+                }
+
+                PutObjectResponse response = s3Client.putObject(
+                        putBuilder.build(),
+                        RequestBody.fromInputStream(file.getInputStream(), file.getSize())
+                );
+                eTag = response.eTag();
+                versionId = response.versionId();
+                contentMd5 = precomputed.md5Hex();
+            }
+
+            contentCache.invalidate(credential.getId(), bucket, key);
 
             User user = getUser(username);
             auditService.logUploadObject(user, bucket, key);
 
-            log.info("Object uploaded successfully: {}", key);
+            if (codec != null) {
+                log.info("Object uploaded successfully: {} ({} compressed to {} bytes with {})",
+                        key, file.getSize(), storedSize, codec.getEncoding());
+            } else {
+                log.info("Object uploaded successfully: {}", key);
+            }
 
             return UploadResponse.builder()
                     .key(key)
                     .bucket(bucket)
-                    .eTag(response.eTag())
-                    .versionId(response.versionId())
+                    .eTag(eTag)
+                    .versionId(versionId)
                     .size(file.getSize())
+                    .compression(codec != null ? codec.getEncoding() : null)
+                    .storedSize(storedSize)
+                    .contentMd5(contentMd5)
                     .build();
 
+        } catch (BadRequestException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to upload object: {}", e.getMessage());
             throw new S3OperationException("Failed to upload object: " + e.getMessage());
-        } finally {
-            s3Client.close();
         }
     }
 
-    public byte[] downloadObject(String username, String bucket, String key, UUID credentialId) {
-        log.info("Downloading object: {} from bucket: {} for user: {}", key, bucket, username);
+    /**
+     * Uploads a raw request body without spooling it to disk first. A body of known length
+     * below the multipart threshold goes out as a single streaming PUT; anything larger, or
+     * of unknown length, is cut into parts as it arrives. {@code app.s3.max-upload-size} is
+     * enforced on the bytes actually read, not only on the announced length. As the body
+     * cannot be read twice, {@code skipIfUnchanged} needs the client to supply a checksum.
+     *
+     * @param contentLength the body length, or a negative value if unknown (chunked)
+     */
+    public UploadResponse uploadStream(
+            String username,
+            String bucket,
+            String key,
+            InputStream body,
+            long contentLength,
+            String contentType,
+            UUID credentialId,
+            UploadOptions options) {
+
+        log.info("Streaming upload of object: {} to bucket: {} for user: {}", key, bucket, username);
+
+        if (contentLength > maxUploadSize) {
+            throw new MaxUploadSizeExceededException(maxUploadSize);
+        }
+
+        String expectedMd5 = parseContentMd5(options.getContentMd5());
+        if (options.isSkipIfUnchanged() && expectedMd5 == null && options.getChecksumCrc32c() == null) {
+            throw new BadRequestException("skipIfUnchanged requires a Content-MD5 or CRC32C checksum");
+        }
 
         S3Credential credential = getCredential(username, credentialId);
-        S3Client s3Client = credentialService.createS3Client(credential);
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            if (options.isSkipIfUnchanged()) {
+                Optional<HeadObjectResponse> unchanged = findUnchanged(s3Client, bucket, key,
+                        contentLength, expectedMd5, options.getChecksumCrc32c());
+                if (unchanged.isPresent()) {
+                    log.info("Object {} is unchanged, skipping upload", key);
+                    return toSkippedResponse(bucket, key, contentLength, expectedMd5, unchanged.get());
+                }
+            }
 
-        try {
-            GetObjectRequest request = GetObjectRequest.builder()
-                    .bucket(bucket)
+            Map<String, String> metadata = new HashMap<>();
+            if (expectedMd5 != null) {
+                metadata.put(CONTENT_MD5_METADATA, expectedMd5);
+            }
+
+            ContentChecksum checksum = new ContentChecksum();
+            String eTag;
+            String versionId;
+            long size;
+
+            if (contentLength >= 0 && !multipartUploader.shouldUse(contentLength)) {
+                // S3 checks a supplied Content-MD5 itself, so a mismatch fails the PUT
+                PutObjectResponse response = s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .contentType(contentType)
+                                .metadata(metadata)
+                                .contentMD5(expectedMd5 != null
+                                        ? Base64.getEncoder().encodeToString(HexFormat.of().parseHex(expectedMd5))
+                                        : null)
+                                .build(),
+                        RequestBody.fromInputStream(checksum.wrap(body), contentLength));
+                eTag = response.eTag();
+                versionId = response.versionId();
+                size = contentLength;
+            } else {
+                CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(contentType)
+                        .metadata(metadata)
+                        .build();
+
+                MultipartUploader.Result result = streamUpload(s3Client, createRequest, checksum.wrap(body),
+                        contentLength >= 0 ? contentLength : maxUploadSize, checksum, expectedMd5);
+                eTag = result.getETag();
+                versionId = result.getVersionId();
+                size = result.getSize();
+            }
+
+            contentCache.invalidate(credential.getId(), bucket, key);
+
+            User user = getUser(username);
+            auditService.logUploadObject(user, bucket, key);
+
+            log.info("Object streamed successfully: {} ({} bytes)", key, size);
+
+            return UploadResponse.builder()
                     .key(key)
+                    .bucket(bucket)
+                    .eTag(eTag)
+                    .versionId(versionId)
+                    .size(size)
+                    .contentMd5(checksum.md5Hex())
                     .build();
 
-            byte[] data = s3Client.getObjectAsBytes(request).asByteArray();
+        } catch (MaxUploadSizeExceededException | BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to upload object: {}", e.getMessage());
+            throw new S3OperationException("Failed to upload object: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uploads many files from one multipart request, with a bounded number of puts in
+     * flight. Each file gets its own result, and failures do not stop the batch.
+     */
+    public BatchUploadResponse uploadObjects(
+            String username,
+            String bucket,
+            String prefix,
+            List<MultipartFile> files,
+            UUID credentialId) {
+
+        log.info("Batch uploading {} objects to bucket: {} for user: {}", files.size(), bucket, username);
+
+        if (files.size() > maxBatchFiles) {
+            throw new BadRequestException("At most " + maxBatchFiles + " files can be uploaded per request");
+        }
+
+        S3Credential credential = getCredential(username, credentialId);
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            List<BatchUploadResult> results = batchUploader.uploadFiles(
+                    s3Client, bucket, toKeyPrefix(prefix), files, maxUploadSize);
+            return toBatchUploadResponse(username, credential, bucket, results);
+
+        } catch (Exception e) {
+            log.error("Failed to upload objects: {}", e.getMessage());
+            throw new S3OperationException("Failed to upload objects: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unpacks a TAR stream into the bucket as it arrives, one object per regular file.
+     */
+    public BatchUploadResponse uploadTar(
+            String username,
+            String bucket,
+            String prefix,
+            InputStream body,
+            UUID credentialId) {
+
+        log.info("Uploading TAR stream to bucket: {} for user: {}", bucket, username);
+
+        S3Credential credential = getCredential(username, credentialId);
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            List<BatchUploadResult> results = batchUploader.uploadTar(
+                    s3Client, bucket, toKeyPrefix(prefix), body, maxUploadSize);
+            return toBatchUploadResponse(username, credential, bucket, results);
+
+        } catch (Exception e) {
+            log.error("Failed to upload TAR stream: {}", e.getMessage());
+            throw new S3OperationException("Failed to upload TAR stream: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a download of the whole object, or of the requested byte ranges. A single
+     * range is passed straight through to S3; multiple ranges are fetched one after the
+     * other and written as a {@code multipart/byteranges} body. Large whole-object
+     * downloads can be split into concurrent ranged GETs by {@link ParallelDownloader},
+     * and are served from {@link ObjectContentCache} when a cached copy is still current.
+     * Objects stored compressed are sent encoded when the client accepts the codec, and
+     * are decompressed while streaming otherwise; ranges are ignored for them.
+     */
+    public ObjectDownload downloadObject(String username, DownloadRequest request) {
+        String bucket = request.getBucket();
+        String key = request.getKey();
+        List<HttpRange> ranges = request.getRanges();
+
+        log.info("Downloading object: {} from bucket: {} for user: {}", key, bucket, username);
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential);
+        S3Client s3Client = lease.client();
+        boolean started = false;
+
+        try {
+            ObjectDownload download = null;
+
+            if (ranges.size() > 1 && ranges.size() <= maxRanges) {
+                download = openMultiRangeDownload(s3Client, request);
+            } else if (ranges.isEmpty() && (contentCache.isEnabled() || wantsParallel(request))) {
+                download = openWholeObjectDownload(s3Client, credential.getId(), request);
+            }
+
+            if (download == null) {
+                GetObjectRequest.Builder getRequest = GetObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .ifNoneMatch(ObjectCompressor.storedETags(request.getIfNoneMatch()))
+                        .ifModifiedSince(request.getIfModifiedSince());
+
+                if (ranges.size() == 1) {
+                    getRequest.range(HttpRange.toString(ranges));
+                }
+
+                ResponseInputStream<GetObjectResponse> stream = s3Client.getObject(getRequest.build());
+                CompressionCodec codec = objectCompressor.codecOf(stream.response().metadata());
+
+                if (codec != null && ranges.size() == 1) {
+                    // The range addresses the compressed bytes, so serve the whole object instead
+                    stream.abort();
+                    stream = s3Client.getObject(getRequest.range(null).build());
+                    codec = objectCompressor.codecOf(stream.response().metadata());
+                }
+
+                if (codec != null && objectCompressor.accepts(request.getAcceptEncoding(), codec)) {
+                    download = withEncoding(toObjectDownload(bucket, key, stream), codec);
+                } else {
+                    download = toObjectDownload(bucket, key, stream, codec);
+                }
+            }
 
             User user = getUser(username);
             auditService.logDownloadObject(user, bucket, key);
 
-            log.info("Object downloaded successfully: {}", key);
-            return data;
-
+            log.info("Object download started: {}", key);
+            ObjectDownload leased = holding(download, lease);
+            started = true;
+            return leased;
+
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                NotModifiedException notModified = toNotModified(e);
+                if (ObjectCompressor.containsDecodedETag(request.getIfNoneMatch())) {
+                    // The client revalidated the decoded representation, so echo its ETag
+                    throw new NotModifiedException(
+                            ObjectCompressor.decodedETag(notModified.getETag()), notModified.getLastModified());
+                }
+                throw notModified;
+            }
+            if (e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                throw new RangeNotSatisfiableException("Requested range not satisfiable",
+                        headObjectSize(s3Client, bucket, key));
+            }
+            log.error("Failed to download object: {}", e.getMessage());
+            throw new S3OperationException("Failed to download object: " + e.getMessage());
+        } catch (RangeNotSatisfiableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to download object: {}", e.getMessage());
             throw new S3OperationException("Failed to download object: " + e.getMessage());
         } finally {
-            s3Client.close();
+            if (!started) {
+                lease.close();
+            }
         }
     }
 
+    // The client must stay open until the body has been written
+    private static ObjectDownload holding(ObjectDownload download, S3ClientRegistry.Lease<?> lease) {
+        return download.toBuilder()
+                .resource(() -> {
+                    try (lease) {
+                        download.close();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Opens a ZIP or TAR archive of either the listed keys or everything under a prefix.
+     * Objects are fetched and written one after the other while the archive streams, and
+     * the whole archive is audited as a single download once it has been written.
+     */
+    public ObjectDownload downloadArchive(String username, ArchiveRequest request) {
+        String bucket = request.getBucket();
+        boolean byPrefix = request.getKeys() == null || request.getKeys().isEmpty();
+
+        log.info("Downloading {} archive of {} from bucket: {} for user: {}", request.getFormat(),
+                byPrefix ? "prefix " + request.getPrefix() : request.getKeys().size() + " keys",
+                bucket, username);
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        User user = getUser(username);
+        S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential);
+        S3Client s3Client = lease.client();
+
+        Iterator<String> keys;
+        ObjectArchiver.EntryNamer entryNames;
+
+        if (byPrefix) {
+            String prefix = request.getPrefix();
+            String base = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+
+            keys = streamKeys(s3Client, bucket, prefix)
+                    .filter(key -> !key.endsWith("/"))
+                    .iterator();
+            entryNames = key -> key.substring(base.length());
+        } else {
+            keys = request.getKeys().iterator();
+            entryNames = key -> StringUtils.stripStart(key, "/");
+        }
+
+        return ObjectDownload.builder()
+                .bucket(bucket)
+                .key(archiveName(bucket, request))
+                .contentType(request.getFormat().getContentType())
+                .body(out -> {
+                    int count = objectArchiver.write(
+                            s3Client, bucket, keys, entryNames, request.getFormat(), out);
+                    auditService.logDownloadArchive(user, bucket, request.getPrefix(), count);
+                    log.info("Archive of {} objects from bucket {} completed", count, bucket);
+                })
+                .resource(lease::close)
+                .build();
+    }
+
     public void deleteObject(String username, String bucket, String key, UUID credentialId) {
         log.info("Deleting object: {} from bucket: {} for user: {}", key, bucket, username);
 
         S3Credential credential = getCredential(username, credentialId);
-        S3Client s3Client = credentialService.createS3Client(credential);
-
-        try {
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
             DeleteObjectRequest request = DeleteObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .build();
 
             s3Client.deleteObject(request);
+            contentCache.invalidate(credential.getId(), bucket, key);
 
             User user = getUser(username);
             auditService.logDeleteObject(user, bucket, key);
@@ -284,8 +670,68 @@ public class S3Service {
         } catch (Exception e) {
             log.error("Failed to delete object: {}", e.getMessage());
             throw new S3OperationException("Failed to delete object: " + e.getMessage());
-        } finally {
-            s3Client.close();
+        }
+    }
+
+    /**
+     * Deletes a list of keys, or everything under a prefix, with batched
+     * {@code DeleteObjects} calls (see {@link BulkDeleter}). A prefix is listed page by page
+     * while the keys already listed are being deleted. The whole operation is audited as a
+     * single entry.
+     */
+    public BulkDeleteResponse deleteObjects(String username, BulkDeleteRequest request) {
+        return deleteObjects(username, request, ProgressListener.NONE);
+    }
+
+    public BulkDeleteResponse deleteObjects(
+            String username, BulkDeleteRequest request, ProgressListener progress) {
+        String bucket = request.getBucket();
+        boolean byPrefix = request.getKeys() == null || request.getKeys().isEmpty();
+
+        log.info("Bulk deleting {} from bucket: {} for user: {}",
+                byPrefix ? "prefix " + request.getPrefix() : request.getKeys().size() + " keys",
+                bucket, username);
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            Iterator<String> keys = byPrefix
+                    ? streamKeys(s3Client, bucket, request.getPrefix()).iterator()
+                    : request.getKeys().iterator();
+
+            AtomicLong deleted = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            BulkDeleter.Result result = bulkDeleter.delete(s3Client, bucket, keys, new BulkDeleter.Listener() {
+                @Override
+                public void onBatch(List<String> deletedKeys, List<KeyError> errors) {
+                    deletedKeys.forEach(key -> contentCache.invalidate(credential.getId(), bucket, key));
+                    progress.onProgress(deleted.addAndGet(deletedKeys.size()),
+                            failed.addAndGet(errors.size()), null);
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return progress.isCancelled();
+                }
+            });
+
+            User user = getUser(username);
+            auditService.logDeleteObjects(user, bucket, byPrefix ? request.getPrefix() : null,
+                    result.getDeleted(), result.getFailed());
+
+            log.info("Bulk delete from {} finished: {} deleted, {} failed",
+                    bucket, result.getDeleted(), result.getFailed());
+
+            return BulkDeleteResponse.builder()
+                    .bucket(bucket)
+                    .deleted(result.getDeleted())
+                    .failed(result.getFailed())
+                    .errors(result.getErrors())
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Failed to delete objects: {}", e.getMessage());
+            throw new S3OperationException("Failed to delete objects: " + e.getMessage());
         }
     }
 
@@ -294,18 +740,15 @@ public class S3Service {
                 request.getSourceBucket(), request.getSourceKey(),
                 request.getDestinationBucket(), request.getDestinationKey(), username);
 
-        S3Credential credential = getCredential(username, request.getCredentialId());
-        S3Client s3Client = credentialService.createS3Client(credential);
-
-        try {
-            CopyObjectRequest copyRequest = CopyObjectRequest.builder()
-                    .sourceBucket(request.getSourceBucket())
-                    .sourceKey(request.getSourceKey())
-                    .destinationBucket(request.getDestinationBucket())
-                    .destinationKey(request.getDestinationKey())
-                    .build();
+        requireDistinctObjects(request);
 
-            s3Client.copyObject(copyRequest);
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            objectCopier.copy(s3Client, request.getSourceBucket(), request.getSourceKey(),
+                    request.getDestinationBucket(), request.getDestinationKey());
+            contentCache.invalidate(credential.getId(),
+                    request.getDestinationBucket(), request.getDestinationKey());
 
             User user = getUser(username);
             auditService.logCopyObject(user, request.getSourceBucket(), request.getSourceKey());
@@ -315,8 +758,6 @@ public class S3Service {
         } catch (Exception e) {
             log.error("Failed to copy object: {}", e.getMessage());
             throw new S3OperationException("Failed to copy object: " + e.getMessage());
-        } finally {
-            s3Client.close();
         }
     }
 
@@ -325,17 +766,131 @@ public class S3Service {
                 request.getSourceBucket(), request.getSourceKey(),
                 request.getDestinationBucket(), request.getDestinationKey(), username);
 
-        // Copy first
-        copyObject(username, request);
+        requireDistinctObjects(request);
 
-        // Then delete source
-        deleteObject(username, request.getSourceBucket(),
-                request.getSourceKey(), request.getCredentialId());
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            objectCopier.copy(s3Client, request.getSourceBucket(), request.getSourceKey(),
+                    request.getDestinationBucket(), request.getDestinationKey());
+
+            // The source only goes once the copy is known to be there
+            s3Client.deleteObject(DeleteObjectRequest.builder()
+                    .bucket(request.getSourceBucket())
+                    .key(request.getSourceKey())
+                    .build());
+
+            contentCache.invalidate(credential.getId(),
+                    request.getDestinationBucket(), request.getDestinationKey());
+            contentCache.invalidate(credential.getId(),
+                    request.getSourceBucket(), request.getSourceKey());
 
-        User user = getUser(username);
-        auditService.logMoveObject(user, request.getSourceBucket(), request.getSourceKey());
+            User user = getUser(username);
+            auditService.logMoveObject(user, request.getSourceBucket(), request.getSourceKey());
 
-        log.info("Object moved successfully");
+            log.info("Object moved successfully");
+
+        } catch (Exception e) {
+            log.error("Failed to move object: {}", e.getMessage());
+            throw new S3OperationException("Failed to move object: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Copies, moves or renames everything under a prefix with parallel server-side copies
+     * (see {@link ObjectCopier}). Sources of a move are deleted in batches once their copies
+     * have succeeded. A run that did not complete returns a checkpoint; sending it back as
+     * {@code startAfter} picks up where it stopped. The whole operation is audited as a
+     * single entry.
+     */
+    public PrefixTransferResponse transferPrefix(
+            String username, PrefixTransferRequest request, PrefixOperation operation) {
+        return transferPrefix(username, request, operation, ProgressListener.NONE);
+    }
+
+    public PrefixTransferResponse transferPrefix(String username, PrefixTransferRequest request,
+                                                 PrefixOperation operation, ProgressListener progress) {
+
+        validatePrefixTransfer(request, operation);
+
+        String sourceBucket = request.getSourceBucket();
+        String sourcePrefix = toKeyPrefix(request.getSourcePrefix());
+        String destinationBucket = StringUtils.defaultIfBlank(request.getDestinationBucket(), sourceBucket);
+        String destinationPrefix = toKeyPrefix(request.getDestinationPrefix());
+
+        log.info("{} prefix {}:{} to {}:{} for user: {}", operation, sourceBucket, sourcePrefix,
+                destinationBucket, destinationPrefix, username);
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        boolean move = operation != PrefixOperation.COPY;
+
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            String startAfter = StringUtils.trimToNull(request.getStartAfter());
+            AtomicLong copied = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            AtomicReference<String> checkpoint = new AtomicReference<>(startAfter);
+
+            ObjectCopier.Result result = objectCopier.copyPrefix(s3Client,
+                    sourceBucket, sourcePrefix, destinationBucket, destinationPrefix,
+                    startAfter, move, new ObjectCopier.Listener() {
+                        @Override
+                        public void onCopied(String sourceKey, String destinationKey) {
+                            contentCache.invalidate(credential.getId(), destinationBucket, destinationKey);
+                            if (move) {
+                                contentCache.invalidate(credential.getId(), sourceBucket, sourceKey);
+                            }
+                            progress.onProgress(copied.incrementAndGet(), failed.get(), checkpoint.get());
+                        }
+
+                        @Override
+                        public void onFailed(KeyError error) {
+                            progress.onProgress(copied.get(), failed.incrementAndGet(), checkpoint.get());
+                        }
+
+                        @Override
+                        public void onCheckpoint(String key) {
+                            checkpoint.set(key);
+                        }
+
+                        @Override
+                        public boolean isCancelled() {
+                            return progress.isCancelled();
+                        }
+                    });
+
+            User user = getUser(username);
+            String destination = destinationBucket + ":" + destinationPrefix;
+            switch (operation) {
+                case COPY -> auditService.logCopyPrefix(user, sourceBucket, sourcePrefix,
+                        destination, result.getCopied(), result.getFailed());
+                case MOVE -> auditService.logMovePrefix(user, sourceBucket, sourcePrefix,
+                        destination, result.getDeleted(), result.getFailed());
+                case RENAME -> auditService.logRenamePrefix(user, sourceBucket, sourcePrefix,
+                        destination, result.getDeleted(), result.getFailed());
+            }
+
+            log.info("{} of prefix {}:{} finished: {} copied, {} deleted, {} failed", operation,
+                    sourceBucket, sourcePrefix, result.getCopied(), result.getDeleted(), result.getFailed());
+
+            return PrefixTransferResponse.builder()
+                    .sourceBucket(sourceBucket)
+                    .sourcePrefix(sourcePrefix)
+                    .destinationBucket(destinationBucket)
+                    .destinationPrefix(destinationPrefix)
+                    .copied(result.getCopied())
+                    .deleted(result.getDeleted())
+                    .failed(result.getFailed())
+                    .errors(result.getErrors())
+                    .completed(result.isCompleted())
+                    .checkpoint(result.getCheckpoint())
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Failed to {} prefix: {}", operation.name().toLowerCase(), e.getMessage());
+            throw new S3OperationException(
+                    "Failed to " + operation.name().toLowerCase() + " prefix: " + e.getMessage());
+        }
     }
 
     public PresignedUrlResponse generatePresignedUrl(
@@ -347,37 +902,16 @@ public class S3Service {
 
         S3Credential credential = getCredential(username, request.getCredentialId());
 
-        try {
-            S3Presigner presigner = S3Presigner.create();
-
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(request.getBucket())
-                    .key(request.getKey())
-                    .build();
-
-            Duration duration = Duration.ofSeconds(
-                    request.getExpirationSeconds() != null ?
-                            request.getExpirationSeconds() : presignedUrlExpiration
-            );
-
-            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                    .signatureDuration(duration)
-                    .getObjectRequest(getObjectRequest)
-                    .build();
+        try (S3ClientRegistry.Lease<S3Presigner> lease = clientRegistry.leasePresigner(credential)) {
+            S3Presigner presigner = lease.client();
 
-            PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
+            PresignedUrlResponse response = presignGetObject(presigner, request.getBucket(),
+                    request.getKey(), resolvePresignDuration(request.getExpirationSeconds()));
 
             User user = getUser(username);
             auditService.logGeneratePresignedUrl(user, request.getBucket(), request.getKey());
 
-            presigner.close();
-
-            return PresignedUrlResponse.builder()
-                    .url(presignedRequest.url().toString())
-                    .expiresAt(Instant.now().plus(duration))
-                    .key(request.getKey())
-                    .bucket(request.getBucket())
-                    .build();
+            return response;
 
         } catch (Exception e) {
             log.error("Failed to generate presigned URL: {}", e.getMessage());
@@ -385,41 +919,646 @@ public class S3Service {
         }
     }
 
+    public List<PresignedUrlResponse> generatePresignedUrls(
+            String username,
+            BatchPresignedUrlRequest request) {
+
+        log.info("Generating {} presigned URLs in bucket: {} for user: {}",
+                request.getKeys().size(), request.getBucket(), username);
+
+        S3Credential credential = getCredential(username, request.getCredentialId());
+
+        // Presigning is purely local, so the whole batch is signed without any network I/O
+        try (S3ClientRegistry.Lease<S3Presigner> lease = clientRegistry.leasePresigner(credential)) {
+            S3Presigner presigner = lease.client();
+            Duration duration = resolvePresignDuration(request.getExpirationSeconds());
+
+            List<PresignedUrlResponse> urls = request.getKeys().stream()
+                    .map(key -> presignGetObject(presigner, request.getBucket(), key, duration))
+                    .collect(Collectors.toList());
+
+            User user = getUser(username);
+            auditService.logGeneratePresignedUrls(user, request.getBucket(), urls.size());
+
+            return urls;
+
+        } catch (Exception e) {
+            log.error("Failed to generate presigned URLs: {}", e.getMessage());
+            throw new S3OperationException("Failed to generate presigned URLs: " + e.getMessage());
+        }
+    }
+
     public S3ObjectDTO getObjectMetadata(String username, String bucket, String key, UUID credentialId) {
+        return getObjectMetadata(username, bucket, key, credentialId, null, null);
+    }
+
+    /**
+     * Conditional variant of {@link #getObjectMetadata(String, String, String, UUID)}.
+     *
+     * @throws NotModifiedException if the object still matches {@code ifNoneMatch} or
+     *                              has not changed since {@code ifModifiedSince}
+     */
+    public S3ObjectDTO getObjectMetadata(
+            String username,
+            String bucket,
+            String key,
+            UUID credentialId,
+            String ifNoneMatch,
+            Instant ifModifiedSince) {
+
         log.info("Getting metadata for object: {} in bucket: {}", key, bucket);
 
         S3Credential credential = getCredential(username, credentialId);
-        S3Client s3Client = credentialService.createS3Client(credential);
-
-        try {
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
             HeadObjectRequest request = HeadObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
+                    .ifNoneMatch(ifNoneMatch)
+                    .ifModifiedSince(ifModifiedSince)
                     .build();
 
             HeadObjectResponse response = s3Client.headObject(request);
 
-            return S3ObjectDTO.builder()
-                    .key(key)
-                    .bucket(bucket)
-                    .size(response.contentLength())
-                    .lastModified(response.lastModified())
-                    .eTag(response.eTag())
-                    .contentType(response.contentType())
-                    .metadata(response.metadata())
-                    .storageClass(response.storageClassAsString())
-                    .build();
+            return toObjectDTO(bucket, key, response);
 
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                throw toNotModified(e);
+            }
+            log.error("Failed to get object metadata: {}", e.getMessage());
+            throw new S3OperationException("Failed to get object metadata: " + e.getMessage());
         } catch (Exception e) {
             log.error("Failed to get object metadata: {}", e.getMessage());
             throw new S3OperationException("Failed to get object metadata: " + e.getMessage());
-        } finally {
-            s3Client.close();
         }
     }
 
     // ================== Helper Methods ==================
 
+    static List<BucketDTO> toBucketDTOs(ListBucketsResponse response, S3Credential credential) {
+        return response.buckets().stream()
+                .map(bucket -> BucketDTO.builder()
+                        .name(bucket.name())
+                        .creationDate(bucket.creationDate())
+                        .region(credential.getRegion())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    static ListObjectsV2Request buildListObjectsRequest(ListObjectsRequest request) {
+        ListObjectsV2Request.Builder listBuilder = ListObjectsV2Request.builder()
+                .bucket(request.getBucket());
+
+        if (request.getPrefix() != null) {
+            listBuilder.prefix(request.getPrefix());
+        }
+        if (request.getDelimiter() != null) {
+            listBuilder.delimiter(request.getDelimiter());
+        }
+        if (request.getMaxKeys() != null) {
+            listBuilder.maxKeys(request.getMaxKeys());
+        }
+        if (request.getContinuationToken() != null) {
+            listBuilder.continuationToken(request.getContinuationToken());
+        }
+
+        return listBuilder.build();
+    }
+
+    static ListObjectsResponse toListObjectsResponse(String bucket, ListObjectsV2Response response) {
+        List<S3ObjectDTO> objects = response.contents().stream()
+                .map(s3Object -> S3ObjectDTO.builder()
+                        .key(s3Object.key())
+                        .bucket(bucket)
+                        .size(s3Object.size())
+                        .lastModified(s3Object.lastModified())
+                        .eTag(s3Object.eTag())
+                        .storageClass(s3Object.storageClassAsString())
+                        .isFolder(s3Object.key().endsWith("/"))
+                        .build())
+                .collect(Collectors.toList());
+
+        List<String> commonPrefixes = response.commonPrefixes().stream()
+                .map(CommonPrefix::prefix)
+                .collect(Collectors.toList());
+
+        return ListObjectsResponse.builder()
+                .objects(objects)
+                .commonPrefixes(commonPrefixes)
+                .nextContinuationToken(response.nextContinuationToken())
+                .isTruncated(response.isTruncated())
+                .keyCount(response.keyCount())
+                .build();
+    }
+
+    static S3ObjectDTO toObjectDTO(String bucket, String key, HeadObjectResponse response) {
+        return S3ObjectDTO.builder()
+                .key(key)
+                .bucket(bucket)
+                .size(response.contentLength())
+                .lastModified(response.lastModified())
+                .eTag(response.eTag())
+                .contentType(response.contentType())
+                .metadata(response.metadata())
+                .storageClass(response.storageClassAsString())
+                .build();
+    }
+
+    /**
+     * Builds the 304 signal from S3's own Not Modified response, keeping its validators.
+     */
+    static NotModifiedException toNotModified(S3Exception e) {
+        SdkHttpResponse response = e.awsErrorDetails() != null
+                ? e.awsErrorDetails().sdkHttpResponse() : null;
+        if (response == null) {
+            return new NotModifiedException(null, null);
+        }
+
+        Instant lastModified = response.firstMatchingHeader(HttpHeaders.LAST_MODIFIED)
+                .map(value -> {
+                    try {
+                        return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    } catch (DateTimeParseException ex) {
+                        return null;
+                    }
+                })
+                .orElse(null);
+
+        return new NotModifiedException(
+                response.firstMatchingHeader(HttpHeaders.ETAG).orElse(null), lastModified);
+    }
+
+    private ObjectDownload toObjectDownload(
+            String bucket, String key, ResponseInputStream<GetObjectResponse> stream) {
+        return toObjectDownload(bucket, key, stream, null);
+    }
+
+    /**
+     * @param decode the codec to decompress the object with, or {@code null} to send the
+     *               stored bytes as they are
+     */
+    private ObjectDownload toObjectDownload(
+            String bucket, String key, ResponseInputStream<GetObjectResponse> stream, CompressionCodec decode) {
+
+        GetObjectResponse response = stream.response();
+        AtomicBoolean fullyRead = new AtomicBoolean();
+
+        return ObjectDownload.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentLength(decode != null
+                        ? objectCompressor.originalSizeOf(response.metadata())
+                        : response.contentLength())
+                .contentType(response.contentType())
+                .eTag(decode != null ? ObjectCompressor.decodedETag(response.eTag()) : response.eTag())
+                .lastModified(response.lastModified())
+                .contentRange(response.contentRange())
+                .partial(response.contentRange() != null)
+                .body(out -> {
+                    if (decode != null) {
+                        try (InputStream in = objectCompressor.decompress(decode, CloseShieldInputStream.wrap(stream))) {
+                            copy(in, out);
+                        }
+                    } else {
+                        copy(stream, out);
+                    }
+                    fullyRead.set(true);
+                })
+                .resource(() -> {
+                    // Closing a partially read stream would drain the rest of the object
+                    if (fullyRead.get()) {
+                        stream.close();
+                    } else {
+                        stream.abort();
+                    }
+                })
+                .build();
+    }
+
+    private static ObjectDownload withEncoding(ObjectDownload download, CompressionCodec codec) {
+        return codec == null ? download : download.toBuilder()
+                .contentEncoding(codec.getEncoding())
+                .build();
+    }
+
+    /**
+     * Rejects prefix transfers that cannot work, before any object is touched or a job is
+     * queued for them.
+     */
+    public static void validatePrefixTransfer(PrefixTransferRequest request, PrefixOperation operation) {
+        String sourceBucket = request.getSourceBucket();
+        String destinationBucket = StringUtils.defaultIfBlank(request.getDestinationBucket(), sourceBucket);
+        boolean sameBucket = destinationBucket.equals(sourceBucket);
+        String sourcePrefix = toKeyPrefix(request.getSourcePrefix());
+        String destinationPrefix = toKeyPrefix(request.getDestinationPrefix());
+
+        if (operation == PrefixOperation.RENAME && !sameBucket) {
+            throw new BadRequestException("A rename has to stay within the bucket");
+        }
+        if (sameBucket && destinationPrefix.startsWith(sourcePrefix)) {
+            // The copies would show up in the listing being copied
+            throw new BadRequestException("Destination prefix cannot be inside the source prefix");
+        }
+    }
+
+    /**
+     * A copy onto the source itself would go through for large objects (multipart copies
+     * allow it), and a move would then delete the only copy.
+     */
+    private static void requireDistinctObjects(CopyMoveRequest request) {
+        if (Objects.equals(request.getSourceBucket(), request.getDestinationBucket())
+                && Objects.equals(request.getSourceKey(), request.getDestinationKey())) {
+            throw new BadRequestException("Source and destination are the same object");
+        }
+    }
+
+    /**
+     * Lists every key under {@code prefix}, fetching pages only as the stream is consumed.
+     */
+    private static Stream<String> streamKeys(S3Client s3Client, String bucket, String prefix) {
+        return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                        .bucket(bucket)
+                        .prefix(prefix)
+                        .build())
+                .contents()
+                .stream()
+                .map(S3Object::key);
+    }
+
+    private static String toKeyPrefix(String prefix) {
+        if (StringUtils.isBlank(prefix)) {
+            return "";
+        }
+        return prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    private BatchUploadResponse toBatchUploadResponse(
+            String username, S3Credential credential, String bucket, List<BatchUploadResult> results) {
+
+        List<String> uploadedKeys = results.stream()
+                .filter(BatchUploadResult::getSuccess)
+                .map(BatchUploadResult::getKey)
+                .collect(Collectors.toList());
+
+        uploadedKeys.forEach(key -> contentCache.invalidate(credential.getId(), bucket, key));
+
+        if (!uploadedKeys.isEmpty()) {
+            User user = getUser(username);
+            auditService.logUploadObjects(user, bucket, uploadedKeys);
+        }
+
+        log.info("Batch upload to {} finished: {} succeeded, {} failed",
+                bucket, uploadedKeys.size(), results.size() - uploadedKeys.size());
+
+        return BatchUploadResponse.builder()
+                .bucket(bucket)
+                .succeeded(uploadedKeys.size())
+                .failed(results.size() - uploadedKeys.size())
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Copies {@code in} into a {@link MultipartUploader} upload, failing as soon as more
+     * than {@code app.s3.max-upload-size} bytes have been read. {@code in} is expected to
+     * feed {@code checksum}, which is checked against {@code expectedMd5} (if any) before
+     * the upload is completed. The upload is aborted on any failure.
+     */
+    private MultipartUploader.Result streamUpload(
+            S3Client s3Client, CreateMultipartUploadRequest request, InputStream in, long expectedSize,
+            ContentChecksum checksum, String expectedMd5) throws IOException {
+
+        try (MultipartUploader.MultipartUploadStream upload = multipartUploader.open(s3Client, request, expectedSize)) {
+            byte[] buffer = new byte[downloadBufferSize];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (upload.getBytesWritten() + read > maxUploadSize) {
+                    throw new MaxUploadSizeExceededException(maxUploadSize);
+                }
+                upload.write(buffer, 0, read);
+            }
+            verifyContentMd5(checksum, expectedMd5);
+            return upload.complete();
+        }
+    }
+
+    /**
+     * Compresses {@code in} into a {@link MultipartUploader} upload. The compressor is
+     * finished before the upload is completed, and the upload is aborted on any failure.
+     * The checksum covers the uncompressed content, as in {@link #streamUpload}.
+     */
+    private MultipartUploader.Result compressedUpload(
+            S3Client s3Client, CreateMultipartUploadRequest request, InputStream in,
+            CompressionCodec codec, long originalSize, ContentChecksum checksum, String expectedMd5)
+            throws IOException {
+
+        try (MultipartUploader.MultipartUploadStream upload = multipartUploader.open(s3Client, request, originalSize)) {
+            try (OutputStream out = objectCompressor.compress(codec, CloseShieldOutputStream.wrap(upload))) {
+                copy(in, out);
+            }
+            verifyContentMd5(checksum, expectedMd5);
+            return upload.complete();
+        }
+    }
+
+    private static String parseContentMd5(String contentMd5) {
+        if (contentMd5 == null) {
+            return null;
+        }
+        String md5 = ContentChecksum.normalizeMd5(contentMd5);
+        if (md5 == null) {
+            throw new BadRequestException("Content MD5 must be 32 hex digits or base64");
+        }
+        return md5;
+    }
+
+    private static void verifyContentMd5(ContentChecksum checksum, String expectedMd5) {
+        if (expectedMd5 != null && !expectedMd5.equals(checksum.md5Hex())) {
+            throw new BadRequestException("Content MD5 does not match the uploaded data");
+        }
+    }
+
+    /**
+     * Returns the existing object if it already holds content of the given size and MD5
+     * or CRC32C. The MD5 is compared with our own {@code s3m-content-md5} metadata when
+     * present, and otherwise with the ETag, which is the MD5 only for single-part,
+     * uncompressed objects without KMS or customer-key encryption. CRC32C can only be
+     * compared with a full-object checksum, not a multipart composite one.
+     *
+     * @param size the content size, or a negative value if unknown
+     */
+    private Optional<HeadObjectResponse> findUnchanged(
+            S3Client s3Client, String bucket, String key, long size, String md5, String crc32c) {
+
+        HeadObjectResponse head;
+        try {
+            head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.NOT_FOUND.value()) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+
+        Map<String, String> metadata = head.metadata();
+        boolean compressed = objectCompressor.codecOf(metadata) != null;
+        Long existingSize = compressed ? objectCompressor.originalSizeOf(metadata) : head.contentLength();
+        if (size >= 0 && !Long.valueOf(size).equals(existingSize)) {
+            return Optional.empty();
+        }
+
+        boolean unchanged;
+        if (md5 != null && metadata.containsKey(CONTENT_MD5_METADATA)) {
+            unchanged = md5.equals(metadata.get(CONTENT_MD5_METADATA));
+        } else if (md5 != null && !compressed && isMd5ETag(head)) {
+            unchanged = md5.equals(StringUtils.strip(head.eTag(), "\""));
+        } else if (crc32c != null && head.checksumCRC32C() != null && !head.checksumCRC32C().contains("-")) {
+            unchanged = crc32c.equals(head.checksumCRC32C());
+        } else {
+            unchanged = false;
+        }
+        return unchanged ? Optional.of(head) : Optional.empty();
+    }
+
+    private static boolean isMd5ETag(HeadObjectResponse head) {
+        return head.eTag() != null
+                && !head.eTag().contains("-")
+                && (head.serverSideEncryption() == null || head.serverSideEncryption() == ServerSideEncryption.AES256)
+                && head.sseCustomerAlgorithm() == null;
+    }
+
+    private static UploadResponse toSkippedResponse(
+            String bucket, String key, long size, String md5, HeadObjectResponse head) {
+        return UploadResponse.builder()
+                .key(key)
+                .bucket(bucket)
+                .eTag(head.eTag())
+                .versionId(head.versionId())
+                .size(size >= 0 ? size : head.contentLength())
+                .contentMd5(md5)
+                .skipped(true)
+                .build();
+    }
+
+    private static String archiveName(String bucket, ArchiveRequest request) {
+        String name = StringUtils.substringAfterLast(StringUtils.stripEnd(request.getPrefix(), "/"), "/");
+        if (StringUtils.isBlank(name)) {
+            name = StringUtils.isNotBlank(request.getPrefix())
+                    ? StringUtils.stripEnd(request.getPrefix(), "/") : bucket;
+        }
+        return name + request.getFormat().getExtension();
+    }
+
+    private boolean wantsParallel(DownloadRequest request) {
+        return request.getParallel() != null
+                ? request.getParallel()
+                : parallelDownloader.isAutoEnabled();
+    }
+
+    /**
+     * Whole-object download that starts with a HEAD: the local cache is used when its
+     * copy still matches, large objects go through {@link ParallelDownloader}, and
+     * everything else is a plain GET that fills the cache as it streams. Returns
+     * {@code null} for a compressed object the client cannot take encoded.
+     */
+    private ObjectDownload openWholeObjectDownload(
+            S3Client s3Client, UUID credentialId, DownloadRequest request) {
+
+        String bucket = request.getBucket();
+        String key = request.getKey();
+
+        HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .ifNoneMatch(ObjectCompressor.storedETags(request.getIfNoneMatch()))
+                .ifModifiedSince(request.getIfModifiedSince())
+                .build());
+
+        CompressionCodec codec = objectCompressor.codecOf(head.metadata());
+        if (codec != null && !objectCompressor.accepts(request.getAcceptEncoding(), codec)) {
+            // Decompressed on the fly by a plain GET
+            return null;
+        }
+
+        Optional<ObjectDownload> cached = contentCache.openCached(
+                credentialId, bucket, key, head.eTag(), head.lastModified());
+        if (cached.isPresent()) {
+            log.debug("Serving object {} from the local cache", key);
+            return withEncoding(cached.get(), codec);
+        }
+
+        long objectSize = head.contentLength();
+        boolean forced = Boolean.TRUE.equals(request.getParallel()) && objectSize > 0;
+        if (wantsParallel(request) && (forced || parallelDownloader.shouldUse(objectSize))) {
+            return ObjectDownload.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentLength(objectSize)
+                    .contentType(head.contentType())
+                    .contentEncoding(codec != null ? codec.getEncoding() : null)
+                    .eTag(head.eTag())
+                    .lastModified(head.lastModified())
+                    .body(out -> parallelDownloader.download(
+                            s3Client, bucket, key, head.eTag(), objectSize, out))
+                    .build();
+        }
+
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        return contentCache.populating(credentialId,
+                withEncoding(toObjectDownload(bucket, key, s3Client.getObject(getRequest)), codec));
+    }
+
+    private ObjectDownload openMultiRangeDownload(S3Client s3Client, DownloadRequest request) {
+        String bucket = request.getBucket();
+        String key = request.getKey();
+        List<HttpRange> ranges = request.getRanges();
+
+        HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .ifNoneMatch(ObjectCompressor.storedETags(request.getIfNoneMatch()))
+                .ifModifiedSince(request.getIfModifiedSince())
+                .build());
+
+        if (objectCompressor.codecOf(head.metadata()) != null) {
+            // Byte ranges of a compressed object are meaningless, so serve the whole object
+            return null;
+        }
+
+        long objectSize = head.contentLength();
+        String partContentType = head.contentType() != null
+                ? head.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+
+        List<long[]> positions = new ArrayList<>(ranges.size());
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+
+        // Unsatisfiable ranges are dropped; only if none is left is the request a 416
+        for (HttpRange range : ranges) {
+            long start;
+            long end;
+            try {
+                start = range.getRangeStart(objectSize);
+                end = range.getRangeEnd(objectSize);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (start >= objectSize || start > end) {
+                continue;
+            }
+
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + partContentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + objectSize
+                    + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+            positions.add(new long[]{start, end});
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + (end - start + 1);
+        }
+
+        if (positions.isEmpty()) {
+            throw new RangeNotSatisfiableException("Requested range not satisfiable", objectSize);
+        }
+
+        byte[] closingBoundary = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closingBoundary.length;
+
+        return ObjectDownload.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentLength(contentLength)
+                .contentType("multipart/byteranges; boundary=" + boundary)
+                .eTag(head.eTag())
+                .lastModified(head.lastModified())
+                .partial(true)
+                .body(out -> {
+                    for (int i = 0; i < positions.size(); i++) {
+                        long[] position = positions.get(i);
+                        out.write(partHeaders.get(i));
+
+                        // Every part must come from the version the HEAD described
+                        GetObjectRequest request = GetObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .range("bytes=" + position[0] + "-" + position[1])
+                                .ifMatch(head.eTag())
+                                .build();
+
+                        ResponseInputStream<GetObjectResponse> stream = s3Client.getObject(request);
+                        try {
+                            copy(stream, out);
+                            stream.close();
+                        } catch (IOException | RuntimeException e) {
+                            stream.abort();
+                            throw e;
+                        }
+                    }
+                    out.write(closingBoundary);
+                    out.flush();
+                })
+                .build();
+    }
+
+    private Long headObjectSize(S3Client s3Client, String bucket, String key) {
+        try {
+            return s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build()).contentLength();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[downloadBufferSize];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        out.flush();
+    }
+
+    private Duration resolvePresignDuration(Integer expirationSeconds) {
+        return Duration.ofSeconds(expirationSeconds != null ? expirationSeconds : presignedUrlExpiration);
+    }
+
+    private PresignedUrlResponse presignGetObject(
+            S3Presigner presigner, String bucket, String key, Duration duration) {
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(duration)
+                .getObjectRequest(getObjectRequest)
+                .build();
+
+        PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
+
+        return PresignedUrlResponse.builder()
+                .url(presignedRequest.url().toString())
+                .expiresAt(presignedRequest.expiration())
+                .key(key)
+                .bucket(bucket)
+                .build();
+    }
+
     private S3Credential getCredential(String username, UUID credentialId) {
         if (credentialId != null) {
             return credentialService.getCredentialByIdInternal(username, credentialId);
@@ -0,0 +1,489 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.s3.CompressionCodec;
+import com.s3manager.dto.s3.TextPreviewResponse;
+import com.s3manager.exception.BadRequestException;
+import com.s3manager.exception.S3OperationException;
+import com.s3manager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.ByteOrderMark;
+import org.apache.commons.io.input.BOMInputStream;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Returns the first or last lines of a text object without downloading all of it.
+ * <p>
+ * Head previews read the object through successive ranged GETs that grow from
+ * {@code chunk-size} and stop as soon as enough lines have been decoded. Tail previews
+ * fetch ranges backwards from the end until enough line breaks have been seen. Either
+ * way no more than {@code max-bytes} are read.
+ * <p>
+ * Ranges over an object stored compressed by {@link ObjectCompressor} would address the
+ * compressed bytes, so those are decoded from the start instead. A tail preview then has
+ * to decode the whole object, keeping only the last lines.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TextPreviewService {
+
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private static final ByteOrderMark[] BOMS = {
+            ByteOrderMark.UTF_8,
+            ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE, // before UTF-16, which shares the prefix
+            ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE
+    };
+
+    private final S3CredentialService credentialService;
+    private final S3ClientRegistry clientRegistry;
+    private final ObjectCompressor objectCompressor;
+    private final UserRepository userRepository;
+    private final AuditService auditService;
+
+    @Value("${app.s3.preview.text.default-lines:100}")
+    private int defaultLines;
+
+    @Value("${app.s3.preview.text.max-lines:10000}")
+    private int maxLines;
+
+    @Value("${app.s3.preview.text.max-bytes:1048576}")
+    private long maxBytes;
+
+    @Value("${app.s3.preview.text.chunk-size:65536}")
+    private int chunkSize;
+
+    /**
+     * @param tail  read from the end of the object instead of the start
+     * @param lines the number of lines to return; defaults to {@code default-lines}
+     *              unless only {@code bytes} is given
+     * @param bytes the maximum number of bytes to read
+     */
+    public TextPreviewResponse getTextPreview(
+            String username,
+            String bucket,
+            String key,
+            UUID credentialId,
+            boolean tail,
+            Integer lines,
+            Long bytes) {
+
+        if ((lines != null && lines < 1) || (bytes != null && bytes < 1)) {
+            throw new BadRequestException("lines and bytes must be positive");
+        }
+
+        int lineLimit = lines != null ? Math.min(lines, maxLines) : (bytes != null ? maxLines : defaultLines);
+        long budget = bytes != null ? Math.min(bytes, maxBytes) : maxBytes;
+
+        log.info("Previewing {} of object: {} in bucket: {} ({} lines, {} bytes)",
+                tail ? "tail" : "head", key, bucket, lineLimit, budget);
+
+        S3Credential credential = getCredential(username, credentialId);
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build());
+
+            CompressionCodec codec = objectCompressor.codecOf(head.metadata());
+
+            TextPreviewResponse response;
+            if (tail) {
+                response = codec != null
+                        ? readDecodedTail(s3Client, bucket, key, head, codec, lineLimit, budget)
+                        : readTail(s3Client, bucket, key, head, lineLimit, budget);
+            } else {
+                response = readHead(s3Client, bucket, key, head, codec, lineLimit, budget);
+            }
+
+            User user = getUser(username);
+            auditService.logPreviewObject(user, bucket, key);
+
+            return response;
+
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to preview object: {}", e.getMessage());
+            throw new S3OperationException("Failed to preview object: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param codec the codec the object is stored with, or {@code null}
+     */
+    private TextPreviewResponse readHead(
+            S3Client s3Client, String bucket, String key, HeadObjectResponse head,
+            CompressionCodec codec, int lineLimit, long budget) throws IOException {
+
+        long objectSize = objectSize(head, codec);
+        List<String> lines = new ArrayList<>();
+        boolean truncated;
+
+        try (CountingInputStream source = new CountingInputStream(codec != null
+                     ? new BoundedInputStream(openDecoded(s3Client, bucket, key, head, codec), budget)
+                     : new RangedInputStream(s3Client, bucket, key, head.eTag(), 0, Math.min(objectSize, budget)));
+             BOMInputStream bomStream = BOMInputStream.builder()
+                     .setInputStream(source)
+                     .setByteOrderMarks(BOMS)
+                     .get()) {
+
+            Charset charset = resolveCharset(bomStream.getBOMCharsetName(), head.contentType());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(bomStream, decoder(charset)));
+
+            String line;
+            while (lines.size() < lineLimit && (line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+
+            truncated = lines.size() == lineLimit
+                    ? reader.read() != -1 || source.getByteCount() < objectSize
+                    : budget < objectSize;
+
+            return TextPreviewResponse.builder()
+                    .key(key)
+                    .bucket(bucket)
+                    .mode("head")
+                    .lines(lines)
+                    .charset(charset.name())
+                    .objectSize(objectSize)
+                    .bytesRead(source.getByteCount())
+                    .truncated(truncated)
+                    .build();
+        }
+    }
+
+    private TextPreviewResponse readTail(
+            S3Client s3Client, String bucket, String key, HeadObjectResponse head,
+            int lineLimit, long budget) throws IOException {
+
+        long objectSize = head.contentLength();
+        Charset charset = detectCharset(s3Client, bucket, key, head);
+        if (charset.equals(StandardCharsets.UTF_16)) {
+            // Without a BOM UTF-16 is big-endian. Encoding a line break with UTF-16 itself would
+            // prepend a BOM, and a decoder started mid-object could take a U+FEFF there for one.
+            charset = StandardCharsets.UTF_16BE;
+        }
+        byte[] newline = "\n".getBytes(charset);
+        int width = newline.length;
+
+        Deque<byte[]> chunks = new ArrayDeque<>();
+        long start = objectSize;
+        long nextChunk = chunkSize;
+        int newlines = 0;
+
+        // One more line break than lines wanted, as the object usually ends with one
+        while (start > 0 && objectSize - start < budget && newlines <= lineLimit) {
+            long from = Math.max(0, Math.max(start - nextChunk, objectSize - budget));
+            from -= from % width;
+
+            byte[] data = getRange(s3Client, bucket, key, head.eTag(), from, start - 1);
+            newlines += countNewlines(data, newline);
+            chunks.addFirst(data);
+
+            start = from;
+            nextChunk = Math.min(nextChunk * 2, MAX_CHUNK_SIZE);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) (objectSize - start));
+        for (byte[] chunk : chunks) {
+            buffer.write(chunk);
+        }
+
+        InputStream content = new ByteArrayInputStream(buffer.toByteArray());
+        if (start == 0) {
+            content = BOMInputStream.builder().setInputStream(content).setByteOrderMarks(BOMS).get();
+        }
+
+        List<String> all = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(content, decoder(charset)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                all.add(line);
+            }
+        }
+
+        // Unless the object was read from its first byte, the first line is incomplete
+        if (start > 0 && !all.isEmpty()) {
+            all.remove(0);
+        }
+        List<String> lines = all.subList(Math.max(0, all.size() - lineLimit), all.size());
+
+        return TextPreviewResponse.builder()
+                .key(key)
+                .bucket(bucket)
+                .mode("tail")
+                .lines(new ArrayList<>(lines))
+                .charset(charset.name())
+                .objectSize(objectSize)
+                .bytesRead(objectSize - start)
+                .truncated(start > 0 || lines.size() < all.size())
+                .build();
+    }
+
+    /**
+     * Decodes the whole object, keeping the last {@code lineLimit} lines and at most
+     * {@code budget} characters of them.
+     */
+    private TextPreviewResponse readDecodedTail(
+            S3Client s3Client, String bucket, String key, HeadObjectResponse head,
+            CompressionCodec codec, int lineLimit, long budget) throws IOException {
+
+        Deque<String> lines = new ArrayDeque<>();
+        long retained = 0;
+        boolean truncated = false;
+
+        try (CountingInputStream source = new CountingInputStream(openDecoded(s3Client, bucket, key, head, codec));
+             BOMInputStream bomStream = BOMInputStream.builder()
+                     .setInputStream(source)
+                     .setByteOrderMarks(BOMS)
+                     .get()) {
+
+            Charset charset = resolveCharset(bomStream.getBOMCharsetName(), head.contentType());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(bomStream, decoder(charset)));
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.addLast(line);
+                retained += line.length() + 1;
+                while (lines.size() > lineLimit || retained > budget) {
+                    retained -= lines.removeFirst().length() + 1;
+                    truncated = true;
+                }
+            }
+
+            return TextPreviewResponse.builder()
+                    .key(key)
+                    .bucket(bucket)
+                    .mode("tail")
+                    .lines(new ArrayList<>(lines))
+                    .charset(charset.name())
+                    .objectSize(objectSize(head, codec))
+                    .bytesRead(source.getByteCount())
+                    .truncated(truncated)
+                    .build();
+        }
+    }
+
+    /**
+     * Opens the decoded content of a compressed object. Closing it drops the connection
+     * instead of draining whatever compressed bytes are left.
+     */
+    private InputStream openDecoded(
+            S3Client s3Client, String bucket, String key, HeadObjectResponse head, CompressionCodec codec)
+            throws IOException {
+
+        ResponseInputStream<GetObjectResponse> stream = s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .ifMatch(head.eTag())
+                .build());
+
+        InputStream aborting = new FilterInputStream(stream) {
+            @Override
+            public void close() {
+                stream.abort();
+            }
+        };
+
+        try {
+            return objectCompressor.decompress(codec, aborting);
+        } catch (IOException | RuntimeException e) {
+            stream.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * The size of the content a preview is taken from, which for a compressed object is
+     * its original size.
+     */
+    private long objectSize(HeadObjectResponse head, CompressionCodec codec) {
+        if (codec != null) {
+            Long originalSize = objectCompressor.originalSizeOf(head.metadata());
+            if (originalSize != null) {
+                return originalSize;
+            }
+        }
+        return head.contentLength();
+    }
+
+    /**
+     * Picks the charset from the byte order mark at the start of the object, then the
+     * {@code Content-Type} charset parameter, falling back to UTF-8.
+     */
+    private Charset detectCharset(S3Client s3Client, String bucket, String key, HeadObjectResponse head)
+            throws IOException {
+
+        String bomCharset = null;
+        if (head.contentLength() >= 2) {
+            byte[] prefix = getRange(s3Client, bucket, key, head.eTag(), 0, Math.min(head.contentLength(), 4) - 1);
+            try (BOMInputStream bomStream = BOMInputStream.builder()
+                    .setInputStream(new ByteArrayInputStream(prefix))
+                    .setByteOrderMarks(BOMS)
+                    .get()) {
+                bomCharset = bomStream.getBOMCharsetName();
+            }
+        }
+        return resolveCharset(bomCharset, head.contentType());
+    }
+
+    private static Charset resolveCharset(String bomCharset, String contentType) {
+        if (bomCharset != null) {
+            return Charset.forName(bomCharset);
+        }
+        if (contentType != null) {
+            try {
+                Charset declared = MediaType.parseMediaType(contentType).getCharset();
+                if (declared != null) {
+                    return declared;
+                }
+            } catch (RuntimeException e) {
+                // Unparseable or unsupported content type, fall through to the default
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static CharsetDecoder decoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private static int countNewlines(byte[] data, byte[] newline) {
+        int count = 0;
+        for (int i = 0; i + newline.length <= data.length; i += newline.length) {
+            if (Arrays.equals(data, i, i + newline.length, newline, 0, newline.length)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static byte[] getRange(S3Client s3Client, String bucket, String key, String eTag, long from, long to) {
+        return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=" + from + "-" + to)
+                .ifMatch(eTag)
+                .build()).asByteArray();
+    }
+
+    private S3Credential getCredential(String username, UUID credentialId) {
+        if (credentialId != null) {
+            return credentialService.getCredentialByIdInternal(username, credentialId);
+        } else {
+            return credentialService.getDefaultCredential(username);
+        }
+    }
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new S3OperationException("User not found"));
+    }
+
+    /**
+     * Reads {@code [position, end)} of an object as a sequence of ranged GETs that are only
+     * issued when the previous one has been consumed. Ranges double in size up to 1MB, so
+     * short reads cost one small request and long reads few round trips.
+     */
+    private class RangedInputStream extends InputStream {
+
+        private final S3Client s3Client;
+        private final String bucket;
+        private final String key;
+        private final String eTag;
+        private final long end;
+        private long position;
+        private long nextChunk = chunkSize;
+        private ResponseInputStream<GetObjectResponse> current;
+
+        RangedInputStream(S3Client s3Client, String bucket, String key, String eTag, long position, long end) {
+            this.s3Client = s3Client;
+            this.bucket = bucket;
+            this.key = key;
+            this.eTag = eTag;
+            this.position = position;
+            this.end = end;
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                if (current == null) {
+                    if (position >= end) {
+                        return -1;
+                    }
+                    long to = Math.min(position + nextChunk, end) - 1;
+                    current = s3Client.getObject(GetObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .range("bytes=" + position + "-" + to)
+                            .ifMatch(eTag)
+                            .build());
+                    nextChunk = Math.min(nextChunk * 2, MAX_CHUNK_SIZE);
+                }
+
+                int read = current.read(b, off, len);
+                if (read != -1) {
+                    position += read;
+                    return read;
+                }
+                current.close();
+                current = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (current != null) {
+                // Don't drain the rest of the range just to reuse the connection
+                current.abort();
+                current = null;
+            }
+        }
+    }
+}
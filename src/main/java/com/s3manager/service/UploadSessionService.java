@@ -0,0 +1,376 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.UploadSession;
+import com.s3manager.domain.entity.UploadSessionPart;
+import com.s3manager.domain.entity.UploadSessionStatus;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.s3.UploadResponse;
+import com.s3manager.dto.upload.UploadSessionPartResponse;
+import com.s3manager.dto.upload.UploadSessionRequest;
+import com.s3manager.dto.upload.UploadSessionResponse;
+import com.s3manager.exception.BadRequestException;
+import com.s3manager.exception.NotFoundException;
+import com.s3manager.exception.S3OperationException;
+import com.s3manager.repository.S3CredentialRepository;
+import com.s3manager.repository.UploadSessionPartRepository;
+import com.s3manager.repository.UploadSessionRepository;
+import com.s3manager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Resumable uploads backed by S3 multipart uploads.
+ * <p>
+ * A session maps one-to-one onto a multipart upload. Each received part's ETag is stored
+ * in {@code upload_session_parts}, so a client can ask which parts arrived, resend only
+ * the missing ones (in parallel if it likes) and complete the upload later. Sessions with
+ * no activity for {@code stale-after} are aborted by a scheduled sweep.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadSessionService {
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private final UploadSessionRepository sessionRepository;
+    private final UploadSessionPartRepository partRepository;
+    private final S3CredentialRepository credentialRepository;
+    private final S3CredentialService credentialService;
+    private final S3ClientRegistry clientRegistry;
+    private final ObjectContentCache contentCache;
+    private final UserRepository userRepository;
+    private final AuditService auditService;
+
+    @Value("${app.s3.chunk-size}")
+    private long defaultPartSize;
+
+    @Value("${app.s3.upload.session.stale-after:86400}") // seconds
+    private long staleAfterSeconds;
+
+    @Value("${app.s3.upload.session.retention-days:7}")
+    private int retentionDays;
+
+    public UploadSessionResponse initiate(String username, UploadSessionRequest request) {
+        log.info("Starting upload session for {}:{} for user: {}", request.getBucket(), request.getKey(), username);
+
+        User user = getUser(username);
+        S3Credential credential = getCredential(username, request.getCredentialId());
+        long partSize = resolvePartSize(request);
+
+        try (S3ClientRegistry.Lease<S3Client> client = clientRegistry.leaseClient(credential)) {
+            CreateMultipartUploadResponse response = client.client()
+                    .createMultipartUpload(CreateMultipartUploadRequest.builder()
+                            .bucket(request.getBucket())
+                            .key(request.getKey())
+                            .contentType(request.getContentType())
+                            .build());
+
+            UploadSession session = UploadSession.builder()
+                    .user(user)
+                    .credential(credential)
+                    .bucketName(request.getBucket())
+                    .objectKey(request.getKey())
+                    .uploadId(response.uploadId())
+                    .contentType(request.getContentType())
+                    .totalSize(request.getTotalSize())
+                    .partSize(partSize)
+                    .status(UploadSessionStatus.ACTIVE)
+                    .lastActivityAt(LocalDateTime.now())
+                    .build();
+
+            session = sessionRepository.save(session);
+            log.info("Upload session {} started (S3 upload id {})", session.getId(), response.uploadId());
+
+            return mapToResponse(session, List.of());
+
+        } catch (Exception e) {
+            log.error("Failed to start upload session: {}", e.getMessage());
+            throw new S3OperationException("Failed to start upload session: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams one part straight to S3 and records its ETag. Sending the same part number
+     * again replaces the earlier part.
+     */
+    public UploadSessionPartResponse uploadPart(
+            String username, UUID sessionId, int partNumber, InputStream body, long contentLength) {
+
+        UploadSession session = getActiveSession(username, sessionId);
+
+        if (partNumber < 1 || partNumber > MAX_PARTS) {
+            throw new BadRequestException("Part number must be between 1 and " + MAX_PARTS);
+        }
+        if (contentLength <= 0) {
+            throw new BadRequestException("Content-Length is required for a part");
+        }
+        if (contentLength > session.getPartSize()) {
+            throw new BadRequestException("Part exceeds the session part size of " + session.getPartSize() + " bytes");
+        }
+
+        S3Credential credential = getSessionCredential(username, session);
+
+        try (S3ClientRegistry.Lease<S3Client> lease = clientRegistry.leaseClient(credential)) {
+            S3Client s3Client = lease.client();
+            UploadPartResponse response = s3Client.uploadPart(
+                    UploadPartRequest.builder()
+                            .bucket(session.getBucketName())
+                            .key(session.getObjectKey())
+                            .uploadId(session.getUploadId())
+                            .partNumber(partNumber)
+                            .contentLength(contentLength)
+                            .build(),
+                    RequestBody.fromInputStream(body, contentLength));
+
+            UploadSessionPart part = savePart(session, partNumber, response.eTag(), contentLength);
+
+            sessionRepository.touch(session.getId(), LocalDateTime.now());
+
+            log.debug("Received part {} of upload session {}", partNumber, sessionId);
+            return toPartResponse(part);
+
+        } catch (Exception e) {
+            log.error("Failed to upload part {} of session {}: {}", partNumber, sessionId, e.getMessage());
+            throw new S3OperationException("Failed to upload part: " + e.getMessage());
+        }
+    }
+
+    public UploadSessionResponse getSession(String username, UUID sessionId) {
+        UploadSession session = getOwnedSession(username, sessionId);
+        return mapToResponse(session, partRepository.findBySessionOrderByPartNumberAsc(session));
+    }
+
+    public UploadResponse complete(String username, UUID sessionId) {
+        log.info("Completing upload session {} for user: {}", sessionId, username);
+
+        UploadSession session = getActiveSession(username, sessionId);
+        List<UploadSessionPart> parts = partRepository.findBySessionOrderByPartNumberAsc(session);
+
+        if (parts.isEmpty()) {
+            throw new BadRequestException("No parts have been uploaded");
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            if (parts.get(i).getPartNumber() != i + 1) {
+                throw new BadRequestException("Part " + (i + 1) + " is missing");
+            }
+        }
+
+        long size = parts.stream().mapToLong(UploadSessionPart::getSize).sum();
+        if (session.getTotalSize() != null && size != session.getTotalSize()) {
+            throw new BadRequestException("Received " + size + " bytes, expected " + session.getTotalSize());
+        }
+
+        S3Credential credential = getSessionCredential(username, session);
+
+        try (S3ClientRegistry.Lease<S3Client> client = clientRegistry.leaseClient(credential)) {
+            CompleteMultipartUploadResponse response = client.client()
+                    .completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                            .bucket(session.getBucketName())
+                            .key(session.getObjectKey())
+                            .uploadId(session.getUploadId())
+                            .multipartUpload(CompletedMultipartUpload.builder()
+                                    .parts(parts.stream()
+                                            .map(part -> CompletedPart.builder()
+                                                    .partNumber(part.getPartNumber())
+                                                    .eTag(part.getETag())
+                                                    .build())
+                                            .collect(Collectors.toList()))
+                                    .build())
+                            .build());
+
+            finish(session, UploadSessionStatus.COMPLETED);
+            contentCache.invalidate(credential.getId(), session.getBucketName(), session.getObjectKey());
+
+            User user = getUser(username);
+            auditService.logUploadObject(user, session.getBucketName(), session.getObjectKey());
+
+            log.info("Upload session {} completed ({} parts, {} bytes)", sessionId, parts.size(), size);
+
+            return UploadResponse.builder()
+                    .key(session.getObjectKey())
+                    .bucket(session.getBucketName())
+                    .eTag(response.eTag())
+                    .versionId(response.versionId())
+                    .size(size)
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Failed to complete upload session {}: {}", sessionId, e.getMessage());
+            throw new S3OperationException("Failed to complete upload: " + e.getMessage());
+        }
+    }
+
+    public void abort(String username, UUID sessionId) {
+        log.info("Aborting upload session {} for user: {}", sessionId, username);
+
+        UploadSession session = getActiveSession(username, sessionId);
+        abortUpload(session, getSessionCredential(username, session));
+    }
+
+    @Scheduled(fixedDelayString = "${app.s3.upload.session.sweep-interval:3600000}")
+    public void abortStaleSessions() {
+        LocalDateTime threshold = LocalDateTime.now().minusSeconds(staleAfterSeconds);
+        List<UploadSession> stale = sessionRepository.findByStatusAndLastActivityAtBefore(
+                UploadSessionStatus.ACTIVE, threshold);
+
+        for (UploadSession session : stale) {
+            try {
+                S3Credential credential = credentialRepository.findById(session.getCredential().getId())
+                        .orElse(null);
+                if (credential != null) {
+                    abortUpload(session, credential);
+                } else {
+                    finish(session, UploadSessionStatus.ABORTED);
+                }
+                log.info("Aborted stale upload session {}", session.getId());
+            } catch (Exception e) {
+                log.warn("Failed to abort stale upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        LocalDateTime purgeBefore = LocalDateTime.now().minusDays(retentionDays);
+        // Parts first, their rows would otherwise block deleting the session
+        partRepository.deleteOfSessionsFinishedBefore(UploadSessionStatus.ACTIVE, purgeBefore);
+        int purged = sessionRepository.deleteFinishedBefore(UploadSessionStatus.ACTIVE, purgeBefore);
+        if (!stale.isEmpty() || purged > 0) {
+            log.info("Upload session sweep: {} stale sessions aborted, {} finished sessions purged",
+                    stale.size(), purged);
+        }
+    }
+
+    // ================== Helper Methods ==================
+
+    private void abortUpload(UploadSession session, S3Credential credential) {
+        try (S3ClientRegistry.Lease<S3Client> client = clientRegistry.leaseClient(credential)) {
+            client.client().abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(session.getBucketName())
+                    .key(session.getObjectKey())
+                    .uploadId(session.getUploadId())
+                    .build());
+        } catch (NoSuchUploadException e) {
+            log.debug("Upload {} was already gone in S3", session.getUploadId());
+        } catch (Exception e) {
+            log.error("Failed to abort upload session {}: {}", session.getId(), e.getMessage());
+            throw new S3OperationException("Failed to abort upload: " + e.getMessage());
+        }
+        finish(session, UploadSessionStatus.ABORTED);
+    }
+
+    private void finish(UploadSession session, UploadSessionStatus status) {
+        partRepository.deleteBySession(session);
+        session.setStatus(status);
+        session.setLastActivityAt(LocalDateTime.now());
+        sessionRepository.save(session);
+    }
+
+    private long resolvePartSize(UploadSessionRequest request) {
+        long partSize = request.getPartSize() != null ? request.getPartSize() : defaultPartSize;
+        if (request.getTotalSize() != null) {
+            partSize = Math.max(partSize, (request.getTotalSize() + MAX_PARTS - 1) / MAX_PARTS);
+        }
+        return Math.min(Math.max(partSize, MIN_PART_SIZE), MAX_PART_SIZE);
+    }
+
+    /**
+     * Records a received part, replacing an earlier upload of the same part number. When
+     * two uploads of one part race, the slower insert hits the unique constraint (or the
+     * slower update the version check) and is redone as an update of the stored row.
+     */
+    private UploadSessionPart savePart(UploadSession session, int partNumber, String eTag, long size) {
+        for (int attempt = 1; ; attempt++) {
+            UploadSessionPart part = partRepository.findBySessionAndPartNumber(session, partNumber)
+                    .orElseGet(() -> UploadSessionPart.builder()
+                            .session(session)
+                            .partNumber(partNumber)
+                            .build());
+            part.setETag(eTag);
+            part.setSize(size);
+            try {
+                return partRepository.save(part);
+            } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+                if (attempt >= 3) {
+                    throw e;
+                }
+                log.debug("Part {} of upload session {} was stored concurrently, replacing it",
+                        partNumber, session.getId());
+            }
+        }
+    }
+
+    private UploadSession getOwnedSession(String username, UUID sessionId) {
+        return sessionRepository.findByIdAndUser(sessionId, getUser(username))
+                .orElseThrow(() -> new NotFoundException("Upload session not found"));
+    }
+
+    private UploadSession getActiveSession(String username, UUID sessionId) {
+        UploadSession session = getOwnedSession(username, sessionId);
+        if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+            throw new BadRequestException("Upload session is " + session.getStatus().name().toLowerCase());
+        }
+        return session;
+    }
+
+    private S3Credential getSessionCredential(String username, UploadSession session) {
+        return credentialService.getCredentialByIdInternal(username, session.getCredential().getId());
+    }
+
+    private S3Credential getCredential(String username, UUID credentialId) {
+        if (credentialId != null) {
+            return credentialService.getCredentialByIdInternal(username, credentialId);
+        } else {
+            return credentialService.getDefaultCredential(username);
+        }
+    }
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new S3OperationException("User not found"));
+    }
+
+    private UploadSessionResponse mapToResponse(UploadSession session, List<UploadSessionPart> parts) {
+        Integer partCount = session.getTotalSize() != null
+                ? (int) Math.max(1, (session.getTotalSize() + session.getPartSize() - 1) / session.getPartSize())
+                : null;
+
+        return UploadSessionResponse.builder()
+                .id(session.getId())
+                .bucket(session.getBucketName())
+                .key(session.getObjectKey())
+                .contentType(session.getContentType())
+                .totalSize(session.getTotalSize())
+                .partSize(session.getPartSize())
+                .partCount(partCount)
+                .status(session.getStatus().name())
+                .parts(parts.stream().map(this::toPartResponse).collect(Collectors.toList()))
+                .bytesReceived(parts.stream().mapToLong(UploadSessionPart::getSize).sum())
+                .createdAt(session.getCreatedAt())
+                .lastActivityAt(session.getLastActivityAt())
+                .build();
+    }
+
+    private UploadSessionPartResponse toPartResponse(UploadSessionPart part) {
+        return UploadSessionPartResponse.builder()
+                .partNumber(part.getPartNumber())
+                .eTag(part.getETag())
+                .size(part.getSize())
+                .build();
+    }
+}
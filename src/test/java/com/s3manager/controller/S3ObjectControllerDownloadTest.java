@@ -0,0 +1,153 @@
+package com.s3manager.controller;
+
+import com.s3manager.config.StreamingDownloadInterceptor;
+import com.s3manager.dto.s3.DownloadRequest;
+import com.s3manager.dto.s3.ObjectDownload;
+import com.s3manager.service.ImagePreviewService;
+import com.s3manager.service.S3AsyncService;
+import com.s3manager.service.S3Service;
+import com.s3manager.service.TextPreviewService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class S3ObjectControllerDownloadTest {
+
+    @Mock
+    private S3Service s3Service;
+    @Mock
+    private S3AsyncService s3AsyncService;
+    @Mock
+    private ImagePreviewService imagePreviewService;
+    @Mock
+    private TextPreviewService textPreviewService;
+    @Mock
+    private Authentication authentication;
+
+    @InjectMocks
+    private S3ObjectController controller;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(authentication.getName()).thenReturn("alice");
+    }
+
+    @Test
+    void passesParsedRangesToTheService() {
+        when(s3Service.downloadObject(eq("alice"), any())).thenReturn(download(false, null));
+
+        download("bytes=0-9,50-");
+
+        assertThat(sentRequest().getRanges()).containsExactly(
+                HttpRange.createByteRange(0, 9), HttpRange.createByteRange(50));
+    }
+
+    @Test
+    void ignoresAMalformedRangeHeader() {
+        when(s3Service.downloadObject(eq("alice"), any())).thenReturn(download(false, null));
+
+        ResponseEntity<StreamingResponseBody> response = download("bytes=nine-ten");
+
+        assertThat(sentRequest().getRanges()).isEmpty();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void answersAPartialDownloadWith206AndItsContentRange() {
+        when(s3Service.downloadObject(eq("alice"), any())).thenReturn(download(true, "bytes 0-9/100"));
+
+        ResponseEntity<StreamingResponseBody> response = download("bytes=0-9");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-9/100");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    }
+
+    @Test
+    void closesTheDownloadOnceWhenTheRequestCompletesWithoutRunningTheBody() throws Exception {
+        AtomicInteger closes = new AtomicInteger();
+        when(s3Service.downloadObject(eq("alice"), any())).thenReturn(download(false, null).toBuilder()
+                .resource(closes::incrementAndGet)
+                .build());
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+
+        controller.downloadObject("bucket", "file.txt", null, null, null, null, null, null,
+                servletRequest, authentication);
+        // e.g. the streaming executor rejected the body
+        new StreamingDownloadInterceptor(0).afterCompletion(new ServletWebRequest(servletRequest), () -> null);
+        new StreamingDownloadInterceptor(0).afterCompletion(new ServletWebRequest(servletRequest), () -> null);
+
+        assertThat(closes).hasValue(1);
+    }
+
+    @Test
+    void doesNotCloseTheDownloadAgainAfterTheBodyClosedIt() throws Exception {
+        AtomicInteger closes = new AtomicInteger();
+        when(s3Service.downloadObject(eq("alice"), any())).thenReturn(download(false, null).toBuilder()
+                .resource(closes::incrementAndGet)
+                .build());
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+
+        ResponseEntity<StreamingResponseBody> response = controller.downloadObject("bucket", "file.txt",
+                null, null, null, null, null, null, servletRequest, authentication);
+        response.getBody().writeTo(new ByteArrayOutputStream());
+        new StreamingDownloadInterceptor(0).afterCompletion(new ServletWebRequest(servletRequest), () -> null);
+
+        assertThat(closes).hasValue(1);
+    }
+
+    @Test
+    void givesStreamingResponsesTheirOwnTimeout() throws Exception {
+        AsyncWebRequest asyncRequest = mock(AsyncWebRequest.class);
+
+        new StreamingDownloadInterceptor(0).beforeConcurrentHandling(asyncRequest, () -> null);
+
+        verify(asyncRequest).setTimeout(0L);
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(String range) {
+        return controller.downloadObject("bucket", "file.txt", null, null, range, null, null, null, new MockHttpServletRequest(), authentication);
+    }
+
+    private DownloadRequest sentRequest() {
+        ArgumentCaptor<DownloadRequest> request = ArgumentCaptor.forClass(DownloadRequest.class);
+        verify(s3Service).downloadObject(eq("alice"), request.capture());
+        return request.getValue();
+    }
+
+    private static ObjectDownload download(boolean partial, String contentRange) {
+        return ObjectDownload.builder()
+                .bucket("bucket")
+                .key("file.txt")
+                .contentLength(10L)
+                .partial(partial)
+                .contentRange(contentRange)
+                .body(out -> { })
+                .build();
+    }
+}
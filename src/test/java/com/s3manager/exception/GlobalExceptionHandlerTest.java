@@ -0,0 +1,62 @@
+package com.s3manager.exception;
+
+import com.s3manager.dto.common.ApiResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(handler, "retryAfterSeconds", 5L);
+    }
+
+    @Test
+    void rejectedTaskIsA503WithRetryAfter() {
+        ResponseEntity<ApiResponse<?>> response = handler.handleRejectedExecution(
+                new TaskRejectedException("Executor did not accept task"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+    }
+
+    @Test
+    void unsatisfiableRangeIsA416WithTheObjectSize() {
+        ResponseEntity<ApiResponse<?>> response = handler.handleRangeNotSatisfiable(
+                new RangeNotSatisfiableException("Requested range not satisfiable", 100L));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */100");
+    }
+
+    @Test
+    void unsatisfiableRangeOfUnknownSizeHasNoContentRange() {
+        ResponseEntity<ApiResponse<?>> response = handler.handleRangeNotSatisfiable(
+                new RangeNotSatisfiableException("Requested range not satisfiable", null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_RANGE)).isFalse();
+    }
+
+    @Test
+    void notModifiedKeepsTheValidators() {
+        Instant lastModified = Instant.parse("2024-05-01T10:00:00Z");
+
+        ResponseEntity<Void> response = handler.handleNotModified(new NotModifiedException("\"etag\"", lastModified));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"etag\"");
+        assertThat(response.getHeaders().getLastModified()).isEqualTo(lastModified.toEpochMilli());
+    }
+}
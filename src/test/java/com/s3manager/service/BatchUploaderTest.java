@@ -0,0 +1,82 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.BatchUploadResult;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUploaderTest {
+
+    @Mock
+    private MultipartUploader multipartUploader;
+    @Mock
+    private S3Client s3Client;
+
+    private BatchUploader batchUploader;
+
+    @BeforeEach
+    void setUp() {
+        batchUploader = new BatchUploader(Runnable::run, multipartUploader);
+        ReflectionTestUtils.setField(batchUploader, "concurrency", 4);
+        ReflectionTestUtils.setField(batchUploader, "maxBufferedEntrySize", 1024L * 1024);
+        ReflectionTestUtils.setField(batchUploader, "bufferSize", 8192);
+    }
+
+    @Test
+    void aTruncatedTarStillReportsTheEntriesUploadedBeforeIt() throws IOException {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("\"etag\"").build());
+        byte[] tar = tar("a.txt", "first", "b.txt", "second entry");
+        // Cut the stream off part way through the second entry's content
+        byte[] truncated = Arrays.copyOf(tar, 3 * 512 + 3);
+
+        List<BatchUploadResult> results = batchUploader.uploadTar(
+                s3Client, "bucket", "in/", new ByteArrayInputStream(truncated), 1024L * 1024);
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).getKey()).isEqualTo("in/a.txt");
+        assertThat(results.get(0).getSuccess()).isTrue();
+        assertThat(results.get(1).getKey()).isEqualTo("in/b.txt");
+        assertThat(results.get(1).getSuccess()).isFalse();
+        assertThat(results.get(1).getError()).startsWith("Failed to read TAR stream");
+        verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    private static byte[] tar(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                byte[] content = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+                TarArchiveEntry entry = new TarArchiveEntry(namesAndContents[i]);
+                entry.setSize(content.length);
+                tar.putArchiveEntry(entry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
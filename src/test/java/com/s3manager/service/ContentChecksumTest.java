@@ -0,0 +1,95 @@
+package com.s3manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentChecksumTest {
+
+    private static final byte[] HELLO_WORLD = "hello world".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void computesMd5AndCrc32c() {
+        ContentChecksum checksum = new ContentChecksum();
+        checksum.update(HELLO_WORLD, 0, HELLO_WORLD.length);
+
+        assertThat(checksum.md5Hex()).isEqualTo("5eb63bbbe01eeed093cb22bb8f5acdc3");
+        assertThat(checksum.md5Base64()).isEqualTo("XrY7u+Ae7tCTyyK7j1rNww==");
+        assertThat(checksum.crc32cBase64()).isEqualTo("yZRlqg==");
+    }
+
+    @Test
+    void crc32cIsTheBigEndianValue() {
+        byte[] check = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+        // 0xE3069283 is the CRC32C check value
+        assertThat(ContentChecksum.crc32cBase64(check, 0, check.length)).isEqualTo("4waSgw==");
+    }
+
+    @Test
+    void partChecksumsCoverOnlyTheirSliceOfTheBuffer() {
+        // What MultipartUploader sends for two parts cut from one buffer
+        assertThat(ContentChecksum.crc32cBase64(HELLO_WORLD, 0, 6)).isEqualTo("fmJ+WA==");
+        assertThat(ContentChecksum.crc32cBase64(HELLO_WORLD, 6, 5)).isEqualTo("MaqBTg==");
+    }
+
+    @Test
+    void incrementalUpdatesMatchASingleUpdate() {
+        ContentChecksum checksum = new ContentChecksum();
+        checksum.update(HELLO_WORLD, 0, 6);
+        checksum.update(HELLO_WORLD, 6, 5);
+
+        assertThat(checksum.md5Hex()).isEqualTo("5eb63bbbe01eeed093cb22bb8f5acdc3");
+        assertThat(checksum.crc32cBase64()).isEqualTo("yZRlqg==");
+    }
+
+    @Test
+    void wrappedStreamChecksumsEverythingReadThroughIt() throws IOException {
+        ContentChecksum checksum = new ContentChecksum();
+
+        try (InputStream in = checksum.wrap(new ByteArrayInputStream(HELLO_WORLD))) {
+            assertThat(in.read()).isEqualTo('h');
+            assertThat(in.skip(3)).isZero();
+            assertThat(in.readAllBytes()).hasSize(HELLO_WORLD.length - 1);
+        }
+
+        assertThat(checksum.md5Hex()).isEqualTo("5eb63bbbe01eeed093cb22bb8f5acdc3");
+    }
+
+    @Test
+    void checksumsAWholeStream() throws IOException {
+        ContentChecksum checksum = ContentChecksum.of(new ByteArrayInputStream(HELLO_WORLD), 4);
+
+        assertThat(checksum.crc32cBase64()).isEqualTo("yZRlqg==");
+    }
+
+    @Test
+    void rejectsUpdatesOnceFinished() {
+        ContentChecksum checksum = new ContentChecksum();
+        checksum.md5Hex();
+
+        assertThatThrownBy(() -> checksum.update(HELLO_WORLD, 0, 1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void normalizesMd5FromHexOrBase64() {
+        assertThat(ContentChecksum.normalizeMd5(" 5EB63BBBE01EEED093CB22BB8F5ACDC3 "))
+                .isEqualTo("5eb63bbbe01eeed093cb22bb8f5acdc3");
+        assertThat(ContentChecksum.normalizeMd5("XrY7u+Ae7tCTyyK7j1rNww=="))
+                .isEqualTo("5eb63bbbe01eeed093cb22bb8f5acdc3");
+    }
+
+    @Test
+    void rejectsValuesThatAreNoMd5() {
+        assertThat(ContentChecksum.normalizeMd5(null)).isNull();
+        assertThat(ContentChecksum.normalizeMd5("not a hash")).isNull();
+        assertThat(ContentChecksum.normalizeMd5("yZRlqg==")).isNull(); // valid base64, but 4 bytes
+    }
+}
@@ -0,0 +1,190 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import org.jasypt.encryption.StringEncryptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CredentialSecretCacheTest {
+
+    private final AtomicInteger decryptions = new AtomicInteger();
+
+    private final StringEncryptor encryptor = new StringEncryptor() {
+        @Override
+        public String encrypt(String message) {
+            return "enc:" + message;
+        }
+
+        @Override
+        public String decrypt(String encryptedMessage) {
+            decryptions.incrementAndGet();
+            return encryptedMessage.substring("enc:".length());
+        }
+    };
+
+    @Test
+    void decryptsOncePerCredentialWhileCached() {
+        CredentialSecretCache cache = new CredentialSecretCache(encryptor, 300, 10);
+        S3Credential credential = credential("secret");
+
+        assertThat(cache.getSecretKey(credential)).isEqualTo("secret");
+        assertThat(cache.getSecretKey(credential)).isEqualTo("secret");
+        assertThat(decryptions).hasValue(1);
+    }
+
+    @Test
+    void changedCiphertextReplacesTheEntry() {
+        CredentialSecretCache cache = new CredentialSecretCache(encryptor, 300, 10);
+        S3Credential credential = credential("old");
+        String first = cache.getSecretKey(credential);
+
+        credential.setSecretKey("enc:new");
+
+        assertThat(cache.getSecretKey(credential)).isEqualTo("new");
+        // Secrets already handed out are copies and survive the wipe of the replaced entry
+        assertThat(first).isEqualTo("old");
+    }
+
+    @Test
+    void invalidateForcesAnotherDecryption() {
+        CredentialSecretCache cache = new CredentialSecretCache(encryptor, 300, 10);
+        S3Credential credential = credential("secret");
+        cache.getSecretKey(credential);
+
+        cache.invalidate(credential.getId());
+
+        assertThat(cache.getSecretKey(credential)).isEqualTo("secret");
+        assertThat(decryptions).hasValue(2);
+    }
+
+    @Test
+    void evictsBeyondMaxSizeWithoutBreakingLaterReads() {
+        CredentialSecretCache cache = new CredentialSecretCache(encryptor, 300, 2);
+        List<S3Credential> credentials = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            credentials.add(credential("secret-" + i));
+        }
+
+        credentials.forEach(cache::getSecretKey);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.getSecretKey(credentials.get(i))).isEqualTo("secret-" + i);
+        }
+    }
+
+    @Test
+    void expiredEntriesAreDecryptedAgain() {
+        CredentialSecretCache cache = new CredentialSecretCache(encryptor, 0, 10);
+        S3Credential credential = credential("secret");
+
+        cache.getSecretKey(credential);
+        cache.getSecretKey(credential);
+
+        assertThat(decryptions).hasValue(2);
+    }
+
+    @Test
+    void concurrentMissesDecryptOnceAndNeverSeeAZeroedSecret() throws Exception {
+        CredentialSecretCache cache = new CredentialSecretCache(encryptor, 300, 10);
+        S3Credential credential = credential("secret");
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.getSecretKey(credential);
+                }));
+            }
+            start.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo("secret");
+            }
+            assertThat(decryptions).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsRacingInvalidationsStillGetThePlaintext() throws Exception {
+        CredentialSecretCache cache = new CredentialSecretCache(encryptor, 300, 10);
+        S3Credential credential = credential("secret");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<?> invalidator = executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    cache.invalidate(credential.getId());
+                }
+            });
+            List<Future<Boolean>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        if (!"secret".equals(cache.getSecretKey(credential))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            invalidator.get();
+            for (Future<Boolean> reader : readers) {
+                assertThat(reader.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void aFailedDecryptionIsNotCached() {
+        AtomicInteger attempts = new AtomicInteger();
+        StringEncryptor flaky = new StringEncryptor() {
+            @Override
+            public String encrypt(String message) {
+                return "enc:" + message;
+            }
+
+            @Override
+            public String decrypt(String encryptedMessage) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("decryption failed");
+                }
+                return encryptedMessage.substring("enc:".length());
+            }
+        };
+        CredentialSecretCache cache = new CredentialSecretCache(flaky, 300, 10);
+        S3Credential credential = credential("secret");
+
+        assertThatThrownBy(() -> cache.getSecretKey(credential)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.getSecretKey(credential)).isEqualTo("secret");
+        assertThat(cache.getSecretKey(credential)).isEqualTo("secret");
+        assertThat(attempts).hasValue(2);
+    }
+
+    private static S3Credential credential(String secret) {
+        S3Credential credential = new S3Credential();
+        credential.setId(UUID.randomUUID());
+        credential.setSecretKey("enc:" + secret);
+        return credential;
+    }
+}
@@ -0,0 +1,183 @@
+package com.s3manager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.s3manager.domain.entity.Job;
+import com.s3manager.domain.entity.JobStatus;
+import com.s3manager.domain.entity.JobType;
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.s3.BulkDeleteRequest;
+import com.s3manager.dto.s3.BulkDeleteResponse;
+import com.s3manager.repository.JobRepository;
+import com.s3manager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobServiceTest {
+
+    private static final UUID JOB_ID = UUID.randomUUID();
+
+    @Mock
+    private JobRepository jobRepository;
+    @Mock
+    private S3Service s3Service;
+    @Mock
+    private S3CredentialService credentialService;
+    @Mock
+    private UserRepository userRepository;
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private JobService jobService;
+    private Job job;
+
+    @BeforeEach
+    void setUp() {
+        jobService = new JobService(jobRepository, s3Service, credentialService, userRepository,
+                new ObjectMapper(), queued::add, "instance-1");
+        ReflectionTestUtils.setField(jobService, "progressIntervalMillis", 0L);
+        ReflectionTestUtils.setField(jobService, "staleAfterMillis", 300_000L);
+
+        User user = new User();
+        S3Credential credential = new S3Credential();
+        credential.setId(UUID.randomUUID());
+        job = Job.builder()
+                .user(user)
+                .type(JobType.BULK_DELETE)
+                .status(JobStatus.QUEUED)
+                .bucketName("bucket")
+                .prefix("logs/")
+                .request("{\"bucket\":\"bucket\",\"prefix\":\"logs/\"}")
+                .build();
+        job.setId(JOB_ID);
+
+        lenient().when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        lenient().when(credentialService.getDefaultCredential("alice")).thenReturn(credential);
+        lenient().when(jobRepository.save(any(Job.class))).thenReturn(job);
+        lenient().when(jobRepository.findByIdAndUser(JOB_ID, user)).thenReturn(Optional.of(job));
+        lenient().when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(job));
+    }
+
+    @Test
+    void cancellingAQueuedJobFinishesItAndItNeverRuns() {
+        jobService.submitBulkDelete("alice", BulkDeleteRequest.builder().bucket("bucket").prefix("logs/").build());
+        when(jobRepository.finish(eq(JOB_ID), eq(JobStatus.QUEUED), eq(JobStatus.CANCELLED), any())).thenReturn(1);
+
+        jobService.cancel("alice", JOB_ID);
+        // The worker picks the job up afterwards and finds it no longer queued
+        when(jobRepository.start(eq(JOB_ID), eq(JobStatus.QUEUED), eq(JobStatus.RUNNING), any())).thenReturn(0);
+        queued.forEach(Runnable::run);
+
+        verify(jobRepository).requestCancel(eq(JOB_ID), any());
+        verify(s3Service, never()).deleteObjects(anyString(), any(), any());
+        verify(jobRepository, never()).finishRun(any(), any(), any(), anyLong(), anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void cancellingARunningJobStopsItAndRecordsItAsCancelled() {
+        jobService.submitBulkDelete("alice", BulkDeleteRequest.builder().bucket("bucket").prefix("logs/").build());
+        when(jobRepository.start(eq(JOB_ID), eq(JobStatus.QUEUED), eq(JobStatus.RUNNING), any())).thenReturn(1);
+        when(jobRepository.finish(eq(JOB_ID), eq(JobStatus.QUEUED), eq(JobStatus.CANCELLED), any())).thenReturn(0);
+        when(jobRepository.findCancelRequested(JOB_ID, JobStatus.RUNNING)).thenReturn(Optional.of(false));
+        when(jobRepository.finishRun(eq(JOB_ID), eq(JobStatus.RUNNING), any(), anyLong(), anyLong(), any(), any(), any(), any()))
+                .thenReturn(1);
+        when(s3Service.deleteObjects(eq("alice"), any(BulkDeleteRequest.class), any())).thenAnswer(invocation -> {
+            ProgressListener progress = invocation.getArgument(2);
+            progress.onProgress(10, 0, null);
+            assertThat(progress.isCancelled()).isFalse();
+
+            job.setStatus(JobStatus.RUNNING);
+            jobService.cancel("alice", JOB_ID);
+
+            assertThat(progress.isCancelled()).isTrue();
+            return BulkDeleteResponse.builder().bucket("bucket").deleted(10L).failed(0L).build();
+        });
+
+        queued.forEach(Runnable::run);
+
+        verify(jobRepository).finishRun(eq(JOB_ID), eq(JobStatus.RUNNING), eq(JobStatus.CANCELLED),
+                eq(10L), eq(0L), isNull(), anyString(), isNull(), any());
+    }
+
+    @Test
+    void aRunningJobSeesACancelRequestedThroughAnotherInstance() {
+        jobService.submitBulkDelete("alice", BulkDeleteRequest.builder().bucket("bucket").prefix("logs/").build());
+        when(jobRepository.start(eq(JOB_ID), eq(JobStatus.QUEUED), eq(JobStatus.RUNNING), any())).thenReturn(1);
+        when(jobRepository.findCancelRequested(JOB_ID, JobStatus.RUNNING)).thenReturn(Optional.of(true));
+        when(jobRepository.finishRun(eq(JOB_ID), eq(JobStatus.RUNNING), any(), anyLong(), anyLong(), any(), any(), any(), any()))
+                .thenReturn(1);
+        when(s3Service.deleteObjects(eq("alice"), any(BulkDeleteRequest.class), any())).thenAnswer(invocation -> {
+            ProgressListener progress = invocation.getArgument(2);
+            progress.onProgress(5, 0, null);
+            assertThat(progress.isCancelled()).isTrue();
+            return BulkDeleteResponse.builder().bucket("bucket").deleted(5L).failed(0L).build();
+        });
+
+        queued.forEach(Runnable::run);
+
+        verify(jobRepository).updateProgress(eq(JOB_ID), eq(5L), eq(0L), isNull(), any());
+        verify(jobRepository).finishRun(eq(JOB_ID), eq(JobStatus.RUNNING), eq(JobStatus.CANCELLED),
+                eq(5L), eq(0L), isNull(), anyString(), isNull(), any());
+    }
+
+    @Test
+    void heartbeatAbandonsJobsWhoseOwnerStoppedResponding() {
+        when(jobRepository.abandonStale(any(), any(), any(), anyString(), any())).thenReturn(2);
+        LocalDateTime before = LocalDateTime.now();
+
+        jobService.heartbeat();
+
+        verify(jobRepository).heartbeat(eq("instance-1"), any(), any());
+        ArgumentCaptor<LocalDateTime> staleBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(jobRepository).abandonStale(staleBefore.capture(), any(), eq(JobStatus.FAILED), anyString(), any());
+        assertThat(staleBefore.getValue())
+                .isAfterOrEqualTo(before.minusMinutes(5))
+                .isBefore(LocalDateTime.now().minusMinutes(5).plusSeconds(1));
+    }
+
+    @Test
+    void aJobAbandonedWhileRunningIsStoppedAndKeepsItsFailedState() {
+        jobService.submitBulkDelete("alice", BulkDeleteRequest.builder().bucket("bucket").prefix("logs/").build());
+        when(jobRepository.start(eq(JOB_ID), eq(JobStatus.QUEUED), eq(JobStatus.RUNNING), any())).thenReturn(1);
+        // Another instance marked it failed, so it is no longer running
+        when(jobRepository.findCancelRequested(JOB_ID, JobStatus.RUNNING)).thenReturn(Optional.empty());
+        when(jobRepository.finishRun(eq(JOB_ID), eq(JobStatus.RUNNING), any(), anyLong(), anyLong(), any(), any(), any(), any()))
+                .thenReturn(0);
+        when(s3Service.deleteObjects(eq("alice"), any(BulkDeleteRequest.class), any())).thenAnswer(invocation -> {
+            ProgressListener progress = invocation.getArgument(2);
+            progress.onProgress(3, 0, null);
+            assertThat(progress.isCancelled()).isTrue();
+            return BulkDeleteResponse.builder().bucket("bucket").deleted(3L).failed(0L).build();
+        });
+
+        queued.forEach(Runnable::run);
+
+        // Saved on submission only, the outcome never overwrites the abandoned row
+        verify(jobRepository, times(1)).save(any(Job.class));
+        verify(jobRepository).finishRun(eq(JOB_ID), eq(JobStatus.RUNNING), eq(JobStatus.CANCELLED),
+                eq(3L), eq(0L), isNull(), anyString(), isNull(), any());
+    }
+}
@@ -0,0 +1,208 @@
+package com.s3manager.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MultipartUploaderTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+    private static final byte[] CONTENT = content(2 * PART_SIZE + 1024);
+
+    @Mock
+    private S3Client s3Client;
+
+    private MultipartUploader uploader;
+
+    @BeforeEach
+    void setUp() {
+        // Parts run on the calling thread, so every failure is seen in order
+        uploader = new MultipartUploader(Runnable::run);
+        ReflectionTestUtils.setField(uploader, "threshold", (long) PART_SIZE);
+        ReflectionTestUtils.setField(uploader, "partSize", (long) PART_SIZE);
+        ReflectionTestUtils.setField(uploader, "concurrency", 1);
+        ReflectionTestUtils.setField(uploader, "partRetries", 2);
+        ReflectionTestUtils.setField(uploader, "checksums", true);
+    }
+
+    @Test
+    void uploadsPartsWithTheirChecksumsAndCompletes() throws IOException {
+        startsMultipart();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> partResponse(invocation.getArgument(0)));
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompleteMultipartUploadResponse.builder().eTag("\"abc-3\"").build());
+
+        MultipartUploader.Result result;
+        try (MultipartUploader.MultipartUploadStream upload = open()) {
+            upload.write(CONTENT);
+            result = upload.complete();
+        }
+
+        assertThat(result.getETag()).isEqualTo("\"abc-3\"");
+        assertThat(result.getSize()).isEqualTo(CONTENT.length);
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        List<CompletedPart> parts = complete.getValue().multipartUpload().parts();
+        assertThat(parts).extracting(CompletedPart::partNumber).containsExactly(1, 2, 3);
+        assertThat(parts).extracting(CompletedPart::checksumCRC32C).containsExactly(
+                ContentChecksum.crc32cBase64(CONTENT, 0, PART_SIZE),
+                ContentChecksum.crc32cBase64(CONTENT, PART_SIZE, PART_SIZE),
+                ContentChecksum.crc32cBase64(CONTENT, 2 * PART_SIZE, 1024));
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void retriesAFailedPartOnItsOwn() throws IOException {
+        startsMultipart();
+        Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            int attempt = attempts.computeIfAbsent(request.partNumber(), n -> new AtomicInteger()).incrementAndGet();
+            if (request.partNumber() == 2 && attempt == 1) {
+                throw serverError();
+            }
+            return partResponse(request);
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompleteMultipartUploadResponse.builder().eTag("\"abc-3\"").build());
+
+        try (MultipartUploader.MultipartUploadStream upload = open()) {
+            upload.write(CONTENT);
+            upload.complete();
+        }
+
+        assertThat(attempts.get(1)).hasValue(1);
+        assertThat(attempts.get(2)).hasValue(2);
+        assertThat(attempts.get(3)).hasValue(1);
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void abortsWhenAPartFailsEveryRetry() {
+        startsMultipart();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenThrow(serverError());
+
+        assertThatThrownBy(() -> {
+            try (MultipartUploader.MultipartUploadStream upload = open()) {
+                upload.write(CONTENT);
+                upload.complete();
+            }
+        }).isInstanceOf(IOException.class);
+
+        // The first attempt and two retries, then the upload gives up before the next part
+        verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        startsMultipart();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().statusCode(403).message("AccessDenied").build());
+
+        assertThatThrownBy(() -> {
+            try (MultipartUploader.MultipartUploadStream upload = open()) {
+                upload.write(CONTENT);
+                upload.complete();
+            }
+        }).isInstanceOf(IOException.class);
+
+        verify(s3Client, times(1)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void abortsAnUploadClosedWithoutCompleting() throws IOException {
+        startsMultipart();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> partResponse(invocation.getArgument(0)));
+
+        try (MultipartUploader.MultipartUploadStream upload = open()) {
+            upload.write(CONTENT);
+        }
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void sendsASmallUploadAsOnePutWithItsChecksums() throws IOException {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("\"small\"").build());
+
+        try (MultipartUploader.MultipartUploadStream upload = open()) {
+            upload.write(CONTENT, 0, 1024);
+            upload.complete();
+        }
+
+        ArgumentCaptor<PutObjectRequest> put = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client).putObject(put.capture(), any(RequestBody.class));
+        assertThat(put.getValue().checksumCRC32C()).isEqualTo(ContentChecksum.crc32cBase64(CONTENT, 0, 1024));
+        assertThat(put.getValue().contentMD5()).isNotNull();
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    private MultipartUploader.MultipartUploadStream open() {
+        return uploader.open(s3Client, CreateMultipartUploadRequest.builder()
+                .bucket("bucket")
+                .key("big.bin")
+                .build(), (long) CONTENT.length);
+    }
+
+    private void startsMultipart() {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+    }
+
+    private static UploadPartResponse partResponse(UploadPartRequest request) {
+        return UploadPartResponse.builder().eTag("\"part-" + request.partNumber() + "\"").build();
+    }
+
+    private static S3Exception serverError() {
+        return (S3Exception) S3Exception.builder().statusCode(500).message("InternalError").build();
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + 7);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,103 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.ArchiveRequest.ArchiveFormat;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ObjectArchiverTest {
+
+    @Mock
+    private ObjectCompressor objectCompressor;
+    @Mock
+    private S3Client s3Client;
+
+    private ObjectArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        archiver = new ObjectArchiver(Runnable::run, objectCompressor);
+        ReflectionTestUtils.setField(archiver, "prefetch", 2);
+        ReflectionTestUtils.setField(archiver, "prefetchMaxSize", 4);
+        ReflectionTestUtils.setField(archiver, "bufferSize", 8192);
+    }
+
+    @Test
+    void smallObjectsAreReadAheadWhole() throws IOException {
+        prefetched("a.txt", "abc", null);
+        prefetched("b.txt", "", null);
+
+        Map<String, String> entries = write("a.txt", "b.txt");
+
+        assertThat(entries).containsExactly(Map.entry("a.txt", "abc"), Map.entry("b.txt", ""));
+        verify(s3Client, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void largerObjectsFetchTheRestOfTheSameVersionWhenWritten() throws IOException {
+        prefetched("large.txt", "0123", "bytes 0-3/10");
+        when(s3Client.getObject(argThat((GetObjectRequest request) -> request != null && "large.txt".equals(request.key()))))
+                .thenReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                        AbortableInputStream.create(new ByteArrayInputStream("456789".getBytes(StandardCharsets.UTF_8)))));
+
+        Map<String, String> entries = write("large.txt");
+
+        assertThat(entries).containsExactly(Map.entry("large.txt", "0123456789"));
+        ArgumentCaptor<GetObjectRequest> rest = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(rest.capture());
+        assertThat(rest.getValue().range()).isEqualTo("bytes=4-");
+        assertThat(rest.getValue().ifMatch()).isEqualTo("\"etag\"");
+    }
+
+    private void prefetched(String key, String head, String contentRange) {
+        GetObjectResponse response = GetObjectResponse.builder()
+                .eTag("\"etag\"")
+                .contentLength((long) head.length())
+                .contentRange(contentRange)
+                .build();
+        when(s3Client.getObjectAsBytes(argThat((GetObjectRequest request) -> request != null && key.equals(request.key()))))
+                .thenReturn(ResponseBytes.fromByteArray(response, head.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Map<String, String> write(String... keys) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiver.write(s3Client, "bucket", List.of(keys).iterator(), key -> key, ArchiveFormat.TAR, out);
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(tar.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
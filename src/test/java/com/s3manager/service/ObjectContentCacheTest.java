@@ -0,0 +1,88 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.ObjectDownload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ObjectContentCacheTest {
+
+    private static final byte[] CONTENT = "cached content".getBytes(StandardCharsets.UTF_8);
+    private static final UUID CREDENTIAL_ID = UUID.randomUUID();
+
+    @TempDir
+    Path temp;
+
+    private Path directory;
+    private ObjectContentCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createDirectory(temp.resolve("cache"));
+        cache = new ObjectContentCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "directory", directory.toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", 1024L);
+        ReflectionTestUtils.setField(cache, "maxEntrySize", 1024L);
+    }
+
+    @Test
+    void startupOnlyRemovesTheCachesOwnFiles() throws Exception {
+        Path entry = Files.writeString(directory.resolve("a".repeat(64) + ".cached"), "old");
+        Path partial = Files.writeString(directory.resolve("b".repeat(64) + "123456.tmp"), "partial");
+        Path foreign = Files.writeString(directory.resolve("notes.txt"), "keep me");
+
+        cache.init();
+
+        assertThat(entry).doesNotExist();
+        assertThat(partial).doesNotExist();
+        assertThat(foreign).hasContent("keep me");
+    }
+
+    @Test
+    void aDownloadIsServedFromTheCacheOnceItHasBeenWritten() throws Exception {
+        cache.init();
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        cache.populating(CREDENTIAL_ID, download()).writeTo(first);
+
+        assertThat(first.toByteArray()).isEqualTo(CONTENT);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        try (ObjectDownload cached = cache.openCached(CREDENTIAL_ID, "bucket", "key", "\"etag\"", null).orElseThrow()) {
+            cached.writeTo(second);
+        }
+        assertThat(second.toByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void aCacheThatCannotBeWrittenStillServesTheDownload() throws Exception {
+        cache.init();
+        Files.delete(directory);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.populating(CREDENTIAL_ID, download()).writeTo(out);
+
+        assertThat(out.toByteArray()).isEqualTo(CONTENT);
+        assertThat(cache.openCached(CREDENTIAL_ID, "bucket", "key", "\"etag\"", null)).isEmpty();
+    }
+
+    private static ObjectDownload download() {
+        return ObjectDownload.builder()
+                .bucket("bucket")
+                .key("key")
+                .contentLength((long) CONTENT.length)
+                .eTag("\"etag\"")
+                .body(out -> out.write(CONTENT))
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.KeyError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CopyObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checkpoints and resumption of prefix copies.
+ */
+@ExtendWith(MockitoExtension.class)
+class ObjectCopierTest {
+
+    private static final List<String> KEYS = List.of("src/1", "src/2", "src/3", "src/4");
+
+    @Mock
+    private S3Client s3Client;
+    @Mock
+    private BulkDeleter bulkDeleter;
+
+    private ObjectCopier copier;
+    private final RecordingListener listener = new RecordingListener();
+
+    @BeforeEach
+    void setUp() {
+        // Copies run on the listing thread, one after the other in key order
+        copier = new ObjectCopier(Runnable::run, bulkDeleter);
+        ReflectionTestUtils.setField(copier, "concurrency", 4);
+        ReflectionTestUtils.setField(copier, "maxReportedErrors", 10);
+        ReflectionTestUtils.setField(copier, "multipartThreshold", 256L * 1024 * 1024);
+
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenAnswer(invocation -> new ListObjectsV2Iterable(s3Client, invocation.getArgument(0)));
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            ListObjectsV2Request request = invocation.getArgument(0);
+            return ListObjectsV2Response.builder()
+                    .contents(KEYS.stream()
+                            .filter(key -> request.startAfter() == null || key.compareTo(request.startAfter()) > 0)
+                            .map(key -> S3Object.builder().key(key).size(10L).build())
+                            .collect(Collectors.toList()))
+                    .isTruncated(false)
+                    .build();
+        });
+    }
+
+    @Test
+    void copiesEveryKeyAndEndsWithoutACheckpoint() throws InterruptedIOException {
+        copySucceeds();
+
+        ObjectCopier.Result result = copyPrefix(null, false);
+
+        assertThat(result.getCopied()).isEqualTo(4);
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getCheckpoint()).isNull();
+        assertThat(copiedDestinations()).containsExactly("dst/1", "dst/2", "dst/3", "dst/4");
+        assertThat(listener.checkpoints).containsExactly("src/1", "src/2", "src/3", "src/4");
+    }
+
+    @Test
+    void checkpointStopsBeforeTheFirstFailedKey() throws InterruptedIOException {
+        when(s3Client.copyObject(any(CopyObjectRequest.class))).thenAnswer(invocation -> {
+            if (invocation.<CopyObjectRequest>getArgument(0).sourceKey().equals("src/3")) {
+                throw S3Exception.builder().statusCode(500).message("InternalError").build();
+            }
+            return CopyObjectResponse.builder().build();
+        });
+
+        ObjectCopier.Result result = copyPrefix(null, false);
+
+        assertThat(result.getCopied()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(KeyError::getKey).containsExactly("src/3");
+        assertThat(result.isCompleted()).isFalse();
+        assertThat(result.getCheckpoint()).isEqualTo("src/2");
+    }
+
+    @Test
+    void resumesAfterTheCheckpoint() throws InterruptedIOException {
+        copySucceeds();
+
+        ObjectCopier.Result result = copyPrefix("src/2", false);
+
+        ArgumentCaptor<ListObjectsV2Request> listing = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(s3Client, atLeastOnce()).listObjectsV2(listing.capture());
+        assertThat(listing.getAllValues().get(0).startAfter()).isEqualTo("src/2");
+        assertThat(copiedDestinations()).containsExactly("dst/3", "dst/4");
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getCheckpoint()).isNull();
+    }
+
+    @Test
+    void cancelledRunKeepsTheCheckpointOfWhatWasCopied() throws InterruptedIOException {
+        copySucceeds();
+        listener.cancelAfter = 2;
+
+        ObjectCopier.Result result = copyPrefix(null, false);
+
+        assertThat(result.getCopied()).isEqualTo(2);
+        assertThat(result.isCompleted()).isFalse();
+        assertThat(result.getCheckpoint()).isEqualTo("src/2");
+    }
+
+    @Test
+    void moveOnlyAdvancesTheCheckpointOnceSourcesAreDeleted() throws InterruptedIOException {
+        copySucceeds();
+        doAnswer(invocation -> {
+            List<String> keys = invocation.getArgument(2);
+            BulkDeleter.Listener batchListener = invocation.getArgument(3);
+            List<String> deleted = new ArrayList<>(keys);
+            deleted.remove("src/2");
+            batchListener.onBatch(deleted, List.of(new KeyError("src/2", "AccessDenied", "Access Denied")));
+            return null;
+        }).when(bulkDeleter).deleteBatch(eq(s3Client), eq("bucket"), anyList(), any(BulkDeleter.Listener.class));
+
+        ObjectCopier.Result result = copyPrefix(null, true);
+
+        assertThat(result.getCopied()).isEqualTo(4);
+        assertThat(result.getDeleted()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.isCompleted()).isFalse();
+        assertThat(result.getCheckpoint()).isEqualTo("src/1");
+    }
+
+    private ObjectCopier.Result copyPrefix(String startAfter, boolean deleteSource) throws InterruptedIOException {
+        return copier.copyPrefix(s3Client, "bucket", "src/", "bucket", "dst/", startAfter, deleteSource, listener);
+    }
+
+    private void copySucceeds() {
+        when(s3Client.copyObject(any(CopyObjectRequest.class))).thenReturn(CopyObjectResponse.builder().build());
+    }
+
+    private List<String> copiedDestinations() {
+        ArgumentCaptor<CopyObjectRequest> copies = ArgumentCaptor.forClass(CopyObjectRequest.class);
+        verify(s3Client, atLeastOnce()).copyObject(copies.capture());
+        return copies.getAllValues().stream()
+                .map(CopyObjectRequest::destinationKey)
+                .collect(Collectors.toList());
+    }
+
+    private static class RecordingListener implements ObjectCopier.Listener {
+        private final List<String> checkpoints = Collections.synchronizedList(new ArrayList<>());
+        private int copied;
+        private int cancelAfter = Integer.MAX_VALUE;
+
+        @Override
+        public synchronized void onCopied(String sourceKey, String destinationKey) {
+            copied++;
+        }
+
+        @Override
+        public void onCheckpoint(String checkpoint) {
+            checkpoints.add(checkpoint);
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return copied >= cancelAfter;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class S3ClientRegistryTest {
+
+    @Mock
+    private S3CredentialService credentialService;
+
+    private S3ClientRegistry registry;
+    private S3Credential credential;
+
+    @BeforeEach
+    void setUp() {
+        registry = new S3ClientRegistry(credentialService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(registry, "maxSize", 200);
+        // Every client counts as idle
+        ReflectionTestUtils.setField(registry, "idleTimeoutSeconds", -1L);
+
+        credential = new S3Credential();
+        credential.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void invalidatingALeasedClientClosesItOnlyOnceReleased() {
+        S3Client client = mock(S3Client.class);
+        when(credentialService.createS3Client(credential)).thenReturn(client);
+
+        S3ClientRegistry.Lease<S3Client> lease = registry.leaseClient(credential);
+        registry.invalidate(credential.getId());
+
+        verify(client, never()).close();
+        lease.close();
+        verify(client).close();
+    }
+
+    @Test
+    void idleSweepSkipsClientsThatAreLeased() {
+        S3Client client = mock(S3Client.class);
+        when(credentialService.createS3Client(credential)).thenReturn(client);
+
+        try (S3ClientRegistry.Lease<S3Client> lease = registry.leaseClient(credential)) {
+            registry.evictIdleClients();
+            verify(client, never()).close();
+
+            // Still cached, so the next lease reuses it
+            try (S3ClientRegistry.Lease<S3Client> second = registry.leaseClient(credential)) {
+                assertThat(second.client()).isSameAs(lease.client());
+            }
+        }
+
+        registry.evictIdleClients();
+        verify(client).close();
+    }
+
+    @Test
+    void aClientThatWasClosedIsReplacedOnTheNextLease() {
+        S3Client first = mock(S3Client.class);
+        S3Client second = mock(S3Client.class);
+        when(credentialService.createS3Client(credential)).thenReturn(first, second);
+
+        registry.leaseClient(credential).close();
+        registry.invalidate(credential.getId());
+
+        try (S3ClientRegistry.Lease<S3Client> lease = registry.leaseClient(credential)) {
+            assertThat(lease.client()).isSameAs(second);
+        }
+        verify(first).close();
+        verify(second, never()).close();
+    }
+
+    @Test
+    void releasingALeaseTwiceCountsOnce() {
+        S3Client client = mock(S3Client.class);
+        when(credentialService.createS3Client(credential)).thenReturn(client);
+
+        S3ClientRegistry.Lease<S3Client> first = registry.leaseClient(credential);
+        S3ClientRegistry.Lease<S3Client> second = registry.leaseClient(credential);
+        first.close();
+        first.close();
+        registry.invalidate(credential.getId());
+
+        verify(client, never()).close();
+        second.close();
+        verify(client).close();
+    }
+}
@@ -0,0 +1,74 @@
+package com.s3manager.service;
+
+import com.s3manager.dto.s3.CopyMoveRequest;
+import com.s3manager.exception.BadRequestException;
+import com.s3manager.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class S3ServiceCopyTest {
+
+    @Mock
+    private S3CredentialService credentialService;
+    @Mock
+    private S3ClientRegistry clientRegistry;
+    @Mock
+    private ParallelDownloader parallelDownloader;
+    @Mock
+    private ObjectContentCache contentCache;
+    @Mock
+    private ObjectArchiver objectArchiver;
+    @Mock
+    private MultipartUploader multipartUploader;
+    @Mock
+    private BatchUploader batchUploader;
+    @Mock
+    private ObjectCompressor objectCompressor;
+    @Mock
+    private BulkDeleter bulkDeleter;
+    @Mock
+    private ObjectCopier objectCopier;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AuditService auditService;
+
+    @InjectMocks
+    private S3Service s3Service;
+
+    @Test
+    void moveOntoItselfIsRejectedBeforeAnythingIsCopiedOrDeleted() {
+        CopyMoveRequest request = sameObject();
+
+        assertThatThrownBy(() -> s3Service.moveObject("alice", request))
+                .isInstanceOf(BadRequestException.class);
+
+        verifyNoInteractions(objectCopier, clientRegistry, credentialService);
+    }
+
+    @Test
+    void copyOntoItselfIsRejected() {
+        CopyMoveRequest request = sameObject();
+
+        assertThatThrownBy(() -> s3Service.copyObject("alice", request))
+                .isInstanceOf(BadRequestException.class);
+
+        verifyNoInteractions(objectCopier, clientRegistry, credentialService);
+    }
+
+    private static CopyMoveRequest sameObject() {
+        return CopyMoveRequest.builder()
+                .sourceBucket("bucket")
+                .sourceKey("big.bin")
+                .destinationBucket("bucket")
+                .destinationKey("big.bin")
+                .build();
+    }
+}
@@ -0,0 +1,203 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.s3.DownloadRequest;
+import com.s3manager.dto.s3.ObjectDownload;
+import com.s3manager.exception.RangeNotSatisfiableException;
+import com.s3manager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpRange;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Range handling of object downloads.
+ */
+@ExtendWith(MockitoExtension.class)
+class S3ServiceDownloadTest {
+
+    private static final long OBJECT_SIZE = 100;
+
+    @Mock
+    private S3CredentialService credentialService;
+    @Mock
+    private S3ClientRegistry clientRegistry;
+    @Mock
+    private ParallelDownloader parallelDownloader;
+    @Mock
+    private ObjectContentCache contentCache;
+    @Mock
+    private ObjectArchiver objectArchiver;
+    @Mock
+    private MultipartUploader multipartUploader;
+    @Mock
+    private BatchUploader batchUploader;
+    @Mock
+    private ObjectCompressor objectCompressor;
+    @Mock
+    private BulkDeleter bulkDeleter;
+    @Mock
+    private ObjectCopier objectCopier;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AuditService auditService;
+    @Mock
+    private S3Client s3Client;
+
+    @InjectMocks
+    private S3Service s3Service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(s3Service, "maxRanges", 16);
+        ReflectionTestUtils.setField(s3Service, "downloadBufferSize", 8192);
+
+        S3Credential credential = new S3Credential();
+        credential.setId(UUID.randomUUID());
+        lenient().when(credentialService.getDefaultCredential("alice")).thenReturn(credential);
+        lenient().when(clientRegistry.leaseClient(credential)).thenReturn(new S3ClientRegistry.Lease<>(s3Client, () -> { }));
+        lenient().when(userRepository.findByUsername("alice")).thenReturn(Optional.of(new User()));
+        lenient().when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(HeadObjectResponse.builder()
+                .contentLength(OBJECT_SIZE)
+                .contentType("text/plain")
+                .eTag("\"etag\"")
+                .build());
+    }
+
+    @Test
+    void singleRangeIsPassedToS3AndServedAsPartialContent() {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(stream(GetObjectResponse.builder()
+                .contentLength(10L)
+                .contentRange("bytes 0-9/100"), 10));
+
+        ObjectDownload download = s3Service.downloadObject("alice", request("bytes=0-9"));
+
+        ArgumentCaptor<GetObjectRequest> sent = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(sent.capture());
+        assertThat(sent.getValue().range()).isEqualTo("bytes=0-9");
+        assertThat(download.isPartial()).isTrue();
+        assertThat(download.getContentRange()).isEqualTo("bytes 0-9/100");
+        assertThat(download.getContentLength()).isEqualTo(10L);
+    }
+
+    @Test
+    void unsatisfiableSingleRangeReportsTheObjectSize() {
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(416).message("InvalidRange").build());
+
+        assertThatThrownBy(() -> s3Service.downloadObject("alice", request("bytes=500-")))
+                .isInstanceOfSatisfying(RangeNotSatisfiableException.class,
+                        e -> assertThat(e.getObjectSize()).isEqualTo(OBJECT_SIZE));
+    }
+
+    @Test
+    void multipleRangesAreServedAsMultipartByteranges() throws Exception {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            assertThat(invocation.<GetObjectRequest>getArgument(0).ifMatch()).isEqualTo("\"etag\"");
+            String range = invocation.<GetObjectRequest>getArgument(0).range();
+            long[] bounds = Arrays.stream(range.substring("bytes=".length()).split("-"))
+                    .mapToLong(Long::parseLong)
+                    .toArray();
+            return stream(GetObjectResponse.builder(), (int) (bounds[1] - bounds[0] + 1));
+        });
+
+        ObjectDownload download = s3Service.downloadObject("alice", request("bytes=0-9, 50-59"));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        download.writeTo(body);
+        String content = body.toString(StandardCharsets.US_ASCII);
+
+        assertThat(download.isPartial()).isTrue();
+        assertThat(download.getContentType()).startsWith("multipart/byteranges; boundary=");
+        assertThat(download.getContentLength()).isEqualTo(body.size());
+        assertThat(content)
+                .contains("Content-Range: bytes 0-9/100")
+                .contains("Content-Range: bytes 50-59/100")
+                .contains("Content-Type: text/plain");
+    }
+
+    @Test
+    void rangesBeyondTheObjectAreDroppedFromAMultipleRangeRequest() throws Exception {
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(stream(GetObjectResponse.builder().contentLength(10L), 10));
+
+        ObjectDownload download = s3Service.downloadObject("alice", request("bytes=0-9, 200-300"));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        download.writeTo(body);
+
+        assertThat(download.getContentLength()).isEqualTo(body.size());
+        assertThat(body.toString(StandardCharsets.US_ASCII))
+                .contains("Content-Range: bytes 0-9/100")
+                .doesNotContain("bytes 200");
+    }
+
+    @Test
+    void multipleRangesAllBeyondTheObjectAreUnsatisfiable() {
+        assertThatThrownBy(() -> s3Service.downloadObject("alice", request("bytes=200-300, 400-")))
+                .isInstanceOfSatisfying(RangeNotSatisfiableException.class,
+                        e -> assertThat(e.getObjectSize()).isEqualTo(OBJECT_SIZE));
+    }
+
+    @Test
+    void tooManyRangesFallBackToTheWholeObject() {
+        ReflectionTestUtils.setField(s3Service, "maxRanges", 2);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(stream(GetObjectResponse.builder()
+                .contentLength(OBJECT_SIZE), (int) OBJECT_SIZE));
+
+        ObjectDownload download = s3Service.downloadObject("alice", request("bytes=0-9, 20-29, 40-49"));
+
+        ArgumentCaptor<GetObjectRequest> sent = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(sent.capture());
+        assertThat(sent.getValue().range()).isNull();
+        assertThat(download.isPartial()).isFalse();
+        assertThat(download.getContentLength()).isEqualTo(OBJECT_SIZE);
+    }
+
+    private static DownloadRequest request(String range) {
+        List<HttpRange> ranges = HttpRange.parseRanges(range);
+        return DownloadRequest.builder()
+                .bucket("bucket")
+                .key("file.txt")
+                .ranges(ranges)
+                .parallel(false)
+                .build();
+    }
+
+    private static ResponseInputStream<GetObjectResponse> stream(GetObjectResponse.Builder response, int length) {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) 'a');
+        return new ResponseInputStream<>(response.build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content)));
+    }
+}
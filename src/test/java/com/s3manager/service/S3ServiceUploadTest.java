@@ -0,0 +1,198 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.s3.CompressionCodec;
+import com.s3manager.dto.s3.UploadOptions;
+import com.s3manager.dto.s3.UploadResponse;
+import com.s3manager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.ServerSideEncryption;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The {@code skipIfUnchanged} decision of streaming uploads.
+ */
+@ExtendWith(MockitoExtension.class)
+class S3ServiceUploadTest {
+
+    private static final byte[] CONTENT = "hello world".getBytes(StandardCharsets.US_ASCII);
+    private static final String MD5 = "5eb63bbbe01eeed093cb22bb8f5acdc3";
+    private static final String CRC32C = "yZRlqg==";
+
+    @Mock
+    private S3CredentialService credentialService;
+    @Mock
+    private S3ClientRegistry clientRegistry;
+    @Mock
+    private ParallelDownloader parallelDownloader;
+    @Mock
+    private ObjectContentCache contentCache;
+    @Mock
+    private ObjectArchiver objectArchiver;
+    @Mock
+    private MultipartUploader multipartUploader;
+    @Mock
+    private BatchUploader batchUploader;
+    @Mock
+    private ObjectCompressor objectCompressor;
+    @Mock
+    private BulkDeleter bulkDeleter;
+    @Mock
+    private ObjectCopier objectCopier;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AuditService auditService;
+    @Mock
+    private S3Client s3Client;
+
+    @InjectMocks
+    private S3Service s3Service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(s3Service, "maxUploadSize", 1024L * 1024);
+
+        S3Credential credential = new S3Credential();
+        credential.setId(UUID.randomUUID());
+        lenient().when(credentialService.getDefaultCredential("alice")).thenReturn(credential);
+        lenient().when(clientRegistry.leaseClient(credential)).thenReturn(new S3ClientRegistry.Lease<>(s3Client, () -> { }));
+        lenient().when(userRepository.findByUsername("alice")).thenReturn(Optional.of(new User()));
+        lenient().when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("\"" + MD5 + "\"").build());
+    }
+
+    @Test
+    void skipsWhenTheStoredMd5MetadataMatches() {
+        existing(HeadObjectResponse.builder()
+                .eTag("\"0123456789abcdef0123456789abcdef-2\"")
+                .contentLength((long) CONTENT.length)
+                .metadata(Map.of("s3m-content-md5", MD5)));
+
+        assertSkipped(upload(UploadOptions.builder().contentMd5(MD5)));
+    }
+
+    @Test
+    void skipsWhenASinglePartETagIsTheMd5() {
+        existing(HeadObjectResponse.builder()
+                .eTag("\"" + MD5 + "\"")
+                .contentLength((long) CONTENT.length));
+
+        assertSkipped(upload(UploadOptions.builder().contentMd5(MD5)));
+    }
+
+    @Test
+    void uploadsWhenOnlyAMultipartETagIsAvailable() {
+        existing(HeadObjectResponse.builder()
+                .eTag("\"" + MD5 + "-2\"")
+                .contentLength((long) CONTENT.length));
+
+        assertUploaded(upload(UploadOptions.builder().contentMd5(MD5)));
+    }
+
+    @Test
+    void uploadsWhenTheETagIsNotAnMd5BecauseOfKms() {
+        existing(HeadObjectResponse.builder()
+                .eTag("\"" + MD5 + "\"")
+                .contentLength((long) CONTENT.length)
+                .serverSideEncryption(ServerSideEncryption.AWS_KMS));
+
+        assertUploaded(upload(UploadOptions.builder().contentMd5(MD5)));
+    }
+
+    @Test
+    void skipsWhenTheFullObjectCrc32cMatches() {
+        existing(HeadObjectResponse.builder()
+                .eTag("\"0123456789abcdef0123456789abcdef-2\"")
+                .contentLength((long) CONTENT.length)
+                .checksumCRC32C(CRC32C));
+
+        assertSkipped(upload(UploadOptions.builder().checksumCrc32c(CRC32C)));
+    }
+
+    @Test
+    void uploadsWhenOnlyAMultipartCompositeCrc32cIsAvailable() {
+        // A composite checksum is a checksum of part checksums, never equal to the content's
+        existing(HeadObjectResponse.builder()
+                .eTag("\"0123456789abcdef0123456789abcdef-2\"")
+                .contentLength((long) CONTENT.length)
+                .checksumCRC32C(CRC32C + "-2"));
+
+        assertUploaded(upload(UploadOptions.builder().checksumCrc32c(CRC32C)));
+    }
+
+    @Test
+    void uploadsWhenTheSizeDiffers() {
+        existing(HeadObjectResponse.builder()
+                .eTag("\"" + MD5 + "\"")
+                .contentLength(CONTENT.length + 1L));
+
+        assertUploaded(upload(UploadOptions.builder().contentMd5(MD5)));
+    }
+
+    @Test
+    void comparesACompressedObjectByItsOriginalSize() {
+        Map<String, String> metadata = Map.of("s3m-content-md5", MD5);
+        when(objectCompressor.codecOf(metadata)).thenReturn(CompressionCodec.GZIP);
+        when(objectCompressor.originalSizeOf(metadata)).thenReturn((long) CONTENT.length);
+        existing(HeadObjectResponse.builder()
+                .eTag("\"" + MD5 + "\"")
+                .contentLength(31L)
+                .metadata(metadata));
+
+        assertSkipped(upload(UploadOptions.builder().contentMd5(MD5)));
+    }
+
+    @Test
+    void uploadsWhenThereIsNoExistingObject() {
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+        assertUploaded(upload(UploadOptions.builder().contentMd5(MD5)));
+    }
+
+    private void existing(HeadObjectResponse.Builder head) {
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(head.build());
+    }
+
+    private UploadResponse upload(UploadOptions.UploadOptionsBuilder options) {
+        return s3Service.uploadStream("alice", "bucket", "hello.txt", new ByteArrayInputStream(CONTENT),
+                CONTENT.length, "text/plain", null, options.skipIfUnchanged(true).build());
+    }
+
+    private void assertSkipped(UploadResponse response) {
+        assertThat(response.isSkipped()).isTrue();
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    private void assertUploaded(UploadResponse response) {
+        assertThat(response.isSkipped()).isFalse();
+        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+}
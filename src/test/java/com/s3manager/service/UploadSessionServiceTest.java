@@ -0,0 +1,129 @@
+package com.s3manager.service;
+
+import com.s3manager.domain.entity.S3Credential;
+import com.s3manager.domain.entity.UploadSession;
+import com.s3manager.domain.entity.UploadSessionPart;
+import com.s3manager.domain.entity.UploadSessionStatus;
+import com.s3manager.domain.entity.User;
+import com.s3manager.dto.upload.UploadSessionPartResponse;
+import com.s3manager.repository.S3CredentialRepository;
+import com.s3manager.repository.UploadSessionPartRepository;
+import com.s3manager.repository.UploadSessionRepository;
+import com.s3manager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceTest {
+
+    private static final UUID SESSION_ID = UUID.randomUUID();
+
+    @Mock
+    private UploadSessionRepository sessionRepository;
+    @Mock
+    private UploadSessionPartRepository partRepository;
+    @Mock
+    private S3CredentialRepository credentialRepository;
+    @Mock
+    private S3CredentialService credentialService;
+    @Mock
+    private S3ClientRegistry clientRegistry;
+    @Mock
+    private ObjectContentCache contentCache;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AuditService auditService;
+    @Mock
+    private S3Client s3Client;
+
+    @InjectMocks
+    private UploadSessionService uploadSessionService;
+
+    private UploadSession session;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        S3Credential credential = new S3Credential();
+        credential.setId(UUID.randomUUID());
+        session = UploadSession.builder()
+                .user(user)
+                .credential(credential)
+                .bucketName("bucket")
+                .objectKey("big.bin")
+                .uploadId("upload-1")
+                .partSize(5L * 1024 * 1024)
+                .status(UploadSessionStatus.ACTIVE)
+                .build();
+        session.setId(SESSION_ID);
+
+        lenient().when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        lenient().when(sessionRepository.findByIdAndUser(SESSION_ID, user)).thenReturn(Optional.of(session));
+        lenient().when(credentialService.getCredentialByIdInternal("alice", credential.getId())).thenReturn(credential);
+        lenient().when(clientRegistry.leaseClient(credential)).thenReturn(new S3ClientRegistry.Lease<>(s3Client, () -> { }));
+        lenient().when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("\"second\"").build());
+    }
+
+    @Test
+    void concurrentUploadOfTheSamePartReplacesTheStoredPart() {
+        UploadSessionPart stored = UploadSessionPart.builder()
+                .session(session)
+                .partNumber(1)
+                .eTag("\"first\"")
+                .size(4L)
+                .build();
+        when(partRepository.findBySessionAndPartNumber(session, 1))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(stored));
+        when(partRepository.save(any(UploadSessionPart.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_upload_part_number"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        UploadSessionPartResponse response = uploadSessionService.uploadPart(
+                "alice", SESSION_ID, 1, new ByteArrayInputStream(new byte[3]), 3);
+
+        ArgumentCaptor<UploadSessionPart> saved = ArgumentCaptor.forClass(UploadSessionPart.class);
+        verify(partRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues().get(1)).isSameAs(stored);
+        assertThat(stored.getETag()).isEqualTo("\"second\"");
+        assertThat(stored.getSize()).isEqualTo(3L);
+        assertThat(response.getETag()).isEqualTo("\"second\"");
+    }
+
+    @Test
+    void sweepDeletesPartsStoredAfterTheirSessionFinishedBeforeTheSession() {
+        uploadSessionService.abortStaleSessions();
+
+        InOrder order = inOrder(partRepository, sessionRepository);
+        ArgumentCaptor<LocalDateTime> threshold = ArgumentCaptor.forClass(LocalDateTime.class);
+        order.verify(partRepository).deleteOfSessionsFinishedBefore(eq(UploadSessionStatus.ACTIVE), threshold.capture());
+        order.verify(sessionRepository).deleteFinishedBefore(UploadSessionStatus.ACTIVE, threshold.getValue());
+    }
+}